@@ -1,25 +1,56 @@
 import { useEffect, useState } from "react";
 import axios from "axios";
+import type { AxiosError, InternalAxiosRequestConfig } from "axios";
+import getCookie from "../getCookie";
 
 axios.defaults.withCredentials = true;
 axios.defaults.xsrfCookieName = "XSRF-TOKEN";
 axios.defaults.xsrfHeaderName = "X-XSRF-TOKEN";
 
+const SAFE_METHODS = new Set(["GET", "HEAD", "OPTIONS"]);
+
+type CsrfRetryConfig = InternalAxiosRequestConfig & { csrfRetried?: boolean };
+
+// A stale token (session expired, key rotated) gets a 403 whose response already sets a fresh
+// XSRF-TOKEN cookie: retry the request once with it. Other 403s leave the cookie unchanged
+// and are passed through.
+axios.interceptors.response.use(undefined, async (error: AxiosError) => {
+  const config = error.config as CsrfRetryConfig | undefined;
+  const method = config?.method?.toUpperCase() ?? "GET";
+  if (error.response?.status !== 403 || !config || config.csrfRetried || SAFE_METHODS.has(method)) {
+    return Promise.reject(error);
+  }
+  const sent = config.headers.get("X-XSRF-TOKEN");
+  let token = getCookie("XSRF-TOKEN");
+  if (token === undefined) {
+    await axios.get("/api/csrf");
+    token = getCookie("XSRF-TOKEN");
+  }
+  if (token === undefined || token === sent) {
+    return Promise.reject(error);
+  }
+  config.csrfRetried = true;
+  config.headers.set("X-XSRF-TOKEN", token);
+  return axios.request(config);
+});
+
+// The token cookie is stable for the session and the login response replaces it, so
+// /api/csrf is only needed when the browser has no token yet.
 export function useCsrf() {
-  const [csrfReady, setCsrfReady] = useState(false);
+  const [csrfReady, setCsrfReady] = useState(() => getCookie("XSRF-TOKEN") !== undefined);
 
   useEffect(() => {
+    if (csrfReady) return;
     const fetchCsrfToken = async () => {
       try {
         await axios.get("/api/csrf");
-        console.log("Cookie after CSRF fetch:", document.cookie);
         setCsrfReady(true);
       } catch (err) {
         console.error("Failed to fetch CSRF token", err);
       }
     };
     fetchCsrfToken();
-  }, []);
+  }, [csrfReady]);
 
   return csrfReady;
-}
\ No newline at end of file
+}
@@ -0,0 +1,85 @@
+package app.benchmark;
+
+import app.Application;
+import app.controller.AuthController;
+import app.service.BulkUserRegistrationService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.ByteArrayInputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Registration throughput (users/s) for a 1000-user import: AuthController.register once per
+ * user versus one BulkUserRegistrationService call with an NDJSON body. Booted against the
+ * embedded "test" profile (BCrypt cost 4), so hashing does not drown out the database work.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BulkRegistrationBenchmark {
+
+    private static final int USERS = 1_000;
+
+    private ConfigurableApplicationContext context;
+    private AuthController authController;
+    private BulkUserRegistrationService bulkRegistration;
+    private long batch;
+
+    @Setup
+    public void setUp() {
+        SpringApplication application = new SpringApplication(Application.class);
+        application.setAdditionalProfiles("test");
+        context = application.run("--server.port=0", "--logging.level.root=WARN", "--app.trace.sample-rate=0");
+        authController = context.getBean(AuthController.class);
+        bulkRegistration = context.getBean(BulkUserRegistrationService.class);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(USERS)
+    public void singleRowRegister() {
+        long prefix = batch++;
+        for (int i = 0; i < USERS; i++) {
+            authController.register(Map.of(
+                    "name", "User " + i,
+                    "email", "single" + prefix + "-" + i + "@mail.com",
+                    "password", "password123"));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(USERS)
+    public BulkUserRegistrationService.Summary bulkRegister() throws Exception {
+        long prefix = batch++;
+        StringBuilder body = new StringBuilder(USERS * 80);
+        for (int i = 0; i < USERS; i++) {
+            body.append("{\"name\":\"User ").append(i).append("\",\"email\":\"bulk").append(prefix).append('-').append(i)
+                .append("@mail.com\",\"password\":\"password123\"}\n");
+        }
+        return bulkRegistration.register(
+                new ByteArrayInputStream(body.toString().getBytes(StandardCharsets.UTF_8)), OutputStream.nullOutputStream());
+    }
+}
@@ -0,0 +1,83 @@
+package app.benchmark;
+
+import app.config.FilterConfig;
+import app.security.OriginMatcher;
+import jakarta.servlet.FilterChain;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * originCheckFilter in front of a no-op chain, for a state-changing request that passes
+ * and a GET that is not checked; plus the matcher alone on exact, wildcard and Referer inputs.
+ * gc.alloc.rate.norm should be 0 for the matcher benchmarks.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class OriginCheckBenchmark {
+
+    private static final String ORIGIN = "http://localhost:8100";
+    private static final FilterChain NO_OP_CHAIN = (request, response) -> { };
+
+    private OriginMatcher matcher;
+    private OncePerRequestFilter filter;
+    private MockHttpServletRequest post;
+    private MockHttpServletRequest get;
+    private MockHttpServletResponse response;
+
+    @Setup
+    public void setUp() {
+        matcher = OriginMatcher.parse(ORIGIN + ",http://localhost:5173,https://*.example.com");
+        filter = new FilterConfig().originCheckFilter(matcher);
+
+        post = new MockHttpServletRequest("POST", "/api/auth/register");
+        post.addHeader("Origin", ORIGIN);
+        post.addHeader("Referer", ORIGIN + "/register");
+
+        get = new MockHttpServletRequest("GET", "/api/user");
+        get.addHeader("Referer", ORIGIN + "/user");
+
+        response = new MockHttpServletResponse();
+    }
+
+    @Benchmark
+    public void allowedPost() throws Exception {
+        filter.doFilter(post, response, NO_OP_CHAIN);
+    }
+
+    @Benchmark
+    public void get() throws Exception {
+        filter.doFilter(get, response, NO_OP_CHAIN);
+    }
+
+    @Benchmark
+    public boolean matchExactOrigin() {
+        return matcher.matchesOrigin(ORIGIN);
+    }
+
+    @Benchmark
+    public boolean matchWildcardOrigin() {
+        return matcher.matchesOrigin("https://tenant-42.eu.example.com");
+    }
+
+    @Benchmark
+    public boolean matchReferer() {
+        return matcher.matchesReferer("http://localhost:8100/register?next=/user");
+    }
+}
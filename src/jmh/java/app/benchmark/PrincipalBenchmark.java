@@ -0,0 +1,62 @@
+package app.benchmark;
+
+import app.model.User;
+import app.model.UserRole;
+import app.security.CustomUserDetails;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Building the principal snapshot at login, and the GET /api/user body: serialized once per
+ * principal, then served from the cached bytes on every later call.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class PrincipalBenchmark {
+
+    private User user;
+    private CustomUserDetails details;
+
+    @Setup
+    public void setUp() {
+        user = new User();
+        user.setId(42L);
+        user.setName("Alex");
+        user.setEmail("alex@mail.com");
+        user.setRole(UserRole.USER);
+        user.setPassword("{bcrypt}$2a$10$abcdefghijklmnopqrstuuTPl0tWkQ8w1d1vQ0u7Z4n1l9f5Vq3a");
+        user.setCreatedAt(LocalDateTime.of(2025, 12, 4, 18, 59, 9));
+        user.setUpdatedAt(LocalDateTime.of(2025, 12, 4, 18, 59, 9));
+        details = new CustomUserDetails(user);
+    }
+
+    @Benchmark
+    public CustomUserDetails customUserDetails() {
+        return new CustomUserDetails(user);
+    }
+
+    @Benchmark
+    public byte[] responseBodyFirstCall() {
+        return details.withoutPassword().toJson();
+    }
+
+    @Benchmark
+    public byte[] responseBodyCached() {
+        return details.toJson();
+    }
+}
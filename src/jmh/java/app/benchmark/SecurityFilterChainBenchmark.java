@@ -0,0 +1,128 @@
+package app.benchmark;
+
+import app.Application;
+import app.model.User;
+import app.model.UserRole;
+import app.security.CustomUserDetails;
+import jakarta.servlet.FilterChain;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.mock.web.MockHttpSession;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextImpl;
+import org.springframework.security.web.FilterChainProxy;
+import org.springframework.security.web.context.HttpSessionSecurityContextRepository;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The application's security filter chains, booted against the embedded "test" profile: GET
+ * /api/user with an authenticated session, and anonymous GETs of a hashed asset (revalidated,
+ * so staticAssetFilter answers 304 without copying the body) and of a missing root file, with
+ * app.security.static-fast-path on and off. The terminal chain is a no-op, so controller and
+ * message conversion cost is excluded. Anonymous requests carry the servlet path Tomcat sets
+ * for the DispatcherServlet, which the full chain's path matchers need to see them as public.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SecurityFilterChainBenchmark {
+
+    private static final FilterChain NO_OP_CHAIN = (request, response) -> { };
+
+    @Param({"true", "false"})
+    public boolean staticFastPath;
+
+    private ConfigurableApplicationContext context;
+    private FilterChainProxy filterChainProxy;
+    private MockHttpSession session;
+    private String assetPath;
+    private String assetEtag;
+
+    @Setup
+    public void setUp() throws Exception {
+        SpringApplication application = new SpringApplication(Application.class);
+        application.setAdditionalProfiles("test");
+        // MockHttpSession is only honoured by the container-managed session store
+        context = application.run("--server.port=0", "--logging.level.root=WARN", "--app.session.store=memory",
+                "--app.security.static-fast-path=" + staticFastPath);
+        filterChainProxy = context.getBean("springSecurityFilterChain", FilterChainProxy.class);
+        assetPath = "/assets/" + new PathMatchingResourcePatternResolver()
+                .getResources("classpath:/static/assets/*.js")[0].getFilename();
+        assetEtag = anonymousGet(assetPath).getHeader("ETag");
+        if (assetEtag == null) {
+            throw new IllegalStateException("No ETag for " + assetPath);
+        }
+
+        User user = new User();
+        user.setId(1L);
+        user.setName("Alex");
+        user.setEmail("alex@mail.com");
+        user.setRole(UserRole.USER);
+        user.setPassword("{bcrypt}unused");
+        user.setCreatedAt(LocalDateTime.now());
+        user.setUpdatedAt(LocalDateTime.now());
+        CustomUserDetails principal = new CustomUserDetails(user);
+
+        SecurityContext securityContext = new SecurityContextImpl(
+                UsernamePasswordAuthenticationToken.authenticated(principal, null, principal.getAuthorities()));
+        session = new MockHttpSession();
+        session.setAttribute(HttpSessionSecurityContextRepository.SPRING_SECURITY_CONTEXT_KEY, securityContext);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public int authenticatedGetUser() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/user");
+        request.setSession(session);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filterChainProxy.doFilter(request, response, NO_OP_CHAIN);
+        return response.getStatus();
+    }
+
+    @Benchmark
+    public int revalidateStaticAsset() throws Exception {
+        return anonymousGet(assetPath).getStatus();
+    }
+
+    @Benchmark
+    public int missingRootFile() throws Exception {
+        return anonymousGet("/robots-missing.js").getStatus();
+    }
+
+    private MockHttpServletResponse anonymousGet(String path) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", path);
+        request.setServletPath(path);
+        request.addHeader("Accept-Encoding", "gzip, br");
+        if (assetEtag != null) {
+            request.addHeader("If-None-Match", assetEtag);
+        }
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filterChainProxy.doFilter(request, response, NO_OP_CHAIN);
+        return response;
+    }
+}
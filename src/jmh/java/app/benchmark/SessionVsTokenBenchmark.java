@@ -0,0 +1,150 @@
+package app.benchmark;
+
+import app.Application;
+import app.model.User;
+import app.model.UserRole;
+import app.repository.UserRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.lang.management.ManagementFactory;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * GET /api/user over HTTP with 10k logged-in users, in each authentication mode:
+ * jdbc (compact sessions in app_session), memory (Tomcat sessions) and token (stateless
+ * bearer tokens). Setup logs every user in once and prints the heap retained per user;
+ * run with -prof gc for per-request allocation.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(4)
+@State(Scope.Benchmark)
+public class SessionVsTokenBenchmark {
+
+    private static final int USERS = 10_000;
+    private static final String SECRET = Base64.getEncoder().encodeToString(new byte[32]);
+
+    @Param({"jdbc", "memory", "token"})
+    public String mode;
+
+    private ConfigurableApplicationContext context;
+    private HttpClient client;
+    private URI userUri;
+    private String[] credentials;
+
+    @Setup
+    public void setUp() throws Exception {
+        SpringApplication application = new SpringApplication(Application.class);
+        application.setAdditionalProfiles("test");
+        context = application.run("--server.port=0", "--logging.level.root=WARN",
+                "--app.trace.sample-rate=0",
+                "--app.session.store=" + ("memory".equals(mode) ? "memory" : "jdbc"),
+                "--app.security.token.enabled=" + "token".equals(mode),
+                "--app.security.token.keys=bench:" + SECRET,
+                "--app.security.token.active-key-id=bench",
+                "--app.security.login-throttle.ip.capacity=1000000",
+                "--app.security.login-throttle.email.capacity=1000000");
+        String base = "http://localhost:" + context.getEnvironment().getProperty("local.server.port");
+        userUri = URI.create(base + "/api/user");
+        client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+
+        String hash = context.getBean(PasswordEncoder.class).encode("password123");
+        List<User> users = new ArrayList<>(USERS);
+        for (int i = 0; i < USERS; i++) {
+            User user = new User();
+            user.setName("User " + i);
+            user.setEmail("user" + i + "@mail.com");
+            user.setPassword(hash);
+            user.setRole(UserRole.USER);
+            users.add(user);
+        }
+        context.getBean(UserRepository.class).saveAll(users);
+
+        long before = usedHeapAfterGc();
+        credentials = new String[USERS];
+        HttpRequest.Builder login = HttpRequest.newBuilder(URI.create(base + "/api/auth/login"))
+                .header("Content-Type", "application/json")
+                .header("Cookie", "XSRF-TOKEN=bench")
+                .header("X-XSRF-TOKEN", "bench");
+        for (int i = 0; i < USERS; i++) {
+            HttpResponse<String> response = client.send(login.copy()
+                    .POST(HttpRequest.BodyPublishers.ofString(
+                            "{\"email\":\"user" + i + "@mail.com\",\"password\":\"password123\"}"))
+                    .build(), HttpResponse.BodyHandlers.ofString());
+            if (response.statusCode() != 200) {
+                throw new IllegalStateException("Login failed with " + response.statusCode() + ": " + response.body());
+            }
+            credentials[i] = "token".equals(mode) ? tokenOf(response.body()) : sessionCookieOf(response);
+        }
+        long retained = usedHeapAfterGc() - before;
+        System.out.printf("%n[%s] heap retained after %d logins: %d KB (%d bytes/user)%n",
+                mode, USERS, retained / 1024, retained / USERS);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public int currentUser() throws Exception {
+        String credential = credentials[ThreadLocalRandom.current().nextInt(USERS)];
+        HttpRequest.Builder request = HttpRequest.newBuilder(userUri).GET();
+        if ("token".equals(mode)) {
+            request.header("Authorization", "Bearer " + credential);
+        } else {
+            request.header("Cookie", credential);
+        }
+        HttpResponse<byte[]> response = client.send(request.build(), HttpResponse.BodyHandlers.ofByteArray());
+        if (response.statusCode() != 200) {
+            throw new IllegalStateException("GET /api/user returned " + response.statusCode());
+        }
+        return response.body().length;
+    }
+
+    private static String tokenOf(String body) {
+        int start = body.indexOf("\"token\":\"") + 9;
+        return body.substring(start, body.indexOf('"', start));
+    }
+
+    private static String sessionCookieOf(HttpResponse<?> response) {
+        return response.headers().allValues("Set-Cookie").stream()
+                .filter(cookie -> cookie.startsWith("JSESSIONID="))
+                .map(cookie -> cookie.substring(0, cookie.indexOf(';')))
+                .findFirst()
+                .orElseThrow(() -> new IllegalStateException("No session cookie in login response"));
+    }
+
+    private static long usedHeapAfterGc() {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+}
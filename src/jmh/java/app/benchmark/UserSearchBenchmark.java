@@ -0,0 +1,119 @@
+package app.benchmark;
+
+import app.dto.UserMatch;
+import app.model.UserRole;
+import app.service.UserSearchIndex;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Top-10 type-ahead latency over one million synthetic users, for a broad prefix (thousands of
+ * matches), a narrow one and a miss, with and without unmerged writes. Setup prints the index
+ * build time, its computed footprint and the measured heap growth, i.e. the cost per million
+ * users.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(value = 1, jvmArgs = "-Xmx2g")
+@State(Scope.Benchmark)
+public class UserSearchBenchmark {
+
+    private static final int USERS = 1_000_000;
+    private static final String[] FIRST = {"James", "Mary", "Robert", "Patricia", "John", "Jennifer", "Michael",
+            "Linda", "David", "Elizabeth", "William", "Barbara", "Richard", "Susan", "Joseph", "Jessica", "Thomas",
+            "Sarah", "Charles", "Karen", "Christopher", "Lisa", "Daniel", "Nancy", "Matthew", "Betty", "Anthony"};
+    private static final String[] LAST = {"Smith", "Johnson", "Williams", "Brown", "Jones", "Garcia", "Miller",
+            "Davis", "Rodriguez", "Martinez", "Hernandez", "Lopez", "Gonzalez", "Wilson", "Anderson", "Thomas",
+            "Taylor", "Moore", "Jackson", "Martin", "Lee", "Perez", "Thompson", "White", "Harris", "Sanchez"};
+
+    @Param({"0", "1000"})
+    public int pendingChanges;
+
+    private EmbeddedDatabase database;
+    private UserSearchIndex index;
+
+    @Setup
+    public void setUp() {
+        database = new EmbeddedDatabaseBuilder().setType(EmbeddedDatabaseType.H2).generateUniqueName(true).build();
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(database);
+        jdbcTemplate.execute("CREATE TABLE users (id BIGINT PRIMARY KEY, name VARCHAR(100) NOT NULL, "
+                + "email VARCHAR(100) NOT NULL, role VARCHAR(20) NOT NULL)");
+        Random random = new Random(7);
+        List<Object[]> rows = new ArrayList<>(10_000);
+        for (int id = 1; id <= USERS; id++) {
+            String first = FIRST[random.nextInt(FIRST.length)];
+            String last = LAST[random.nextInt(LAST.length)];
+            rows.add(new Object[] {id, first + " " + last,
+                    first.toLowerCase() + "." + last.toLowerCase() + id + "@example.com",
+                    id % 50 == 0 ? "AGENT" : "USER"});
+            if (rows.size() == 10_000) {
+                jdbcTemplate.batchUpdate("INSERT INTO users VALUES (?, ?, ?, ?)", rows);
+                rows.clear();
+            }
+        }
+
+        index = new UserSearchIndex(jdbcTemplate);
+        long before = usedHeap();
+        long started = System.nanoTime();
+        index.rebuild();
+        long buildMillis = (System.nanoTime() - started) / 1_000_000;
+        long measured = usedHeap() - before;
+        System.out.printf("%nIndexed %,d users in %,d ms: footprint %,d bytes (%.1f MB per million users), "
+                        + "measured heap growth %,d bytes%n", index.size(), buildMillis, index.footprintBytes(),
+                index.footprintBytes() / 1e6 * 1_000_000 / index.size(), measured);
+
+        for (int i = 0; i < pendingChanges; i++) {
+            long id = 1 + random.nextInt(USERS);
+            index.put(id, "Renamed User" + i, "renamed" + i + "@example.com", UserRole.USER);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        database.shutdown();
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    @Benchmark
+    public List<UserMatch> broadPrefix() {
+        return index.search("jo", 10);
+    }
+
+    @Benchmark
+    public List<UserMatch> narrowPrefix() {
+        return index.search("patricia.gonzalez12", 10);
+    }
+
+    @Benchmark
+    public List<UserMatch> miss() {
+        return index.search("zq", 10);
+    }
+}
@@ -0,0 +1,262 @@
+package app.loadtest;
+
+import app.Application;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Open-model load test: requests are started at a fixed arrival rate whatever the server's
+ * response times, one virtual thread each, so a slow server builds a queue instead of slowing
+ * the generator down. Each rate in {@code rates} runs for {@code duration} after a
+ * {@code warmup} at the first rate; every request picks a scenario by the {@code mix} weights.
+ * <p>
+ * Without {@code target} the app is booted in-process on the H2 "test" profile (login
+ * throttles lifted, trace sampling off), so results depend only on the code under test and
+ * the machine. The report (config, commit, and per-rate p50/p90/p99/p99.9, error rates and
+ * status counts per scenario) is written as JSON to {@code report-dir}; {@code baseline}
+ * prints the p99 and error-rate change against an earlier report.
+ * <pre>
+ * Options are name=value (a leading -- is optional):
+ * --rates=50,100,200       requests per second, one stage each
+ * --duration=30s           measured time per stage
+ * --warmup=10s             unmeasured time before the first stage
+ * --mix=register:1,csrf:2,login:2,user:15
+ * --users=200              pre-registered users for login and /api/user
+ * --max-in-flight=2000     outstanding requests beyond which arrivals are dropped (and reported)
+ * --target=http://host:port
+ * --baseline=target/loadtest/latest.json
+ * --spring.*, --app.*, --server.*   passed to the in-process app, e.g.
+ *                          --spring.threads.virtual.enabled=true to compare thread modes
+ * </pre>
+ */
+public final class LoadTest {
+
+    private LoadTest() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = parse(args);
+        List<Integer> rates = new ArrayList<>();
+        for (String rate : options.getOrDefault("rates", "50,100,200").split(",")) {
+            rates.add(Integer.parseInt(rate.trim()));
+        }
+        Duration duration = DurationStyle.detectAndParse(options.getOrDefault("duration", "30s"));
+        Duration warmup = DurationStyle.detectAndParse(options.getOrDefault("warmup", "10s"));
+        Scenario[] mix = mix(options.getOrDefault("mix", "register:1,csrf:2,login:2,user:15"));
+        int users = Integer.parseInt(options.getOrDefault("users", "200"));
+        int maxInFlight = Integer.parseInt(options.getOrDefault("max-in-flight", "2000"));
+        Path reportDir = Path.of(options.getOrDefault("report-dir", "target/loadtest"));
+
+        ConfigurableApplicationContext context = null;
+        String target = options.get("target");
+        try {
+            if (target == null) {
+                context = boot(options);
+                target = "http://localhost:" + context.getEnvironment().getProperty("local.server.port");
+            }
+            Workload workload = new Workload(target);
+            workload.prepare(users);
+            System.out.printf("Load test against %s with %d users, mix %s%n", target, users, options.getOrDefault("mix", "default"));
+
+            try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+                if (!warmup.isZero()) {
+                    run(workload, executor, mix, rates.get(0), warmup, maxInFlight);
+                }
+                List<StageResult> stages = new ArrayList<>();
+                for (int rate : rates) {
+                    StageResult stage = run(workload, executor, mix, rate, duration, maxInFlight);
+                    System.out.println(stage.describe());
+                    stages.add(stage);
+                }
+                Map<String, Object> report = report(options, target, options.containsKey("target"), stages);
+                // read the baseline first: it may be the latest.json about to be replaced
+                JsonNode baseline = options.containsKey("baseline")
+                        ? new ObjectMapper().readTree(Path.of(options.get("baseline")).toFile()) : null;
+                Path written = write(reportDir, report);
+                System.out.println("Report written to " + written);
+                if (baseline != null) {
+                    compare(options.get("baseline"), baseline, new ObjectMapper().readTree(written.toFile()));
+                }
+            }
+        } finally {
+            if (context != null) {
+                context.close();
+            }
+        }
+    }
+
+    static ConfigurableApplicationContext boot(Map<String, String> options) {
+        // devtools would restart main() with the application arguments instead of ours
+        System.setProperty("spring.devtools.restart.enabled", "false");
+        SpringApplication application = new SpringApplication(Application.class);
+        application.setAdditionalProfiles("test");
+        List<String> args = new ArrayList<>(List.of("--server.port=0", "--management.server.port=0",
+                "--logging.level.root=WARN", "--app.trace.sample-rate=0",
+                "--app.security.login-throttle.ip.capacity=100000000",
+                "--app.security.login-throttle.email.capacity=100000000"));
+        options.forEach((name, value) -> {
+            if (name.startsWith("spring.") || name.startsWith("app.") || name.startsWith("server.")) {
+                args.add("--" + name + "=" + value);
+            }
+        });
+        return application.run(args.toArray(String[]::new));
+    }
+
+    /** Schedules {@code rate} requests per second for {@code duration} and waits for them to finish. */
+    private static StageResult run(Workload workload, ExecutorService executor, Scenario[] mix,
+                                   int rate, Duration duration, int maxInFlight) throws InterruptedException {
+        StageResult result = new StageResult(rate);
+        AtomicInteger inFlight = new AtomicInteger();
+        long interval = TimeUnit.SECONDS.toNanos(1) / rate;
+        long count = duration.toNanos() / interval;
+        long start = System.nanoTime();
+        for (long i = 0; i < count; i++) {
+            long scheduled = start + i * interval;
+            long wait = scheduled - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            if (inFlight.get() >= maxInFlight) {
+                result.recordDropped();
+                continue;
+            }
+            Scenario scenario = mix[ThreadLocalRandom.current().nextInt(mix.length)];
+            inFlight.incrementAndGet();
+            executor.execute(() -> {
+                try {
+                    HttpResponse<String> response = workload.send(scenario);
+                    result.record(scenario, System.nanoTime() - scheduled, response.statusCode());
+                } catch (IOException ex) {
+                    result.recordFailure(scenario, System.nanoTime() - scheduled);
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    inFlight.decrementAndGet();
+                }
+            });
+        }
+        long drainDeadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(60);
+        while (inFlight.get() > 0 && System.nanoTime() < drainDeadline) {
+            Thread.sleep(10);
+        }
+        result.finish(System.nanoTime() - start);
+        return result;
+    }
+
+    private static Map<String, Object> report(Map<String, String> options, String target, boolean external,
+                                              List<StageResult> stages) {
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("timestamp", Instant.now().toString());
+        report.put("commit", commit());
+        report.put("target", external ? target : "embedded");
+        report.put("java", Runtime.version().toString());
+        report.put("cpus", Runtime.getRuntime().availableProcessors());
+        report.put("options", new LinkedHashMap<>(options));
+        List<Map<String, Object>> results = new ArrayList<>();
+        stages.forEach(stage -> results.add(stage.toReport()));
+        report.put("stages", results);
+        return report;
+    }
+
+    private static Path write(Path dir, Map<String, Object> report) throws IOException {
+        Files.createDirectories(dir);
+        ObjectMapper mapper = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+        byte[] json = mapper.writeValueAsBytes(report);
+        Path file = dir.resolve("report-" + report.get("commit") + "-" + System.currentTimeMillis() + ".json");
+        Files.write(file, json);
+        Files.write(dir.resolve("latest.json"), json);
+        return file;
+    }
+
+    /** Prints p99 and error-rate changes per rate and scenario, matching stages by target rate. */
+    private static void compare(String baselineFile, JsonNode baseline, JsonNode current) {
+        System.out.printf("Compared with %s (commit %s)%n", baselineFile, baseline.path("commit").asText());
+        Map<Integer, JsonNode> before = new HashMap<>();
+        baseline.path("stages").forEach(stage -> before.put(stage.path("targetRps").asInt(), stage));
+        for (JsonNode stage : current.path("stages")) {
+            JsonNode old = before.get(stage.path("targetRps").asInt());
+            if (old == null) {
+                continue;
+            }
+            printDelta(stage.path("targetRps").asInt() + " rps overall", old.path("overall"), stage.path("overall"));
+            stage.path("scenarios").fields().forEachRemaining(entry -> printDelta("  " + entry.getKey(),
+                    old.path("scenarios").path(entry.getKey()), entry.getValue()));
+        }
+    }
+
+    private static void printDelta(String label, JsonNode before, JsonNode after) {
+        if (before.isMissingNode()) {
+            return;
+        }
+        double p99Before = before.path("p99Ms").asDouble();
+        double p99After = after.path("p99Ms").asDouble();
+        System.out.printf("%-20s p99 %8.2f -> %8.2f ms (%+6.1f%%)  errors %.4f -> %.4f%n", label,
+                p99Before, p99After, p99Before == 0 ? 0 : 100 * (p99After - p99Before) / p99Before,
+                before.path("errorRate").asDouble(), after.path("errorRate").asDouble());
+    }
+
+    static String commit() {
+        try {
+            Process git = new ProcessBuilder("git", "rev-parse", "--short", "HEAD").redirectErrorStream(true).start();
+            String out = new String(git.getInputStream().readAllBytes()).trim();
+            return git.waitFor() == 0 && !out.isEmpty() ? out : "unknown";
+        } catch (IOException ex) {
+            return "unknown";
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return "unknown";
+        }
+    }
+
+    /** Expands "a:2,b:1" into a lookup array in which each scenario appears weight times. */
+    private static Scenario[] mix(String spec) {
+        List<Scenario> slots = new ArrayList<>();
+        for (String part : spec.split(",")) {
+            String[] pair = part.trim().split(":");
+            int weight = pair.length > 1 ? Integer.parseInt(pair[1]) : 1;
+            Scenario scenario = Scenario.of(pair[0]);
+            for (int i = 0; i < weight; i++) {
+                slots.add(scenario);
+            }
+        }
+        if (slots.isEmpty()) {
+            throw new IllegalArgumentException("Empty scenario mix");
+        }
+        return slots.toArray(Scenario[]::new);
+    }
+
+    static Map<String, String> parse(String[] args) {
+        Map<String, String> options = new LinkedHashMap<>();
+        for (String arg : args) {
+            String option = arg.startsWith("--") ? arg.substring(2) : arg;
+            int equals = option.indexOf('=');
+            if (equals <= 0) {
+                throw new IllegalArgumentException("Expected --name=value, got " + arg);
+            }
+            options.put(option.substring(0, equals), option.substring(equals + 1));
+        }
+        return options;
+    }
+}
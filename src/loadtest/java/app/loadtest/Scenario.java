@@ -0,0 +1,26 @@
+package app.loadtest;
+
+/** The request types in a load-test mix, with the status each one must answer with. */
+enum Scenario {
+    REGISTER("register", 201),
+    CSRF("csrf", 200),
+    LOGIN("login", 200),
+    CURRENT_USER("user", 200);
+
+    final String key;
+    final int expectedStatus;
+
+    Scenario(String key, int expectedStatus) {
+        this.key = key;
+        this.expectedStatus = expectedStatus;
+    }
+
+    static Scenario of(String key) {
+        for (Scenario scenario : values()) {
+            if (scenario.key.equals(key)) {
+                return scenario;
+            }
+        }
+        throw new IllegalArgumentException("Unknown scenario '" + key + "', expected register, csrf, login or user");
+    }
+}
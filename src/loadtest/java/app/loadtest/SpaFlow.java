@@ -0,0 +1,191 @@
+package app.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.HdrHistogram.Histogram;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.net.CookieManager;
+import java.net.HttpCookie;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The SPA's page sequence, one browser (cookie jar) per visitor, against the in-process app
+ * in each CSRF mode: Register, Login, User, the API demo POST, then {@code reloads} more visits
+ * to the User page. In cookie mode every page mounts useCsrf and fetches /api/csrf, as the SPA
+ * did before; in hmac mode /api/csrf is only fetched while the browser has no XSRF-TOKEN cookie
+ * and the login response carries the session's token. Reports requests, Set-Cookie headers and
+ * latency per visitor, to the console and as JSON next to the load-test reports.
+ * <pre>
+ * --modes=cookie,hmac
+ * --visitors=100
+ * --reloads=5
+ * </pre>
+ */
+public final class SpaFlow {
+
+    private static final String PASSWORD = "spa-flow-password";
+
+    private SpaFlow() {
+    }
+
+    private static final class Visitor {
+        final HttpClient client;
+        final CookieManager cookies = new CookieManager();
+        final boolean fetchAlways;
+        int requests;
+        int setCookies;
+        int csrfFetches;
+
+        Visitor(boolean fetchAlways) {
+            this.fetchAlways = fetchAlways;
+            this.client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).cookieHandler(cookies).build();
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = LoadTest.parse(args);
+        int visitors = Integer.parseInt(options.getOrDefault("visitors", "100"));
+        int reloads = Integer.parseInt(options.getOrDefault("reloads", "5"));
+        Path reportDir = Path.of(options.getOrDefault("report-dir", "target/loadtest"));
+
+        Map<String, Object> results = new LinkedHashMap<>();
+        for (String mode : options.getOrDefault("modes", "cookie,hmac").split(",")) {
+            mode = mode.trim();
+            Map<String, String> appOptions = new LinkedHashMap<>(options);
+            appOptions.put("app.security.csrf.mode", mode);
+            ConfigurableApplicationContext context = LoadTest.boot(appOptions);
+            try {
+                String base = "http://localhost:" + context.getEnvironment().getProperty("local.server.port");
+                flow(base, mode + "-warmup", true, Math.max(1, visitors / 5), reloads, "cookie".equals(mode));
+                results.put(mode, flow(base, mode, false, visitors, reloads, "cookie".equals(mode)));
+            } finally {
+                context.close();
+            }
+        }
+
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("timestamp", Instant.now().toString());
+        report.put("commit", LoadTest.commit());
+        report.put("visitors", visitors);
+        report.put("reloads", reloads);
+        report.put("modes", results);
+        Files.createDirectories(reportDir);
+        Path written = reportDir.resolve("spa-flow-" + LoadTest.commit() + "-" + System.currentTimeMillis() + ".json");
+        new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(written.toFile(), report);
+        System.out.println("Report written to " + written);
+    }
+
+    private static Map<String, Object> flow(String base, String name, boolean warmup, int visitors, int reloads,
+                                            boolean fetchAlways) throws IOException, InterruptedException {
+        Histogram perRequest = new Histogram(TimeUnit.MINUTES.toMicros(1), 3);
+        Histogram perVisitor = new Histogram(TimeUnit.MINUTES.toMicros(1), 3);
+        long requests = 0;
+        long setCookies = 0;
+        long csrfFetches = 0;
+        String run = Long.toString(System.nanoTime(), 36);
+        for (int i = 0; i < visitors; i++) {
+            Visitor visitor = new Visitor(fetchAlways);
+            String email = "spa-" + name + "-" + run + "-" + i + "@example.com";
+            long started = System.nanoTime();
+
+            page(visitor, base, perRequest);
+            expect(post(visitor, base, "/api/auth/register", "{\"name\":\"Spa\",\"email\":\"" + email
+                    + "\",\"password\":\"" + PASSWORD + "\"}", perRequest), 201);
+            page(visitor, base, perRequest);
+            expect(post(visitor, base, "/api/auth/login", "{\"email\":\"" + email
+                    + "\",\"password\":\"" + PASSWORD + "\"}", perRequest), 200);
+            page(visitor, base, perRequest);
+            expect(get(visitor, base, "/api/user", perRequest), 200);
+            page(visitor, base, perRequest);
+            expect(post(visitor, base, "/api/demo", "{\"message\":\"hello\"}", perRequest), 200);
+            for (int reload = 0; reload < reloads; reload++) {
+                page(visitor, base, perRequest);
+                expect(get(visitor, base, "/api/user", perRequest), 200);
+            }
+
+            perVisitor.recordValue(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - started));
+            requests += visitor.requests;
+            setCookies += visitor.setCookies;
+            csrfFetches += visitor.csrfFetches;
+        }
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("requestsPerVisitor", (double) requests / visitors);
+        result.put("csrfFetchesPerVisitor", (double) csrfFetches / visitors);
+        result.put("setCookiePerVisitor", (double) setCookies / visitors);
+        result.put("visitorMsP50", perVisitor.getValueAtPercentile(50) / 1000.0);
+        result.put("visitorMsP99", perVisitor.getValueAtPercentile(99) / 1000.0);
+        result.put("requestMsP50", perRequest.getValueAtPercentile(50) / 1000.0);
+        result.put("requestMsP99", perRequest.getValueAtPercentile(99) / 1000.0);
+        if (!warmup) {
+            System.out.printf("%-8s %5.1f requests (%4.1f /api/csrf)  %4.1f Set-Cookie  per visitor %7.2f ms p50 %7.2f ms p99"
+                            + "  per request %6.2f ms p50 %6.2f ms p99%n", name,
+                    result.get("requestsPerVisitor"), result.get("csrfFetchesPerVisitor"), result.get("setCookiePerVisitor"),
+                    result.get("visitorMsP50"), result.get("visitorMsP99"),
+                    result.get("requestMsP50"), result.get("requestMsP99"));
+        }
+        return result;
+    }
+
+    /** A page mount: useCsrf fetches /api/csrf unless it can skip it. */
+    private static void page(Visitor visitor, String base, Histogram latency) throws IOException, InterruptedException {
+        if (visitor.fetchAlways || token(visitor) == null) {
+            visitor.csrfFetches++;
+            expect(get(visitor, base, "/api/csrf", latency), 200);
+        }
+    }
+
+    private static HttpResponse<String> get(Visitor visitor, String base, String path, Histogram latency)
+            throws IOException, InterruptedException {
+        return send(visitor, HttpRequest.newBuilder(URI.create(base + path)).GET(), latency);
+    }
+
+    private static HttpResponse<String> post(Visitor visitor, String base, String path, String json, Histogram latency)
+            throws IOException, InterruptedException {
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(base + path))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(json));
+        String token = token(visitor);
+        if (token != null) {
+            request.header("X-XSRF-TOKEN", token); // what axios copies from the cookie
+        }
+        return send(visitor, request, latency);
+    }
+
+    private static HttpResponse<String> send(Visitor visitor, HttpRequest.Builder request, Histogram latency)
+            throws IOException, InterruptedException {
+        long started = System.nanoTime();
+        HttpResponse<String> response = visitor.client.send(request.build(), HttpResponse.BodyHandlers.ofString());
+        latency.recordValue(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - started));
+        visitor.requests++;
+        visitor.setCookies += response.headers().allValues("Set-Cookie").size();
+        return response;
+    }
+
+    private static String token(Visitor visitor) {
+        for (HttpCookie cookie : visitor.cookies.getCookieStore().getCookies()) {
+            if (cookie.getName().equals("XSRF-TOKEN") && !cookie.getValue().isEmpty()) {
+                return cookie.getValue();
+            }
+        }
+        return null;
+    }
+
+    private static void expect(HttpResponse<String> response, int status) {
+        if (response.statusCode() != status) {
+            throw new IllegalStateException(response.request().method() + " " + response.request().uri().getPath()
+                    + " returned " + response.statusCode() + ", expected " + status);
+        }
+    }
+}
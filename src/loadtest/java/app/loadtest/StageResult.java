@@ -0,0 +1,127 @@
+package app.loadtest;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latencies and outcomes for one arrival rate. Latency runs from the request's scheduled start,
+ * not from when it was actually sent, so a stalled server is charged for the requests it delayed
+ * (no coordinated omission). Values are recorded in microseconds, up to one minute.
+ */
+final class StageResult {
+
+    private static final long MAX_MICROS = 60_000_000L;
+
+    private final int rate;
+    private final Map<Scenario, Counts> scenarios = new EnumMap<>(Scenario.class);
+    private final AtomicLong dropped = new AtomicLong();
+    private long elapsedNanos;
+
+    StageResult(int rate) {
+        this.rate = rate;
+        for (Scenario scenario : Scenario.values()) {
+            scenarios.put(scenario, new Counts());
+        }
+    }
+
+    void record(Scenario scenario, long latencyNanos, int status) {
+        Counts counts = scenarios.get(scenario);
+        counts.latency.recordValue(Math.min(MAX_MICROS, Math.max(1, latencyNanos / 1000)));
+        counts.statuses.computeIfAbsent(status, s -> new LongAdder()).increment();
+        if (status != scenario.expectedStatus) {
+            counts.errors.increment();
+        }
+    }
+
+    /** A request that could not be sent: an I/O failure or timeout, reported as status 0. */
+    void recordFailure(Scenario scenario, long latencyNanos) {
+        record(scenario, latencyNanos, 0);
+    }
+
+    /** A scheduled request skipped because max-in-flight requests were already outstanding. */
+    void recordDropped() {
+        dropped.incrementAndGet();
+    }
+
+    void finish(long elapsedNanos) {
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    Map<String, Object> toReport() {
+        Histogram overall = new Histogram(MAX_MICROS, 3);
+        long errors = 0;
+        Map<String, Object> perScenario = new LinkedHashMap<>();
+        for (Map.Entry<Scenario, Counts> entry : scenarios.entrySet()) {
+            Counts counts = entry.getValue();
+            if (counts.latency.getTotalCount() == 0) {
+                continue;
+            }
+            overall.add(counts.latency);
+            errors += counts.errors.sum();
+            Map<String, Object> report = summary(counts.latency, counts.errors.sum());
+            Map<String, Long> statuses = new TreeMap<>();
+            counts.statuses.forEach((status, count) -> statuses.put(String.valueOf(status), count.sum()));
+            report.put("statuses", statuses);
+            perScenario.put(entry.getKey().key, report);
+        }
+        Map<String, Object> stage = new LinkedHashMap<>();
+        stage.put("targetRps", rate);
+        stage.put("seconds", round(elapsedNanos / 1e9));
+        stage.put("achievedRps", round(overall.getTotalCount() / (elapsedNanos / 1e9)));
+        stage.put("dropped", dropped.get());
+        stage.put("overall", summary(overall, errors));
+        stage.put("scenarios", perScenario);
+        return stage;
+    }
+
+    String describe() {
+        Histogram overall = new Histogram(MAX_MICROS, 3);
+        long errors = 0;
+        for (Counts counts : scenarios.values()) {
+            overall.add(counts.latency);
+            errors += counts.errors.sum();
+        }
+        return String.format("%6d rps target  %8.1f achieved  p50 %8.2f ms  p99 %8.2f ms  p99.9 %8.2f ms  errors %.2f%%  dropped %d",
+                rate, overall.getTotalCount() / (elapsedNanos / 1e9),
+                overall.getValueAtPercentile(50) / 1000.0, overall.getValueAtPercentile(99) / 1000.0,
+                overall.getValueAtPercentile(99.9) / 1000.0,
+                overall.getTotalCount() == 0 ? 0 : 100.0 * errors / overall.getTotalCount(), dropped.get());
+    }
+
+    private static Map<String, Object> summary(Histogram latency, long errors) {
+        Map<String, Object> summary = new LinkedHashMap<>();
+        long count = latency.getTotalCount();
+        summary.put("count", count);
+        summary.put("errors", errors);
+        summary.put("errorRate", count == 0 ? 0 : round((double) errors / count));
+        summary.put("p50Ms", millis(latency.getValueAtPercentile(50)));
+        summary.put("p90Ms", millis(latency.getValueAtPercentile(90)));
+        summary.put("p99Ms", millis(latency.getValueAtPercentile(99)));
+        summary.put("p999Ms", millis(latency.getValueAtPercentile(99.9)));
+        summary.put("maxMs", millis(latency.getMaxValue()));
+        summary.put("meanMs", round(latency.getMean() / 1000.0));
+        return summary;
+    }
+
+    private static double millis(long micros) {
+        return round(micros / 1000.0);
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 1000) / 1000.0;
+    }
+
+    private static final class Counts {
+        final Histogram latency = new ConcurrentHistogram(MAX_MICROS, 3);
+        final LongAdder errors = new LongAdder();
+        final Map<Integer, LongAdder> statuses = new ConcurrentHashMap<>();
+    }
+}
@@ -0,0 +1,192 @@
+package app.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Startup time and memory per launch setup: each run starts a fresh JVM, polls GET /api/csrf
+ * until it answers 200, and records the time since the process was spawned and the process RSS
+ * at that moment (Linux /proc). Setups:
+ * <ul>
+ * <li>current: the default profile from the build classpath (create-drop, schema.sql, devtools)</li>
+ * <li>prod: the extracted prod jar with AOT, Flyway migrations and schema validation</li>
+ * <li>prod-cds: prod plus the AppCDS archive recorded by the prod build</li>
+ * </ul>
+ * Every setup runs against the same embedded H2 database settings, so the numbers compare
+ * startup work rather than database round trips. Build the prod jar first
+ * ({@code mvn -Pprod package}); the report is written as JSON next to the load-test reports.
+ * <pre>
+ * --setups=current,prod,prod-cds
+ * --runs=5
+ * --app-dir=target/app
+ * </pre>
+ */
+public final class StartupBenchmark {
+
+    private static final Duration TIMEOUT = Duration.ofMinutes(2);
+
+    private StartupBenchmark() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = LoadTest.parse(args);
+        List<String> setups = Arrays.asList(options.getOrDefault("setups", "current,prod,prod-cds").split(","));
+        int runs = Integer.parseInt(options.getOrDefault("runs", "5"));
+        Path appDir = Path.of(options.getOrDefault("app-dir", "target/app"));
+        Path reportDir = Path.of(options.getOrDefault("report-dir", "target/loadtest"));
+
+        Map<String, Object> results = new LinkedHashMap<>();
+        for (String setup : setups) {
+            List<Long> millis = new ArrayList<>();
+            List<Long> rss = new ArrayList<>();
+            for (int run = 0; run < runs; run++) {
+                long[] sample = launch(command(setup.trim(), appDir, freePort()));
+                millis.add(sample[0]);
+                rss.add(sample[1]);
+            }
+            Map<String, Object> summary = new LinkedHashMap<>();
+            summary.put("runs", runs);
+            summary.put("firstCsrfMsMedian", median(millis));
+            summary.put("firstCsrfMsMin", millis.stream().mapToLong(Long::longValue).min().orElse(-1));
+            summary.put("rssMbMedian", median(rss) / 1024);
+            summary.put("firstCsrfMs", millis);
+            results.put(setup.trim(), summary);
+            System.out.printf("%-10s first /api/csrf %6d ms (median of %d, min %d)  RSS %5d MB%n", setup,
+                    median(millis), runs, summary.get("firstCsrfMsMin"), median(rss) / 1024);
+        }
+
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("timestamp", Instant.now().toString());
+        report.put("commit", LoadTest.commit());
+        report.put("java", Runtime.version().toString());
+        report.put("cpus", Runtime.getRuntime().availableProcessors());
+        report.put("setups", results);
+        Files.createDirectories(reportDir);
+        Path file = reportDir.resolve("startup-" + report.get("commit") + "-" + System.currentTimeMillis() + ".json");
+        Files.write(file, new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValueAsBytes(report));
+        System.out.println("Report written to " + file);
+    }
+
+    private static List<String> command(String setup, Path appDir, int port) throws IOException {
+        String java = Path.of(System.getProperty("java.home"), "bin", "java").toString();
+        List<String> command = new ArrayList<>(List.of(java));
+        switch (setup) {
+            case "current" -> command.addAll(List.of("-cp", System.getProperty("java.class.path"), "app.Application"));
+            case "prod", "prod-cds" -> {
+                if ("prod-cds".equals(setup)) {
+                    command.add("-XX:SharedArchiveFile=" + appDir.resolve("app.jsa"));
+                }
+                // the driver goes after the jar, so the classpath still starts with the archived one
+                command.addAll(List.of("-Dspring.aot.enabled=true",
+                        "-cp", appJar(appDir) + File.pathSeparator + h2Jar(), "app.Application",
+                        "--spring.profiles.active=prod",
+                        "--app.security.csrf.keys=startup:" + Base64.getEncoder().encodeToString(new byte[32]),
+                        "--app.security.csrf.active-key-id=startup"));
+            }
+            default -> throw new IllegalArgumentException("Unknown setup '" + setup + "', expected current, prod or prod-cds");
+        }
+        command.addAll(List.of("--server.port=" + port, "--management.server.port=0",
+                "--spring.datasource.url=jdbc:h2:mem:startup;MODE=MariaDB;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+                "--spring.datasource.driver-class-name=org.h2.Driver",
+                "--spring.datasource.username=sa",
+                "--spring.datasource.password=",
+                "--spring.datasource.hikari.connection-init-sql=SELECT 1",
+                "--logging.level.root=WARN",
+                "--logging.file.name=",
+                "--app.trace.sample-rate=0"));
+        return command;
+    }
+
+    /** Returns {milliseconds until the first 200 from /api/csrf, RSS in KB at that point}. */
+    private static long[] launch(List<String> command) throws IOException, InterruptedException {
+        String port = command.stream().filter(arg -> arg.startsWith("--server.port=")).findFirst().orElseThrow().substring(14);
+        URI csrf = URI.create("http://localhost:" + port + "/api/csrf");
+        HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(1)).build();
+
+        long start = System.nanoTime();
+        Process process = new ProcessBuilder(command).redirectErrorStream(true)
+                .redirectOutput(ProcessBuilder.Redirect.DISCARD).start();
+        try {
+            while (System.nanoTime() - start < TIMEOUT.toNanos()) {
+                if (!process.isAlive()) {
+                    throw new IllegalStateException("Application exited with " + process.exitValue() + ": " + command);
+                }
+                try {
+                    HttpResponse<Void> response = client.send(HttpRequest.newBuilder(csrf).GET().build(),
+                            HttpResponse.BodyHandlers.discarding());
+                    if (response.statusCode() == 200) {
+                        long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+                        return new long[] {elapsed, rssKb(process.pid())};
+                    }
+                } catch (IOException notListeningYet) {
+                    // keep polling
+                }
+                Thread.sleep(10);
+            }
+            throw new IllegalStateException("No 200 from /api/csrf within " + TIMEOUT + ": " + command);
+        } finally {
+            process.destroy();
+            if (!process.waitFor(30, TimeUnit.SECONDS)) {
+                process.destroyForcibly();
+            }
+        }
+    }
+
+    private static long rssKb(long pid) {
+        try {
+            for (String line : Files.readAllLines(Path.of("/proc", Long.toString(pid), "status"))) {
+                if (line.startsWith("VmRSS:")) {
+                    return Long.parseLong(line.replaceAll("[^0-9]", ""));
+                }
+            }
+        } catch (IOException ex) {
+            // not Linux
+        }
+        return -1;
+    }
+
+    private static Path appJar(Path appDir) throws IOException {
+        try (var files = Files.list(appDir)) {
+            return files.filter(file -> file.getFileName().toString().endsWith(".jar")).findFirst()
+                    .orElseThrow(() -> new IllegalStateException("No jar in " + appDir + "; run mvn -Pprod package first"));
+        }
+    }
+
+    private static String h2Jar() {
+        return Arrays.stream(System.getProperty("java.class.path").split(File.pathSeparator))
+                .filter(entry -> entry.contains(File.separator + "h2-"))
+                .findFirst()
+                .orElseThrow(() -> new IllegalStateException("H2 driver not on the classpath"));
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    private static long median(List<Long> values) {
+        List<Long> sorted = new ArrayList<>(values);
+        sorted.sort(null);
+        return sorted.get(sorted.size() / 2);
+    }
+}
@@ -0,0 +1,124 @@
+package app.loadtest;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The HTTP side of each scenario, against one base URL. {@link #prepare(int)} registers the
+ * login users and logs each of them in once, so GET /api/user has sessions (or bearer tokens,
+ * when the server runs in token mode) to replay. State-changing requests reuse one CSRF cookie
+ * and header pair fetched from /api/csrf.
+ */
+final class Workload {
+
+    private static final String PASSWORD = "load-test-password";
+
+    private final HttpClient client;
+    private final String base;
+    private final String runId = Long.toString(System.currentTimeMillis(), 36);
+    private final AtomicLong registrations = new AtomicLong();
+
+    private String csrfCookie;
+    private String csrfToken;
+    private String[] emails;
+    private String[] credentials;
+    private boolean bearer;
+
+    Workload(String base) {
+        this.base = base;
+        this.client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+    }
+
+    void prepare(int users) throws IOException, InterruptedException {
+        HttpResponse<String> csrf = send(Scenario.CSRF);
+        if (csrf.statusCode() != 200) {
+            throw new IllegalStateException("GET /api/csrf returned " + csrf.statusCode());
+        }
+        csrfCookie = cookie(csrf, "XSRF-TOKEN");
+        csrfToken = jsonField(csrf.body(), "token");
+
+        emails = new String[users];
+        credentials = new String[users];
+        for (int i = 0; i < users; i++) {
+            emails[i] = "load-" + runId + "-" + i + "@example.com";
+            HttpResponse<String> registered = post("/api/auth/register",
+                    "{\"name\":\"Load " + i + "\",\"email\":\"" + emails[i] + "\",\"password\":\"" + PASSWORD + "\"}");
+            if (registered.statusCode() != 201) {
+                throw new IllegalStateException("Registering " + emails[i] + " returned " + registered.statusCode());
+            }
+            HttpResponse<String> login = login(emails[i]);
+            if (login.statusCode() != 200) {
+                throw new IllegalStateException("Login for " + emails[i] + " returned " + login.statusCode() + ": " + login.body());
+            }
+            String token = jsonField(login.body(), "token");
+            bearer = token != null;
+            credentials[i] = bearer ? token : cookie(login, "JSESSIONID");
+        }
+    }
+
+    /** Runs one request and returns its response; the body is read fully. */
+    HttpResponse<String> send(Scenario scenario) throws IOException, InterruptedException {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        return switch (scenario) {
+            case REGISTER -> {
+                String email = "load-" + runId + "-new-" + registrations.incrementAndGet() + "@example.com";
+                yield post("/api/auth/register",
+                        "{\"name\":\"Load\",\"email\":\"" + email + "\",\"password\":\"" + PASSWORD + "\"}");
+            }
+            case CSRF -> client.send(HttpRequest.newBuilder(URI.create(base + "/api/csrf")).GET().build(),
+                    HttpResponse.BodyHandlers.ofString());
+            case LOGIN -> login(emails[random.nextInt(emails.length)]);
+            case CURRENT_USER -> {
+                String credential = credentials[random.nextInt(credentials.length)];
+                HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(base + "/api/user")).GET();
+                if (bearer) {
+                    request.header("Authorization", "Bearer " + credential);
+                } else {
+                    request.header("Cookie", credential);
+                }
+                yield client.send(request.build(), HttpResponse.BodyHandlers.ofString());
+            }
+        };
+    }
+
+    private HttpResponse<String> login(String email) throws IOException, InterruptedException {
+        return post("/api/auth/login", "{\"email\":\"" + email + "\",\"password\":\"" + PASSWORD + "\"}");
+    }
+
+    private HttpResponse<String> post(String path, String json) throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(base + path))
+                .header("Content-Type", "application/json")
+                .header("Cookie", csrfCookie)
+                .header("X-XSRF-TOKEN", csrfToken)
+                .POST(HttpRequest.BodyPublishers.ofString(json))
+                .build();
+        return client.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+
+    private static String cookie(HttpResponse<?> response, String name) {
+        return response.headers().allValues("Set-Cookie").stream()
+                .filter(cookie -> cookie.startsWith(name + "="))
+                .map(cookie -> cookie.indexOf(';') > 0 ? cookie.substring(0, cookie.indexOf(';')) : cookie)
+                .findFirst()
+                .orElseThrow(() -> new IllegalStateException("No " + name + " cookie in response"));
+    }
+
+    private static String jsonField(String body, String field) {
+        String marker = "\"" + field + "\":\"";
+        int start = body.indexOf(marker);
+        if (start < 0) {
+            return null;
+        }
+        start += marker.length();
+        return body.substring(start, body.indexOf('"', start));
+    }
+}
@@ -0,0 +1,49 @@
+package app.assets;
+
+/**
+ * One static file held in memory with its precompressed variants (null when absent or not
+ * worth it) and the headers that do not depend on the request.
+ */
+public record StaticAsset(String path,
+                          String contentType,
+                          String cacheControl,
+                          String etag,
+                          byte[] identity,
+                          byte[] gzip,
+                          byte[] brotli) {
+
+    public enum Encoding {
+        IDENTITY(null, ""),
+        GZIP("gzip", "-gz"),
+        BROTLI("br", "-br");
+
+        private final String header;
+        private final String etagSuffix;
+
+        Encoding(String header, String etagSuffix) {
+            this.header = header;
+            this.etagSuffix = etagSuffix;
+        }
+
+        public String header() {
+            return header;
+        }
+    }
+
+    public byte[] body(Encoding encoding) {
+        return switch (encoding) {
+            case BROTLI -> brotli;
+            case GZIP -> gzip;
+            case IDENTITY -> identity;
+        };
+    }
+
+    /** Strong ETag of the given representation; each encoding has its own. */
+    public String etag(Encoding encoding) {
+        return encoding == Encoding.IDENTITY ? etag : etag.substring(0, etag.length() - 1) + encoding.etagSuffix + "\"";
+    }
+
+    public boolean compressed() {
+        return gzip != null || brotli != null;
+    }
+}
@@ -0,0 +1,269 @@
+package app.assets;
+
+import app.assets.StaticAsset.Encoding;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.regex.Pattern;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * The React build (classpath:/static/), loaded into memory once at startup.
+ * <p>
+ * Compressible files get a gzip variant built here unless the build already shipped a
+ * {@code .gz} sibling; {@code .br} siblings from the build are served as brotli (the JDK has no
+ * brotli encoder). Content-hashed files (Vite's {@code /assets/name-HASH.ext}, with an
+ * 8-character hash) are cached as immutable; everything else, including hyphenated public
+ * files such as {@code /apple-touch-icon.png}, must be revalidated with its ETag. index.html is
+ * also the SPA shell, written for any client-side route without a forward dispatch.
+ * Files above app.static.max-file-size are left to Spring's resource handler.
+ */
+@Component
+public class StaticAssetRegistry {
+
+    private static final Logger logger = LoggerFactory.getLogger(StaticAssetRegistry.class);
+    private static final Pattern HASHED = Pattern.compile("/assets/(?:[^/]+/)*[^/]*-[A-Za-z0-9_-]{8}\\.[A-Za-z0-9]+");
+    private static final int MIN_COMPRESS_BYTES = 256;
+    private static final String REVALIDATE = "no-cache";
+
+    private final Map<String, StaticAsset> assets = new HashMap<>();
+    private final StaticAsset index;
+
+    public StaticAssetRegistry(@Value("${app.static.location:classpath:/static/}") String location,
+                               @Value("${app.static.max-file-size:5MB}") DataSize maxFileSize,
+                               @Value("${app.static.immutable-max-age:365d}") Duration immutableMaxAge) throws IOException {
+        String immutable = "public, max-age=" + immutableMaxAge.toSeconds() + ", immutable";
+        Map<String, byte[]> files = load(location, maxFileSize.toBytes());
+
+        long identityBytes = 0;
+        long gzipBytes = 0;
+        for (Map.Entry<String, byte[]> file : files.entrySet()) {
+            String path = file.getKey();
+            if (isSibling(path, files)) {
+                continue;
+            }
+            byte[] body = file.getValue();
+            String contentType = contentType(path);
+            byte[] gzip = files.get(path + ".gz");
+            byte[] brotli = files.get(path + ".br");
+            if (gzip == null && isCompressible(contentType) && body.length >= MIN_COMPRESS_BYTES) {
+                gzip = gzip(body);
+                if (gzip.length > body.length * 9L / 10) {
+                    gzip = null; // not worth a Content-Encoding
+                }
+            }
+            String cacheControl = isHashed(path) ? immutable : REVALIDATE;
+            assets.put(path, new StaticAsset(path, contentType, cacheControl, etag(body), body, gzip, brotli));
+            identityBytes += body.length;
+            gzipBytes += gzip != null ? gzip.length : body.length;
+        }
+        this.index = assets.get("/index.html");
+        if (index != null) {
+            assets.put("/", index);
+        }
+        logger.info("Loaded {} static assets into memory ({} KB, {} KB gzipped)",
+                assets.size() - (index != null ? 1 : 0), identityBytes / 1024, gzipBytes / 1024);
+    }
+
+    /** Whether the path is a bundler output whose name changes with its content. */
+    static boolean isHashed(String path) {
+        return HASHED.matcher(path).matches();
+    }
+
+    /** The asset stored at exactly this path, or null. */
+    public StaticAsset find(String path) {
+        return assets.get(path);
+    }
+
+    /**
+     * index.html for client-side routes: GET paths whose last segment has no extension,
+     * outside the server's own /api, /actuator and /error.
+     */
+    public StaticAsset spaShell(String path) {
+        if (index == null || path.startsWith("/api/") || path.equals("/api")
+                || path.startsWith("/actuator") || path.equals("/error")) {
+            return null;
+        }
+        return path.indexOf('.', path.lastIndexOf('/')) < 0 ? index : null;
+    }
+
+    /** Writes the best representation for the request's Accept-Encoding, or 304. */
+    public void serve(StaticAsset asset, HttpServletRequest request, HttpServletResponse response) throws IOException {
+        Encoding encoding = negotiate(asset, request.getHeader("Accept-Encoding"));
+        String etag = asset.etag(encoding);
+        if (asset.compressed()) {
+            response.setHeader("Vary", "Accept-Encoding");
+        }
+        response.setHeader("ETag", etag);
+        response.setHeader("Cache-Control", asset.cacheControl());
+
+        String ifNoneMatch = request.getHeader("If-None-Match");
+        if (ifNoneMatch != null && (ifNoneMatch.contains(etag) || ifNoneMatch.trim().equals("*"))) {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+
+        byte[] body = asset.body(encoding);
+        response.setStatus(HttpServletResponse.SC_OK);
+        response.setContentType(asset.contentType());
+        if (encoding.header() != null) {
+            response.setHeader("Content-Encoding", encoding.header());
+        }
+        response.setContentLength(body.length);
+        if (!"HEAD".equals(request.getMethod())) {
+            response.getOutputStream().write(body);
+        }
+    }
+
+    static Encoding negotiate(StaticAsset asset, String acceptEncoding) {
+        if (acceptEncoding == null || !asset.compressed()) {
+            return Encoding.IDENTITY;
+        }
+        // parsed in place: this runs on every asset request
+        boolean br = false;
+        boolean gzip = false;
+        int length = acceptEncoding.length();
+        for (int start = 0; start <= length; ) {
+            int end = acceptEncoding.indexOf(',', start);
+            if (end < 0) {
+                end = length;
+            }
+            int semicolon = acceptEncoding.indexOf(';', start);
+            if (semicolon < 0 || semicolon > end) {
+                semicolon = end;
+            }
+            int from = skipSpaces(acceptEncoding, start, semicolon);
+            int to = semicolon;
+            while (to > from && (acceptEncoding.charAt(to - 1) == ' ' || acceptEncoding.charAt(to - 1) == '\t')) {
+                to--;
+            }
+            if (semicolon == end || !isZeroQuality(acceptEncoding, semicolon + 1, end)) { // q=0 is a refusal
+                if (isCoding(acceptEncoding, from, to, "br")) {
+                    br = true;
+                } else if (isCoding(acceptEncoding, from, to, "gzip") || isCoding(acceptEncoding, from, to, "*")) {
+                    gzip = true;
+                }
+            }
+            start = end + 1;
+        }
+        if (br && asset.brotli() != null) {
+            return Encoding.BROTLI;
+        }
+        return gzip && asset.gzip() != null ? Encoding.GZIP : Encoding.IDENTITY;
+    }
+
+    private static boolean isCoding(String header, int from, int to, String coding) {
+        return to - from == coding.length() && header.regionMatches(true, from, coding, 0, coding.length());
+    }
+
+    /** Whether header[from, to) is "q=0", "q=0." or "q=0.000", spaces allowed around each token. */
+    static boolean isZeroQuality(String header, int from, int to) {
+        int i = skipSpaces(header, from, to);
+        if (i == to || Character.toLowerCase(header.charAt(i)) != 'q') {
+            return false;
+        }
+        i = skipSpaces(header, i + 1, to);
+        if (i == to || header.charAt(i) != '=') {
+            return false;
+        }
+        i = skipSpaces(header, i + 1, to);
+        if (i == to || header.charAt(i) != '0') {
+            return false;
+        }
+        i++;
+        if (i < to && header.charAt(i) == '.') {
+            i++;
+            while (i < to && header.charAt(i) == '0') {
+                i++;
+            }
+        }
+        return skipSpaces(header, i, to) == to;
+    }
+
+    private static int skipSpaces(String header, int from, int to) {
+        while (from < to && (header.charAt(from) == ' ' || header.charAt(from) == '\t')) {
+            from++;
+        }
+        return from;
+    }
+
+    private static Map<String, byte[]> load(String location, long maxFileSize) throws IOException {
+        PathMatchingResourcePatternResolver resolver = new PathMatchingResourcePatternResolver();
+        Resource root = resolver.getResource(location);
+        Map<String, byte[]> files = new HashMap<>();
+        if (!root.exists()) {
+            return files;
+        }
+        String base = root.getURL().toString();
+        for (Resource resource : resolver.getResources(location + "**/*")) {
+            String url = resource.getURL().toString();
+            if (!resource.isReadable() || url.endsWith("/") || !url.startsWith(base)) {
+                continue;
+            }
+            if (resource.contentLength() > maxFileSize) {
+                continue;
+            }
+            try (InputStream in = resource.getInputStream()) {
+                files.put("/" + url.substring(base.length()).replaceFirst("^/", ""), in.readAllBytes());
+            }
+        }
+        return files;
+    }
+
+    private static boolean isSibling(String path, Map<String, byte[]> files) {
+        return (path.endsWith(".gz") || path.endsWith(".br")) && files.containsKey(path.substring(0, path.length() - 3));
+    }
+
+    private static String contentType(String path) {
+        MediaType type = MediaTypeFactory.getMediaType(path).orElse(MediaType.APPLICATION_OCTET_STREAM);
+        boolean text = type.getType().equals("text") || type.getSubtype().equals("javascript")
+                || type.getSubtype().equals("json") || type.getSubtype().endsWith("+json");
+        return text ? type + ";charset=UTF-8" : type.toString();
+    }
+
+    private static boolean isCompressible(String contentType) {
+        return contentType.startsWith("text/") || contentType.contains("javascript") || contentType.contains("json")
+                || contentType.contains("xml") || contentType.startsWith("image/svg");
+    }
+
+    private static byte[] gzip(byte[] body) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(body.length / 3 + 64);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out) {
+            {
+                def.setLevel(Deflater.BEST_COMPRESSION); // paid once at startup
+            }
+        }) {
+            gzip.write(body);
+        }
+        return out.toByteArray();
+    }
+
+    private static String etag(byte[] body) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(body);
+            return "\"" + Base64.getUrlEncoder().withoutPadding().encodeToString(Arrays.copyOf(digest, 12)) + "\"";
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package app.audit;
+
+import java.time.Instant;
+
+/**
+ * One audit record waiting to be written. Free-text fields are cut to their column sizes here,
+ * so an oversized value (e.g. a junk login email) cannot fail the whole batch.
+ */
+public record AuditEvent(Instant occurredAt, AuditEventType type, Long userId, String email,
+                         String remoteAddress, String detail) {
+
+    public AuditEvent {
+        email = truncate(email, 100);
+        remoteAddress = truncate(remoteAddress, 45);
+        detail = truncate(detail, 255);
+    }
+
+    private static String truncate(String value, int max) {
+        return value != null && value.length() > max ? value.substring(0, max) : value;
+    }
+}
@@ -0,0 +1,9 @@
+package app.audit;
+
+/** What an auth_audit row records; stored by name. */
+public enum AuditEventType {
+    LOGIN_SUCCESS,
+    LOGIN_FAILURE,
+    REGISTRATION,
+    SESSION_CREATED
+}
@@ -0,0 +1,217 @@
+package app.audit;
+
+import app.repository.AuditEventRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Write-behind authentication audit log. {@link #record} only enqueues, so logins and
+ * registrations pay no extra database round trip; one writer thread drains the bounded queue
+ * into auth_audit in JDBC batches of up to {@code batch-size} rows, at the latest
+ * {@code flush-interval} after the first event of a batch arrived.
+ * <p>
+ * When the queue is full, app.audit.overflow=drop discards the event at once, and block makes
+ * the caller wait up to {@code block-timeout} for room before discarding it; either way the
+ * request never fails because of auditing. A batch the database refuses is retried a few times
+ * before it is dropped. Stopping the context drains the queue before the datasource closes (the
+ * log stops after the web server). Drops and failures are counted in app.audit.events.
+ */
+@Component
+public class AuditLog implements SmartLifecycle {
+
+    private static final Logger logger = LoggerFactory.getLogger(AuditLog.class);
+    private static final int WRITE_ATTEMPTS = 3;
+    private static final long RETRY_DELAY_MILLIS = 1000;
+
+    private final AuditEventRepository repository;
+    private final BlockingQueue<AuditEvent> queue;
+    private final int batchSize;
+    private final long flushIntervalNanos;
+    private final boolean block;
+    private final long blockTimeoutNanos;
+    private final Duration shutdownTimeout;
+    private final Counter written;
+    private final Counter dropped;
+    private final Counter failed;
+    private final Timer flushTimer;
+    private Clock clock = Clock.systemUTC();
+
+    private volatile boolean running;
+    private Thread writer;
+
+    public AuditLog(AuditEventRepository repository,
+                    @Value("${app.audit.queue-capacity:10000}") int queueCapacity,
+                    @Value("${app.audit.batch-size:200}") int batchSize,
+                    @Value("${app.audit.flush-interval:1s}") Duration flushInterval,
+                    @Value("${app.audit.overflow:drop}") String overflow,
+                    @Value("${app.audit.block-timeout:100ms}") Duration blockTimeout,
+                    @Value("${app.audit.shutdown-timeout:10s}") Duration shutdownTimeout,
+                    MeterRegistry meterRegistry) {
+        this.repository = repository;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.batchSize = batchSize;
+        this.flushIntervalNanos = flushInterval.toNanos();
+        this.block = switch (overflow.trim().toLowerCase(Locale.ROOT)) {
+            case "drop" -> false;
+            case "block" -> true;
+            default -> throw new IllegalArgumentException("app.audit.overflow must be drop or block, got " + overflow);
+        };
+        this.blockTimeoutNanos = blockTimeout.toNanos();
+        this.shutdownTimeout = shutdownTimeout;
+
+        this.written = Counter.builder("app.audit.events").tag("outcome", "written")
+                .description("Audit events by what happened to them").register(meterRegistry);
+        this.dropped = Counter.builder("app.audit.events").tag("outcome", "dropped")
+                .description("Audit events by what happened to them").register(meterRegistry);
+        this.failed = Counter.builder("app.audit.events").tag("outcome", "failed")
+                .description("Audit events by what happened to them").register(meterRegistry);
+        this.flushTimer = Timer.builder("app.audit.flush")
+                .description("Time to write one audit batch").register(meterRegistry);
+        Gauge.builder("app.audit.queue.size", queue, BlockingQueue::size)
+                .description("Audit events waiting for the writer").register(meterRegistry);
+    }
+
+    void setClock(Clock clock) {
+        this.clock = clock;
+    }
+
+    /** Queues an event; never throws and never waits longer than block-timeout. */
+    public void record(AuditEventType type, Long userId, String email, String remoteAddress, String detail) {
+        AuditEvent event = new AuditEvent(clock.instant(), type, userId, email, remoteAddress, detail);
+        boolean queued;
+        if (block) {
+            try {
+                queued = queue.offer(event, blockTimeoutNanos, TimeUnit.NANOSECONDS);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                queued = false;
+            }
+        } else {
+            queued = queue.offer(event);
+        }
+        if (!queued) {
+            dropped.increment();
+        }
+    }
+
+    /** Writes everything queued so far on the calling thread; returns the number of events taken. */
+    public int flush() {
+        int taken = 0;
+        List<AuditEvent> batch = new ArrayList<>(batchSize);
+        while (queue.drainTo(batch, batchSize) > 0) {
+            taken += batch.size();
+            write(batch);
+            batch.clear();
+        }
+        return taken;
+    }
+
+    @Override
+    public void start() {
+        running = true;
+        writer = new Thread(this::drain, "audit-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        Thread thread = writer;
+        if (thread != null) {
+            try {
+                thread.join(shutdownTimeout.toMillis());
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+            if (thread.isAlive()) {
+                logger.warn("Audit writer still busy after {} ms; {} events left unwritten",
+                        shutdownTimeout.toMillis(), queue.size());
+                return;
+            }
+        }
+        flush(); // anything recorded after the writer's last poll
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    /** Stopped after the web server (lower phase), so requests still in flight get audited. */
+    @Override
+    public int getPhase() {
+        return SmartLifecycle.DEFAULT_PHASE - 4096;
+    }
+
+    private void drain() {
+        List<AuditEvent> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                AuditEvent first = queue.poll(flushIntervalNanos, TimeUnit.NANOSECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                long deadline = System.nanoTime() + flushIntervalNanos;
+                while (batch.size() < batchSize && running) {
+                    long remaining = deadline - System.nanoTime();
+                    AuditEvent next = remaining > 0 ? queue.poll(remaining, TimeUnit.NANOSECONDS) : null;
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                queue.drainTo(batch, batchSize - batch.size()); // shutting down: take what is there
+                write(batch);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException ex) {
+                logger.error("Audit writer failed", ex);
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void write(List<AuditEvent> batch) {
+        for (int attempt = 1; ; attempt++) {
+            long started = System.nanoTime();
+            try {
+                repository.insertAll(batch);
+                flushTimer.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+                written.increment(batch.size());
+                return;
+            } catch (RuntimeException ex) {
+                if (attempt == WRITE_ATTEMPTS) {
+                    failed.increment(batch.size());
+                    logger.error("Dropping {} audit events after {} failed writes", batch.size(), attempt, ex);
+                    return;
+                }
+                logger.warn("Audit batch of {} failed (attempt {}), retrying: {}", batch.size(), attempt, ex.getMessage());
+                try {
+                    Thread.sleep(RETRY_DELAY_MILLIS);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,159 @@
+package app.concurrency;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Caps the number of requests in flight per endpoint, so blocking work (bcrypt, the 5-connection
+ * Hikari pool) cannot be flooded once request threads are cheap. With virtual threads Tomcat no
+ * longer bounds concurrency: every accepted connection gets a thread, and without these limits
+ * they would all queue on the connection pool until its connection-timeout.
+ * <p>
+ * app.concurrency.limits is a comma-separated list of {@code path:permits}; a path ending in
+ * {@code /**} covers everything below it, and the first matching entry wins. A request waits up
+ * to app.concurrency.max-wait for a permit and is then refused (503). A request that goes async
+ * keeps its permit until the async request completes; a streamed body wrapped with
+ * {@link StreamingResponses#bounded} keeps it until the body writer has returned as well, so an
+ * export or import that outlives its request timeout is still counted.
+ */
+@Component
+public class EndpointConcurrencyLimiter {
+
+    /** Request attribute holding the {@link Permit} of a limited request. */
+    public static final String PERMIT_ATTRIBUTE = EndpointConcurrencyLimiter.class.getName() + ".permit";
+
+    private final List<Limit> limits = new ArrayList<>();
+    private final long maxWaitNanos;
+
+    public EndpointConcurrencyLimiter(@Value("${app.concurrency.limits:}") String limits,
+                                      @Value("${app.concurrency.max-wait:250ms}") Duration maxWait,
+                                      MeterRegistry meterRegistry) {
+        this.maxWaitNanos = maxWait.toNanos();
+        for (String entry : limits.split(",")) {
+            String trimmed = entry.trim();
+            if (trimmed.isEmpty()) {
+                continue;
+            }
+            int colon = trimmed.lastIndexOf(':');
+            if (colon <= 0 || !trimmed.startsWith("/")) {
+                throw new IllegalArgumentException("Concurrency limit must look like /path:permits, got " + trimmed);
+            }
+            int permits = Integer.parseInt(trimmed.substring(colon + 1).trim());
+            if (permits <= 0) {
+                throw new IllegalArgumentException("Concurrency limit for " + trimmed + " must be positive");
+            }
+            Limit limit = new Limit(trimmed.substring(0, colon).trim(), permits, meterRegistry);
+            this.limits.add(limit);
+        }
+    }
+
+    /** The limit covering this servlet path, or null when the endpoint is unlimited. */
+    public Limit find(String path) {
+        for (Limit limit : limits) {
+            if (limit.matches(path)) {
+                return limit;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Waits up to max-wait for a permit. False means the request must be refused; the caller
+     * releases the permit with {@link Limit#release()} only when this returned true.
+     */
+    public boolean tryAcquire(Limit limit) {
+        boolean acquired;
+        try {
+            acquired = limit.permits.tryAcquire(maxWaitNanos, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            acquired = false;
+        }
+        if (!acquired) {
+            limit.rejected.increment();
+        }
+        return acquired;
+    }
+
+    public static final class Limit {
+        private final String pattern;
+        private final String prefix;
+        private final int max;
+        private final Semaphore permits;
+        private final Counter rejected;
+
+        Limit(String pattern, int max, MeterRegistry meterRegistry) {
+            this.pattern = pattern;
+            this.prefix = pattern.endsWith("/**") ? pattern.substring(0, pattern.length() - 3) : null;
+            this.max = max;
+            this.permits = new Semaphore(max);
+            this.rejected = Counter.builder("app.concurrency.rejected").tag("endpoint", pattern)
+                    .description("Requests refused because the endpoint limit stayed full for max-wait")
+                    .register(meterRegistry);
+            Gauge.builder("app.concurrency.in_flight", this, Limit::inFlight).tag("endpoint", pattern)
+                    .description("Requests holding a permit of the endpoint limit").register(meterRegistry);
+            Gauge.builder("app.concurrency.limit", this, l -> l.max).tag("endpoint", pattern)
+                    .description("Permits of the endpoint limit").register(meterRegistry);
+        }
+
+        boolean matches(String path) {
+            if (prefix == null) {
+                return pattern.equals(path);
+            }
+            return path.startsWith(prefix) && (path.length() == prefix.length() || path.charAt(prefix.length()) == '/');
+        }
+
+        public String pattern() {
+            return pattern;
+        }
+
+        public int inFlight() {
+            return max - permits.availablePermits();
+        }
+
+        public void release() {
+            permits.release();
+        }
+    }
+
+    /**
+     * A permit taken with {@link #tryAcquire}, shared by the request and the work it hands off.
+     * It goes back to the limit when the last holder releases it.
+     */
+    public static final class Permit {
+        private final Limit limit;
+        private final AtomicInteger holders = new AtomicInteger(1);
+
+        public Permit(Limit limit) {
+            this.limit = limit;
+        }
+
+        /** Adds a holder; false once the permit has already gone back to the limit. */
+        public boolean retain() {
+            int current;
+            do {
+                current = holders.get();
+                if (current == 0) {
+                    return false;
+                }
+            } while (!holders.compareAndSet(current, current + 1));
+            return true;
+        }
+
+        public void release() {
+            if (holders.decrementAndGet() == 0) {
+                limit.release();
+            }
+        }
+    }
+}
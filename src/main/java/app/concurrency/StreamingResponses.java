@@ -0,0 +1,44 @@
+package app.concurrency;
+
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.web.context.request.async.AsyncWebRequest;
+import org.springframework.web.context.request.async.WebAsyncUtils;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.time.Duration;
+
+/**
+ * Long-running streamed responses (exports, imports). Call {@link #bounded} from the handler
+ * method, before the body is returned.
+ */
+public final class StreamingResponses {
+
+    private StreamingResponses() {
+    }
+
+    /**
+     * Gives this request its own async timeout instead of spring.mvc.async.request-timeout, and
+     * keeps the endpoint's concurrency permit until the body writer returns, which can be after
+     * the request timed out: the writer is interrupted then, but has to notice. A body whose
+     * request timed out before it got a thread is not run at all.
+     */
+    public static StreamingResponseBody bounded(HttpServletRequest request, Duration timeout, StreamingResponseBody body) {
+        AsyncWebRequest asyncRequest = WebAsyncUtils.getAsyncManager(request).getAsyncWebRequest();
+        if (asyncRequest != null) {
+            asyncRequest.setTimeout(timeout.toMillis());
+        }
+        if (!(request.getAttribute(EndpointConcurrencyLimiter.PERMIT_ATTRIBUTE) instanceof EndpointConcurrencyLimiter.Permit permit)) {
+            return body;
+        }
+        return out -> {
+            if (!permit.retain()) {
+                return;
+            }
+            try {
+                body.writeTo(out);
+            } finally {
+                permit.release();
+            }
+        };
+    }
+}
@@ -1,33 +1,70 @@
 package app.config;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
 import org.springframework.security.config.annotation.authentication.configuration.AuthenticationConfiguration;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.DelegatingPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 
+import java.time.Duration;
+import java.util.Map;
+
+import app.security.CalibratedBCryptPasswordEncoder;
 import app.security.CustomUserDetailsService;
+import app.security.LoginMetrics;
+import app.security.OffloadingPasswordEncoder;
+import app.security.SnapshotAuthenticationProvider;
+import app.security.UserDetailsCache;
 
 @Configuration
 public class AuthenticationConfig {
     private final CustomUserDetailsService userDetailsService;
+    private final UserDetailsCache userCache;
 
-    public AuthenticationConfig(CustomUserDetailsService uds) {
+    public AuthenticationConfig(CustomUserDetailsService uds, UserDetailsCache userCache) {
         this.userDetailsService = uds;
+        this.userCache = userCache;
     }
 
+    /**
+     * {bcrypt}-prefixed hashes with a cost calibrated to app.security.password.hash-budget,
+     * unless app.security.password.cost pins it. Legacy hashes without an id prefix are
+     * still verified as BCrypt and get rewritten on the next successful login.
+     */
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public PasswordEncoder passwordEncoder(@Value("${app.security.password.cost:0}") int fixedCost,
+                                           @Value("${app.security.password.min-cost:10}") int minCost,
+                                           @Value("${app.security.password.max-cost:16}") int maxCost,
+                                           @Value("${app.security.password.hash-budget:250ms}") Duration hashBudget,
+                                           @Value("${app.security.hashing.threads:0}") int threads,
+                                           @Value("${app.security.hashing.queue-capacity:64}") int queueCapacity,
+                                           @Value("${app.security.hashing.retry-after-seconds:1}") long retryAfterSeconds,
+                                           MeterRegistry meterRegistry) {
+        // 0 = one hashing thread per core
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        int cost = fixedCost > 0 ? fixedCost : CalibratedBCryptPasswordEncoder.calibrate(minCost, maxCost, hashBudget);
+        CalibratedBCryptPasswordEncoder bcrypt = new CalibratedBCryptPasswordEncoder(cost);
+
+        DelegatingPasswordEncoder delegating = new DelegatingPasswordEncoder("bcrypt", Map.of("bcrypt", bcrypt));
+        delegating.setDefaultPasswordEncoderForMatches(bcrypt);
+
+        return new OffloadingPasswordEncoder(delegating, poolSize, queueCapacity, retryAfterSeconds, meterRegistry);
     }
 
     @Bean
-    public DaoAuthenticationProvider authProvider() {
-        DaoAuthenticationProvider provider = new DaoAuthenticationProvider();
-        provider.setUserDetailsService(userDetailsService);
-        provider.setPasswordEncoder(passwordEncoder());
+    public DaoAuthenticationProvider authProvider(PasswordEncoder passwordEncoder, LoginMetrics loginMetrics) {
+        // cache hits skip the lookup and so are not timed as user_load
+        Timer userLoad = loginMetrics.stage(LoginMetrics.Stage.USER_LOAD);
+        DaoAuthenticationProvider provider = new SnapshotAuthenticationProvider(
+                username -> userLoad.record(() -> userDetailsService.loadUserByUsername(username)), loginMetrics);
+        provider.setPasswordEncoder(passwordEncoder);
+        provider.setUserCache(userCache); // skip findByEmail for recently loaded principals
+        provider.setUserDetailsPasswordService(userDetailsService); // rehash on login when the cost changed
         return provider;
     }
 
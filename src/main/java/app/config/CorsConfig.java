@@ -9,15 +9,29 @@ import org.springframework.web.cors.CorsConfiguration;
 import org.springframework.web.cors.CorsConfigurationSource;
 import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
 
+import app.security.OriginMatcher;
+
 @Configuration
 public class CorsConfig {
-    @Value("${app.security.allowed-origin}")
-    private String ORIGIN;
+
+    /**
+     * Single definition of the allowed front-end origins, used by CORS below and by the
+     * originCheckFilter. Falls back to the legacy single app.security.allowed-origin.
+     */
+    @Bean
+    public OriginMatcher allowedOrigins(
+            @Value("${app.security.allowed-origins:${app.security.allowed-origin}}") String origins) {
+        return OriginMatcher.parse(origins);
+    }
 
     @Bean
-    public CorsConfigurationSource corsConfigurationSource() {
-        CorsConfiguration configuration = new CorsConfiguration();
-        configuration.setAllowedOrigins(List.of(ORIGIN));
+    public CorsConfigurationSource corsConfigurationSource(OriginMatcher allowedOrigins) {
+        CorsConfiguration configuration = new CorsConfiguration() {
+            @Override
+            public String checkOrigin(String origin) {
+                return allowedOrigins.matchesOrigin(origin) ? origin : null;
+            }
+        };
         configuration.setAllowCredentials(true);
         configuration.setAllowedMethods(List.of("GET","POST","PUT","DELETE","OPTIONS","PATCH"));
         configuration.setAllowedHeaders(List.of("Authorization","Cache-Control","Content-Type","X-XSRF-TOKEN","X-Requested-With"));
@@ -1,36 +1,70 @@
 package app.config;
 
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContext;
 import org.springframework.security.core.context.SecurityContextHolder;
 
+import app.assets.StaticAsset;
+import app.assets.StaticAssetRegistry;
+import app.audit.AuditEventType;
+import app.audit.AuditLog;
+import app.concurrency.EndpointConcurrencyLimiter;
+import app.security.CustomUserDetails;
+import app.security.LoginMetrics;
+import app.security.LoginThrottle;
+import app.security.OriginMatcher;
+import app.security.SignedTokenService;
+import app.trace.RequestTracer;
+
 import org.springframework.web.filter.OncePerRequestFilter;
 
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
-import jakarta.servlet.http.HttpSession;
 import java.io.IOException;
-import java.util.Arrays;
 
 
+/**
+ * Filters that run inside the security filter chains. Spring Boot would also add every Filter
+ * bean to the servlet container, behind springSecurityFilterChain, so each one has a disabled
+ * registration: there they would run outside the chain (e.g. for staticFilterChain requests,
+ * which have no SecurityContextHolderFilter to clear what they set).
+ */
 @Configuration
 public class FilterConfig {
+    private static FilterRegistrationBean<OncePerRequestFilter> chainOnly(OncePerRequestFilter filter) {
+        FilterRegistrationBean<OncePerRequestFilter> registration = new FilterRegistrationBean<>(filter);
+        registration.setEnabled(false);
+        return registration;
+    }
+
+    @Bean
+    public FilterRegistrationBean<OncePerRequestFilter> originCheckFilterRegistration(
+            @Qualifier("originCheckFilter") OncePerRequestFilter filter) {
+        return chainOnly(filter);
+    }
+
     @Bean
-    public OncePerRequestFilter originCheckFilter(@Value("${app.security.allowed-origin}") String ORIGIN) {
+    public OncePerRequestFilter originCheckFilter(OriginMatcher allowedOrigins) {
         return new OncePerRequestFilter() {
             @Override
             protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
                     throws ServletException, IOException {
-                String origin = request.getHeader("Origin");
-                String referer = request.getHeader("Referer");
-
-                if (request.getMethod().matches("POST|PUT|DELETE")) {
-                    if ((origin != null && !origin.equals(ORIGIN)) ||
-                        (referer != null && !referer.startsWith(ORIGIN))) {
+                if (isStateChanging(request.getMethod())) {
+                    String origin = request.getHeader("Origin");
+                    String referer = request.getHeader("Referer");
+                    if ((origin != null && !allowedOrigins.matchesOrigin(origin)) ||
+                        (referer != null && !allowedOrigins.matchesReferer(referer))) {
                         response.sendError(HttpServletResponse.SC_FORBIDDEN, "Invalid origin");
                         return;
                     }
@@ -40,23 +74,216 @@ public class FilterConfig {
         };
     }
 
+    private static boolean isStateChanging(String method) {
+        return switch (method) {
+            case "POST", "PUT", "DELETE", "PATCH" -> true;
+            default -> false;
+        };
+    }
+
+    @Bean
+    public FilterRegistrationBean<OncePerRequestFilter> concurrencyLimitFilterRegistration(
+            @Qualifier("concurrencyLimitFilter") OncePerRequestFilter filter) {
+        return chainOnly(filter);
+    }
+
     @Bean
-    public OncePerRequestFilter debugSessionFilter() {
+    public OncePerRequestFilter concurrencyLimitFilter(EndpointConcurrencyLimiter limiter,
+                                                       @Value("${app.concurrency.retry-after-seconds:1}") long retryAfterSeconds) {
         return new OncePerRequestFilter() {
             @Override
             protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
                     throws ServletException, IOException {
-                HttpSession session = request.getSession(false);
-                if (session != null) {
-                    System.out.println(">>> Incoming JSESSIONID: " +
-                        Arrays.toString(request.getCookies()) +
-                        " | Session ID: " + session.getId() +
-                        " | Auth: " + SecurityContextHolder.getContext().getAuthentication());
-                } else {
-                    System.out.println(">>> No session found for request " + request.getRequestURI());
+                EndpointConcurrencyLimiter.Limit limit = limiter.find(request.getServletPath());
+                if (limit == null) {
+                    filterChain.doFilter(request, response);
+                    return;
+                }
+                if (!limiter.tryAcquire(limit)) {
+                    response.setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+                    response.setHeader("Retry-After", String.valueOf(retryAfterSeconds));
+                    response.setContentType("application/json");
+                    response.getWriter().write("{\"status\":\"error\",\"message\":\"Server busy, retry later\"}");
+                    return;
+                }
+                EndpointConcurrencyLimiter.Permit permit = new EndpointConcurrencyLimiter.Permit(limit);
+                request.setAttribute(EndpointConcurrencyLimiter.PERMIT_ATTRIBUTE, permit);
+                try {
+                    filterChain.doFilter(request, response);
+                } finally {
+                    if (request.isAsyncStarted()) {
+                        // streamed responses: complete also fires after a timeout or error
+                        request.getAsyncContext().addListener(new AsyncListener() {
+                            @Override
+                            public void onComplete(AsyncEvent event) {
+                                permit.release();
+                            }
+
+                            @Override
+                            public void onTimeout(AsyncEvent event) {
+                            }
+
+                            @Override
+                            public void onError(AsyncEvent event) {
+                            }
+
+                            @Override
+                            public void onStartAsync(AsyncEvent event) {
+                            }
+                        });
+                    } else {
+                        permit.release();
+                    }
+                }
+            }
+        };
+    }
+
+    @Bean
+    public FilterRegistrationBean<OncePerRequestFilter> loginThrottleFilterRegistration(
+            @Qualifier("loginThrottleFilter") OncePerRequestFilter filter) {
+        return chainOnly(filter);
+    }
+
+    @Bean
+    public OncePerRequestFilter loginThrottleFilter(LoginThrottle loginThrottle, LoginMetrics loginMetrics, AuditLog auditLog) {
+        return new OncePerRequestFilter() {
+            @Override
+            protected boolean shouldNotFilter(HttpServletRequest request) {
+                return !("POST".equals(request.getMethod()) && "/api/auth/login".equals(request.getServletPath()));
+            }
+
+            @Override
+            protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+                    throws ServletException, IOException {
+                // per-account budget is checked once the body is parsed, see JsonUsernamePasswordAuthFilter
+                long retryAfter = loginThrottle.acquireForIp(request.getRemoteAddr());
+                if (retryAfter > 0) {
+                    loginMetrics.record(LoginMetrics.Outcome.THROTTLED);
+                    auditLog.record(AuditEventType.LOGIN_FAILURE, null, null, request.getRemoteAddr(), "throttled");
+                    response.setStatus(429);
+                    response.setHeader("Retry-After", String.valueOf(retryAfter));
+                    response.setContentType("application/json");
+                    response.getWriter().write("{\"status\":\"error\",\"message\":\"Too many login attempts\"}");
+                    return;
                 }
                 filterChain.doFilter(request, response);
             }
         };
     }
+
+    @Bean
+    public FilterRegistrationBean<OncePerRequestFilter> requestTraceFilterRegistration(
+            @Qualifier("requestTraceFilter") OncePerRequestFilter filter) {
+        return chainOnly(filter);
+    }
+
+    /**
+     * Sampled request trace (method, path, status, session flag, principal id, timing).
+     * Registered after SecurityContextHolderFilter so the authentication is still visible
+     * once the rest of the chain has run.
+     */
+    @Bean
+    public OncePerRequestFilter requestTraceFilter(RequestTracer tracer) {
+        return new OncePerRequestFilter() {
+            @Override
+            protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+                    throws ServletException, IOException {
+                if (!tracer.sample()) {
+                    filterChain.doFilter(request, response);
+                    return;
+                }
+                long start = System.nanoTime();
+                try {
+                    filterChain.doFilter(request, response);
+                } finally {
+                    Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+                    long principalId = authentication != null && authentication.getPrincipal() instanceof CustomUserDetails user
+                            && user.getId() != null ? user.getId() : -1L;
+                    tracer.record(request.getMethod(), request.getRequestURI(), response.getStatus(),
+                            request.getSession(false) != null, principalId, System.nanoTime() - start);
+                }
+            }
+        };
+    }
+
+    /**
+     * Stateless authentication for "Authorization: Bearer" requests when token mode is on.
+     * The principal comes straight from the verified token, so neither the session store nor
+     * the users table is read. Requests without the header fall through to the session.
+     */
+    @Bean
+    public FilterRegistrationBean<OncePerRequestFilter> bearerTokenFilterRegistration(
+            @Qualifier("bearerTokenFilter") OncePerRequestFilter filter) {
+        return chainOnly(filter);
+    }
+
+    @Bean
+    public OncePerRequestFilter bearerTokenFilter(SignedTokenService tokens) {
+        return new OncePerRequestFilter() {
+            @Override
+            protected boolean shouldNotFilter(HttpServletRequest request) {
+                return !tokens.isEnabled() || bearerToken(request) == null;
+            }
+
+            @Override
+            protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+                    throws ServletException, IOException {
+                CustomUserDetails principal = tokens.verify(bearerToken(request));
+                if (principal == null) {
+                    response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
+                    response.setHeader("WWW-Authenticate", "Bearer error=\"invalid_token\"");
+                    response.setContentType("application/json");
+                    response.getWriter().write("{\"status\":\"error\",\"message\":\"Invalid or expired token\"}");
+                    return;
+                }
+                SecurityContext context = SecurityContextHolder.createEmptyContext();
+                context.setAuthentication(UsernamePasswordAuthenticationToken.authenticated(
+                        principal, null, principal.getAuthorities()));
+                SecurityContextHolder.setContext(context);
+                filterChain.doFilter(request, response);
+            }
+        };
+    }
+
+    @Bean
+    public FilterRegistrationBean<OncePerRequestFilter> staticAssetFilterRegistration(
+            @Qualifier("staticAssetFilter") OncePerRequestFilter filter) {
+        return chainOnly(filter);
+    }
+
+    /**
+     * Serves the in-memory React build and the SPA shell. Registered after authorization, so
+     * client routes keep their access rules and responses still get the security headers.
+     */
+    @Bean
+    public OncePerRequestFilter staticAssetFilter(StaticAssetRegistry assets) {
+        return new OncePerRequestFilter() {
+            @Override
+            protected boolean shouldNotFilter(HttpServletRequest request) {
+                String method = request.getMethod();
+                return !("GET".equals(method) || "HEAD".equals(method));
+            }
+
+            @Override
+            protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+                    throws ServletException, IOException {
+                String path = request.getRequestURI().substring(request.getContextPath().length());
+                StaticAsset asset = assets.find(path);
+                if (asset == null) {
+                    asset = assets.spaShell(path);
+                }
+                if (asset == null) {
+                    filterChain.doFilter(request, response);
+                    return;
+                }
+                assets.serve(asset, request, response);
+            }
+        };
+    }
+
+    static String bearerToken(HttpServletRequest request) {
+        String header = request.getHeader("Authorization");
+        return header != null && header.regionMatches(true, 0, "Bearer ", 0, 7) ? header.substring(7).trim() : null;
+    }
 }
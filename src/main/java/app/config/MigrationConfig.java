@@ -0,0 +1,29 @@
+package app.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.flyway.FlywayMigrationStrategy;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import org.flywaydb.core.Flyway;
+
+/**
+ * Flyway runs the db/migration scripts on startup when spring.flyway.enabled (prod profile).
+ * app.flyway.migrate-on-startup=false skips that step, for deployments that migrate separately
+ * and for the AppCDS training run, which must start without a database.
+ */
+@Configuration
+@ConditionalOnClass(Flyway.class)
+public class MigrationConfig {
+
+    @Bean
+    public FlywayMigrationStrategy flywayMigrationStrategy(
+            @Value("${app.flyway.migrate-on-startup:true}") boolean migrateOnStartup) {
+        return flyway -> {
+            if (migrateOnStartup) {
+                flyway.migrate();
+            }
+        };
+    }
+}
@@ -1,13 +1,25 @@
 package app.config;
 
 
+import app.audit.AuditEventType;
+import app.audit.AuditLog;
 import app.security.JsonUsernamePasswordAuthFilter;
+import app.security.LoginCredentialsParser;
+import app.security.LoginMetrics;
+import app.security.LoginThrottle;
+import app.security.CustomUserDetails;
+import app.security.HmacCsrfTokenRepository;
+import app.security.PublicRouteIndex;
+import app.security.SignedTokenService;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import jakarta.servlet.http.HttpSession;
 
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.annotation.Order;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
@@ -15,15 +27,26 @@ import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.core.context.SecurityContext;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.access.intercept.AuthorizationFilter;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 import org.springframework.security.web.context.HttpSessionSecurityContextRepository;
+import org.springframework.security.web.context.SecurityContextHolderFilter;
 import org.springframework.security.web.csrf.CookieCsrfTokenRepository;
 import org.springframework.security.web.csrf.CsrfTokenRequestAttributeHandler;
 import org.springframework.security.web.csrf.CsrfFilter;
+import org.springframework.security.web.csrf.CsrfTokenRepository;
+import org.springframework.security.web.header.HeaderWriterFilter;
+import org.springframework.security.web.session.DisableEncodeUrlFilter;
 import org.springframework.security.web.util.matcher.RequestMatcher;
 import org.springframework.web.cors.CorsConfigurationSource;    
+import org.springframework.web.filter.CorsFilter;
 import org.springframework.web.filter.OncePerRequestFilter;
 
+import java.util.Arrays;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -33,56 +56,146 @@ public class SecurityConfig {
     @Value("${app.security.allowed-origin}")
     private String ORIGIN;
 
+    @Value("${app.security.login.max-body-bytes:8192}")
+    private int loginMaxBodyBytes;
+
+    @Value("${app.security.login.max-depth:8}")
+    private int loginMaxDepth;
+
+    @Value("${app.security.csrf.mode:hmac}")
+    private String csrfMode;
+
+    @Value("${server.port:8080}")
+    private int serverPort;
+
+    @Value("${management.server.port:-1}")
+    private int managementPort;
+
     Logger logger = LoggerFactory.getLogger(JsonUsernamePasswordAuthFilter.class);
 
 
-    private static final String[] PUBLIC_ENDPOINTS = {
+    // GET/HEAD here skip CSRF, session and authorization entirely (see staticFilterChain)
+    private static final String[] STATIC_ROUTES = {
         "/", "/index.html", "/static/**", "/assets/**",
         "/*.js", "/*.css", "/*.json", "/*.png", "/*.jpg",
         "/*.jpeg", "/*.gif", "/*.svg", "/*.ico",
-        "/favicon.ico", "/error",
-        "/api/auth/register",
-        "/api/csrf",
+        "/favicon.ico",
         "/about",
         "/demo",
         "/login",
         "/user",
-        "/register",
-        "/api/demo"
+        "/register"
     };
 
+    // open only on the management connector (management.server.port/address, internal by default)
+    private static final Set<String> ACTUATOR_PROBES = Set.of("/actuator/health", "/actuator/prometheus");
+
+    private static final String[] PUBLIC_ENDPOINTS = Stream.concat(Arrays.stream(STATIC_ROUTES), Stream.of(
+        "/error",
+        "/api/auth/register",
+        "/api/csrf",
+        "/api/demo"
+    )).toArray(String[]::new);
+
+    /**
+     * Lightweight chain for public GETs of the SPA and its assets: security headers, CORS, the
+     * request trace and the in-memory asset server, but no session lookup, CSRF token, request
+     * cache, anonymous principal or authorization. Route selection is {@link PublicRouteIndex}.
+     * Everything else, and every other method, falls through to securityFilterChain.
+     */
+    @Bean
+    @Order(0)
+    @ConditionalOnProperty(name = "app.security.static-fast-path", havingValue = "true", matchIfMissing = true)
+    public SecurityFilterChain staticFilterChain(HttpSecurity http,
+                                                 CorsConfigurationSource corsConfigurationSource,
+                                                 OncePerRequestFilter requestTraceFilter,
+                                                 OncePerRequestFilter staticAssetFilter) throws Exception {
+        http
+            .securityMatcher(PublicRouteIndex.compile(STATIC_ROUTES))
+            .cors(cors -> cors.configurationSource(corsConfigurationSource))
+            .csrf(csrf -> csrf.disable())
+            .securityContext(context -> context.disable())
+            .sessionManagement(session -> session.disable())
+            .requestCache(cache -> cache.disable())
+            .anonymous(anonymous -> anonymous.disable())
+            .servletApi(servletApi -> servletApi.disable())
+            .exceptionHandling(exceptions -> exceptions.disable())
+            .formLogin(form -> form.disable())
+            .logout(logout -> logout.disable())
+            .addFilterBefore(requestTraceFilter, HeaderWriterFilter.class)
+            .addFilterAfter(staticAssetFilter, CorsFilter.class);
+
+        return http.build();
+    }
+
    @Bean
     public SecurityFilterChain securityFilterChain(HttpSecurity http,
                                                    AuthenticationManager authManager,
                                                    DaoAuthenticationProvider authProvider,
                                                    CorsConfigurationSource corsConfigurationSource,
+                                                   OncePerRequestFilter concurrencyLimitFilter,
                                                    OncePerRequestFilter originCheckFilter,
-                                                   OncePerRequestFilter debugSessionFilter) throws Exception {
-
-        CookieCsrfTokenRepository tokenRepository = CookieCsrfTokenRepository.withHttpOnlyFalse();
-        tokenRepository.setCookieCustomizer(cookie -> cookie.httpOnly(false).secure(false).sameSite("Lax").path("/"));
+                                                   OncePerRequestFilter requestTraceFilter,
+                                                   OncePerRequestFilter loginThrottleFilter,
+                                                   OncePerRequestFilter bearerTokenFilter,
+                                                   OncePerRequestFilter staticAssetFilter,
+                                                   LoginThrottle loginThrottle,
+                                                   LoginMetrics loginMetrics,
+                                                   SignedTokenService tokens,
+                                                   HmacCsrfTokenRepository hmacCsrfTokenRepository,
+                                                   AuditLog auditLog) throws Exception {
+
+        // hmac: stateless signed tokens, stable per session; cookie: Spring's random cookie token
+        boolean hmacCsrf = !"cookie".equalsIgnoreCase(csrfMode);
+        CsrfTokenRepository tokenRepository = hmacCsrf ? hmacCsrfTokenRepository : cookieCsrfTokenRepository();
 
         CsrfTokenRequestAttributeHandler requestHandler = new CsrfTokenRequestAttributeHandler();
         requestHandler.setCsrfRequestAttributeName("_csrf");
 
-        RequestMatcher csrfIgnore = request -> "POST".equalsIgnoreCase(request.getMethod()) && "/api/csrf".equals(request.getRequestURI());
+        // bearer tokens are never sent ambiently by the browser, so they need no CSRF token
+        RequestMatcher csrfIgnore = request -> ("POST".equalsIgnoreCase(request.getMethod()) && "/api/csrf".equals(request.getRequestURI()))
+                || (tokens.isEnabled() && FilterConfig.bearerToken(request) != null);
 
         JsonUsernamePasswordAuthFilter jsonFilter = new JsonUsernamePasswordAuthFilter("/api/auth/login", authManager);
+        jsonFilter.setLoginThrottle(loginThrottle);
+        jsonFilter.setLoginMetrics(loginMetrics);
+        jsonFilter.setAuditLog(auditLog);
+        jsonFilter.setCredentialsParser(new LoginCredentialsParser(loginMaxBodyBytes, loginMaxDepth));
 
         jsonFilter.setAuthenticationSuccessHandler((request, response, authentication) -> {
+            if (tokens.isEnabled() && authentication.getPrincipal() instanceof CustomUserDetails principal) {
+                // token mode: no session, the client sends the token back as a bearer header
+                String token = loginMetrics.stage(LoginMetrics.Stage.TOKEN_ISSUE).record(() -> tokens.issue(principal));
+                response.setStatus(HttpServletResponse.SC_OK);
+                response.setContentType("application/json");
+                response.getWriter().write("{\"status\":\"success\",\"user\":\"" + authentication.getName()
+                        + "\",\"token\":\"" + token
+                        + "\",\"tokenType\":\"Bearer\",\"expiresIn\":" + tokens.getTtl().toSeconds() + "}");
+                response.getWriter().flush();
+                return;
+            }
+
+            long sessionStart = System.nanoTime();
             HttpSession session = request.getSession(true); // force session creation
 
             SecurityContext context = SecurityContextHolder.createEmptyContext();
             context.setAuthentication(authentication);
             SecurityContextHolder.setContext(context);
             new HttpSessionSecurityContextRepository().saveContext(context, request, response);
+            if (hmacCsrf) {
+                // the pre-login token was bound to no session; hand over the new session's token
+                hmacCsrfTokenRepository.saveToken(hmacCsrfTokenRepository.generateToken(request), request, response);
+            }
 
             logger.info("Session created for user {} with ID {}", authentication.getName(), session.getId());
+            Long userId = authentication.getPrincipal() instanceof CustomUserDetails principal ? principal.getId() : null;
+            auditLog.record(AuditEventType.SESSION_CREATED, userId, authentication.getName(), request.getRemoteAddr(), null);
 
             response.setStatus(HttpServletResponse.SC_OK);
             response.setContentType("application/json");
             response.getWriter().write("{\"status\":\"success\",\"user\":\"" + authentication.getName() + "\"}");
-            response.getWriter().flush();
+            response.getWriter().flush(); // commits the response, which is when a JDBC session row is written
+            loginMetrics.stage(LoginMetrics.Stage.SESSION_SAVE).record(System.nanoTime() - sessionStart, TimeUnit.NANOSECONDS);
         });
 
         jsonFilter.setAuthenticationFailureHandler((request, response, exception) -> {
@@ -95,15 +208,38 @@ public class SecurityConfig {
         http
             .cors(cors -> cors.configurationSource(corsConfigurationSource))
             .csrf(csrf -> csrf.csrfTokenRepository(tokenRepository).csrfTokenRequestHandler(requestHandler).ignoringRequestMatchers(csrfIgnore))
-            .authorizeHttpRequests(auth -> auth.requestMatchers(PUBLIC_ENDPOINTS).permitAll().anyRequest().authenticated())
+            .authorizeHttpRequests(auth -> auth.requestMatchers(PUBLIC_ENDPOINTS).permitAll()
+                    .requestMatchers(this::isManagementProbe).permitAll()
+                    .requestMatchers("/api/users/search").hasAnyRole("ADMIN", "AGENT")
+                    .requestMatchers("/api/admin/**", "/api/users", "/api/users/**").hasRole("ADMIN")
+                    .anyRequest().authenticated())
             .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.IF_REQUIRED))
             .authenticationProvider(authProvider)
             .formLogin(form -> form.disable())
             .logout(logout -> logout.disable())
+            .addFilterBefore(concurrencyLimitFilter, DisableEncodeUrlFilter.class)
             .addFilterAt(jsonFilter, UsernamePasswordAuthenticationFilter.class)
+            .addFilterBefore(loginThrottleFilter, UsernamePasswordAuthenticationFilter.class)
             .addFilterBefore(originCheckFilter, CsrfFilter.class)
-            .addFilterBefore(debugSessionFilter, org.springframework.security.web.context.SecurityContextPersistenceFilter.class);
+            .addFilterBefore(bearerTokenFilter, CsrfFilter.class)
+            .addFilterAfter(requestTraceFilter, SecurityContextHolderFilter.class)
+            .addFilterAfter(staticAssetFilter, AuthorizationFilter.class);
 
         return http.build();
     }
+
+    /**
+     * Health and Prometheus on the separate management port, which the default configuration
+     * binds to loopback. On the public port (or when both ports are the same) they need a login.
+     */
+    private boolean isManagementProbe(HttpServletRequest request) {
+        return managementPort > 0 && managementPort != serverPort && request.getLocalPort() == managementPort
+                && ACTUATOR_PROBES.contains(request.getRequestURI());
+    }
+
+    private static CsrfTokenRepository cookieCsrfTokenRepository() {
+        CookieCsrfTokenRepository tokenRepository = CookieCsrfTokenRepository.withHttpOnlyFalse();
+        tokenRepository.setCookieCustomizer(cookie -> cookie.httpOnly(false).secure(false).sameSite("Lax").path("/"));
+        return tokenRepository;
+    }
 }
@@ -0,0 +1,40 @@
+package app.config;
+
+import java.time.Duration;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.session.config.annotation.web.http.EnableSpringHttpSession;
+import org.springframework.session.web.http.CookieSerializer;
+import org.springframework.session.web.http.DefaultCookieSerializer;
+
+import app.session.JdbcCompactSessionRepository;
+
+/**
+ * Externalized sessions (app.session.store=jdbc): HttpSession is backed by the app_session table
+ * instead of Tomcat's in-memory map, so the app can run on several nodes. With
+ * app.session.store=memory this configuration is skipped and Tomcat keeps the sessions.
+ */
+@Configuration
+@EnableSpringHttpSession
+@ConditionalOnProperty(name = "app.session.store", havingValue = "jdbc", matchIfMissing = true)
+public class SessionConfig {
+
+    @Bean
+    public JdbcCompactSessionRepository sessionRepository(JdbcTemplate jdbcTemplate,
+            @Value("${server.servlet.session.timeout:30m}") Duration timeout) {
+        return new JdbcCompactSessionRepository(jdbcTemplate, timeout);
+    }
+
+    @Bean
+    public CookieSerializer cookieSerializer() {
+        // keep the cookie name clients already know
+        DefaultCookieSerializer serializer = new DefaultCookieSerializer();
+        serializer.setCookieName("JSESSIONID");
+        serializer.setSameSite("Lax");
+        return serializer;
+    }
+}
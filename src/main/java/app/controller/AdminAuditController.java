@@ -0,0 +1,46 @@
+package app.controller;
+
+import app.audit.AuditEventType;
+import app.dto.AuditEntry;
+import app.dto.AuditPage;
+import app.repository.AuditEventRepository;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+/**
+ * Admin-only authentication audit trail; /api/admin/** requires ROLE_ADMIN (see SecurityConfig).
+ * Events are written behind the request, so the newest ones appear within app.audit.flush-interval.
+ */
+@RestController
+@RequestMapping("/api/admin/audit")
+public class AdminAuditController {
+
+    private static final int MAX_PAGE_SIZE = 500;
+
+    private final AuditEventRepository auditEventRepository;
+
+    public AdminAuditController(AuditEventRepository auditEventRepository) {
+        this.auditEventRepository = auditEventRepository;
+    }
+
+    /** Newest first. Keyset pagination: pass the previous nextCursor as before. */
+    @GetMapping
+    public ResponseEntity<AuditPage> list(@RequestParam(required = false) Long before,
+                                          @RequestParam(required = false) AuditEventType type,
+                                          @RequestParam(required = false) String email,
+                                          @RequestParam(defaultValue = "50") int limit) {
+        int size = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        // one extra row tells whether another page exists without a COUNT query
+        List<AuditEntry> rows = auditEventRepository.findPage(before, type, email, size + 1);
+        if (rows.size() <= size) {
+            return ResponseEntity.ok(new AuditPage(rows, null));
+        }
+        List<AuditEntry> page = rows.subList(0, size);
+        return ResponseEntity.ok(new AuditPage(page, page.get(size - 1).id()));
+    }
+}
@@ -0,0 +1,58 @@
+package app.controller;
+
+import app.concurrency.StreamingResponses;
+import app.service.BulkUserRegistrationService;
+import app.service.RegisteredEmailFilter;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * Admin-only user management; /api/admin/** requires ROLE_ADMIN (see SecurityConfig).
+ */
+@RestController
+@RequestMapping("/api/admin/users")
+public class AdminUserController {
+
+    private static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
+
+    private final BulkUserRegistrationService bulkRegistration;
+    private final RegisteredEmailFilter emailFilter;
+    private final Duration bulkTimeout;
+
+    public AdminUserController(BulkUserRegistrationService bulkRegistration, RegisteredEmailFilter emailFilter,
+                               @Value("${app.admin.bulk.timeout:30m}") Duration bulkTimeout) {
+        this.bulkRegistration = bulkRegistration;
+        this.emailFilter = emailFilter;
+        this.bulkTimeout = bulkTimeout;
+    }
+
+    /**
+     * Registers users from a JSON array or NDJSON body and streams one NDJSON result per row
+     * back while the rest of the body is still being read. The import keeps its /api/admin/**
+     * permit until it has stopped, and stops at the next chunk once the request timed out.
+     */
+    @PostMapping("/bulk")
+    public ResponseEntity<StreamingResponseBody> bulkRegister(HttpServletRequest request) {
+        StreamingResponseBody body = StreamingResponses.bounded(request, bulkTimeout,
+                out -> bulkRegistration.register(request.getInputStream(), out));
+        return ResponseEntity.ok().contentType(NDJSON).body(body);
+    }
+
+    /** Reloads the registration email filter, e.g. after bulk deletes or past its expected size. */
+    @PostMapping("/email-filter/rebuild")
+    public ResponseEntity<Map<String, Object>> rebuildEmailFilter() {
+        long emails = emailFilter.rebuild();
+        return ResponseEntity.ok(Map.of(
+                "emails", emails,
+                "falsePositiveRate", emailFilter.expectedFalsePositiveRate()));
+    }
+}
@@ -1,8 +1,16 @@
 package app.controller;
 
+import app.audit.AuditEventType;
+import app.audit.AuditLog;
+import app.datasource.ReplicaRoutingDataSource;
 import app.model.User;
 import app.model.UserRole;
 import app.repository.UserRepository;
+import app.security.PasswordHashingRejectedException;
+import app.service.RegisteredEmailFilter;
+import org.hibernate.exception.ConstraintViolationException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.authentication.AuthenticationManager;
@@ -11,8 +19,11 @@ import org.springframework.security.core.Authentication;
 import org.springframework.security.core.AuthenticationException;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
 
 import java.util.HashMap;
+import java.util.Locale;
 import java.util.Map;
 
 @RestController
@@ -22,13 +33,19 @@ public class AuthController {
     private final UserRepository userRepository;
     private final PasswordEncoder passwordEncoder;
     private final AuthenticationManager authenticationManager;
+    private final RegisteredEmailFilter emailFilter;
+    private final AuditLog auditLog;
 
     public AuthController(UserRepository userRepository,
                           PasswordEncoder passwordEncoder,
-                          AuthenticationManager authenticationManager) {
+                          AuthenticationManager authenticationManager,
+                          RegisteredEmailFilter emailFilter,
+                          AuditLog auditLog) {
         this.userRepository = userRepository;
         this.passwordEncoder = passwordEncoder;
         this.authenticationManager = authenticationManager;
+        this.emailFilter = emailFilter;
+        this.auditLog = auditLog;
     }
 
     @PostMapping("/login")
@@ -52,6 +69,8 @@ public class AuthController {
             response.put("user", authentication.getName());
 
             return ResponseEntity.ok(response);
+        } catch (PasswordHashingRejectedException ex) {
+            throw ex;
         } catch (AuthenticationException ex) {
             return ResponseEntity
                     .status(HttpStatus.UNAUTHORIZED)
@@ -71,10 +90,17 @@ public class AuthController {
                     .body(Map.of("message", "Name, email and password are required"));
         }
 
-        if (userRepository.findByEmail(email).isPresent()) {
+        if (name.length() > 100 || email.length() > 100) {
             return ResponseEntity
-                    .status(HttpStatus.CONFLICT)
-                    .body(Map.of("message", "Email already registered"));
+                    .status(HttpStatus.BAD_REQUEST)
+                    .body(Map.of("message", "Name and email must be at most 100 characters"));
+        }
+
+        // the filter clears most new emails without a query; "maybe" answers are probed
+        // (on the primary, which the insert below will hit anyway) before paying for the hash
+        if (emailFilter.mightContain(email)
+                && ReplicaRoutingDataSource.usePrimary(() -> userRepository.existsByEmail(email))) {
+            return emailTaken();
         }
 
         User user = new User();
@@ -83,7 +109,17 @@ public class AuthController {
         user.setPassword(passwordEncoder.encode(rawPassword));
         user.setRole(UserRole.USER); // default role
 
-        userRepository.save(user);
+        // insert first: the unique constraint settles concurrent signups for the same email
+        try {
+            userRepository.saveAndFlush(user);
+        } catch (DataIntegrityViolationException ex) {
+            if (!isDuplicateEmail(ex)) {
+                throw ex;
+            }
+            emailFilter.add(email);
+            return emailTaken();
+        }
+        auditLog.record(AuditEventType.REGISTRATION, user.getId(), email, remoteAddress(), null);
 
         Map<String, String> response = new HashMap<>();
         response.put("message", "User registered successfully");
@@ -91,4 +127,30 @@ public class AuthController {
 
         return ResponseEntity.status(HttpStatus.CREATED).body(response);
     }
+
+    private static String remoteAddress() {
+        return RequestContextHolder.getRequestAttributes() instanceof ServletRequestAttributes attributes
+                ? attributes.getRequest().getRemoteAddr() : null;
+    }
+
+    private static ResponseEntity<Map<String, String>> emailTaken() {
+        return ResponseEntity
+                .status(HttpStatus.CONFLICT)
+                .body(Map.of("message", "Email already registered"));
+    }
+
+    private static boolean isDuplicateEmail(DataIntegrityViolationException ex) {
+        String constraint = ex.getCause() instanceof ConstraintViolationException violation
+                ? violation.getConstraintName() : null;
+        String detail = constraint != null ? constraint : String.valueOf(ex.getMostSpecificCause().getMessage());
+        return detail.toLowerCase(Locale.ROOT).contains(User.EMAIL_CONSTRAINT);
+    }
+
+    @ExceptionHandler(PasswordHashingRejectedException.class)
+    public ResponseEntity<Map<String, String>> hashingRejected(PasswordHashingRejectedException ex) {
+        return ResponseEntity
+                .status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(ex.getRetryAfterSeconds()))
+                .body(Map.of("message", "Server busy, retry later"));
+    }
 }
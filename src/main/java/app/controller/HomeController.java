@@ -1,14 +0,0 @@
-package app.controller;
-
-import org.springframework.stereotype.Controller;
-import org.springframework.web.bind.annotation.RequestMapping;
-
-@Controller
-public class HomeController {
-
-    // Catch-all for non-API routes
-    @RequestMapping({"/{path:[^\\.]*}", "/**/{path:[^\\.]*}"})
-    public String forward() {
-        return "forward:/index.html";
-    }
-}
\ No newline at end of file
@@ -1,24 +1,115 @@
 package app.controller;
 
-import app.dto.UserInfo;
+import app.concurrency.StreamingResponses;
+import app.dto.UserMatch;
+import app.dto.UserPage;
+import app.dto.UserSummary;
+import app.repository.UserExportRepository;
+import app.repository.UserRepository;
 import app.security.CustomUserDetails;
+import app.security.UserResponseCache;
+import app.service.UserSearchIndex;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.time.Duration;
+import java.util.List;
 
 @RestController
 @RequestMapping("/api")
 public class UserController {
 
+    private static final int MAX_PAGE_SIZE = 500;
+    private static final int MAX_SUGGESTIONS = 50;
+    private static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
+    private static final CacheControl CURRENT_USER_CACHE_CONTROL = CacheControl.noCache().cachePrivate();
+
+    private final UserRepository userRepository;
+    private final UserExportRepository userExportRepository;
+    private final UserSearchIndex userSearchIndex;
+    private final UserResponseCache userResponseCache;
+    private final Duration exportTimeout;
+
+    public UserController(UserRepository userRepository, UserExportRepository userExportRepository,
+                          UserSearchIndex userSearchIndex, UserResponseCache userResponseCache,
+                          @Value("${app.users.export.timeout:15m}") Duration exportTimeout) {
+        this.userRepository = userRepository;
+        this.userExportRepository = userExportRepository;
+        this.userSearchIndex = userSearchIndex;
+        this.userResponseCache = userResponseCache;
+        this.exportTimeout = exportTimeout;
+    }
+
+    /**
+     * Writes the user's cached JSON bytes as-is (no DTO, no Jackson pass) and answers 304 when
+     * the client already holds the same ETag.
+     */
     @GetMapping("/user")
-    public ResponseEntity<UserInfo> currentUser(Authentication authentication) {
+    public ResponseEntity<byte[]> currentUser(Authentication authentication, WebRequest request) {
         if (authentication == null || !authentication.isAuthenticated()) {
             return ResponseEntity.status(403).build();
         }
 
-        CustomUserDetails user = (CustomUserDetails) authentication.getPrincipal();
-        return ResponseEntity.ok(new UserInfo(user));
+        UserResponseCache.Rendered user = userResponseCache.get((CustomUserDetails) authentication.getPrincipal());
+        if (request.checkNotModified(user.etag())) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .cacheControl(CURRENT_USER_CACHE_CONTROL)
+                    .eTag(user.etag())
+                    .build();
+        }
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .cacheControl(CURRENT_USER_CACHE_CONTROL)
+                .eTag(user.etag())
+                .body(user.json());
+    }
+
+    /** ADMIN only (see SecurityConfig). Keyset pagination: pass the previous nextCursor as after. */
+    @GetMapping("/users")
+    public ResponseEntity<UserPage> listUsers(@RequestParam(defaultValue = "0") long after,
+                                              @RequestParam(defaultValue = "50") int limit) {
+        int size = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        // one extra row tells whether another page exists without a COUNT query
+        List<UserSummary> rows = userRepository.findPageAfter(after, Limit.of(size + 1));
+        if (rows.size() <= size) {
+            return ResponseEntity.ok(new UserPage(rows, null));
+        }
+        List<UserSummary> page = rows.subList(0, size);
+        return ResponseEntity.ok(new UserPage(page, page.get(size - 1).id()));
+    }
+
+    /** ADMIN and AGENT. Type-ahead over name, name words and email, answered from memory. */
+    @GetMapping("/users/search")
+    public ResponseEntity<List<UserMatch>> searchUsers(@RequestParam("q") String query,
+                                                       @RequestParam(defaultValue = "10") int limit) {
+        int size = Math.max(1, Math.min(limit, MAX_SUGGESTIONS));
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.noStore())
+                .body(userSearchIndex.search(query, size));
+    }
+
+    /**
+     * ADMIN only. Whole table as NDJSON, streamed from a database cursor. Each export holds a
+     * pool connection, so its concurrency permit is kept until the stream ends.
+     */
+    @GetMapping("/users/export")
+    public ResponseEntity<StreamingResponseBody> exportUsers(HttpServletRequest request) {
+        StreamingResponseBody body = StreamingResponses.bounded(request, exportTimeout, userExportRepository::exportTo);
+        return ResponseEntity.ok()
+                .contentType(NDJSON)
+                .header("Content-Disposition", "attachment; filename=\"users.ndjson\"")
+                .body(body);
     }
 }
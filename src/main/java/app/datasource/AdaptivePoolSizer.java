@@ -0,0 +1,173 @@
+package app.datasource;
+
+import com.zaxxer.hikari.HikariConfigMXBean;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Resizes each Hikari pool between its configured maximum-pool-size (the floor) and
+ * app.datasource.pool.max-size from what the pool went through over the last window.
+ * <ul>
+ * <li>Grow by grow-step when a request waited for a connection: threads were pending at a
+ * sample, or the mean hikaricp.connections.acquire time exceeded target-wait. Hikari opens the
+ * extra connections on the next acquire that finds the pool empty.</li>
+ * <li>Shrink by one after shrink-after quiet windows in which the peak number of borrowed
+ * connections stayed below low-utilization of the size. Connections above the new size are
+ * retired by Hikari once idle for idle-timeout.</li>
+ * </ul>
+ * Sizes and decisions are published as app.datasource.pool.* meters. Every node sizes its own
+ * pools, so max-size times the number of nodes must stay below the server's max_connections.
+ */
+@Component
+public class AdaptivePoolSizer {
+
+    private static final Logger logger = LoggerFactory.getLogger(AdaptivePoolSizer.class);
+
+    private final List<PoolState> pools;
+    private final MeterRegistry meterRegistry;
+    private final boolean enabled;
+    private final int maxSize;
+    private final int growStep;
+    private final long targetWaitNanos;
+    private final double lowUtilization;
+    private final int shrinkAfter;
+
+    /** What one pool went through since its last decision. */
+    private final class PoolState {
+        final HikariDataSource dataSource;
+        final int floor;
+        final int ceiling;
+        final Counter grown;
+        final Counter shrunk;
+        int peakActive;
+        int peakPending;
+        long acquireCount;
+        double acquireNanos;
+        volatile double lastMeanWaitSeconds;
+        int quietWindows;
+
+        PoolState(HikariDataSource dataSource) {
+            this.dataSource = dataSource;
+            this.floor = dataSource.getMaximumPoolSize();
+            this.ceiling = Math.max(floor, maxSize);
+            String name = dataSource.getPoolName();
+            this.grown = Counter.builder("app.datasource.pool.resizes").tag("pool", name).tag("direction", "grow")
+                    .description("Pool size changes made by the adaptive sizer").register(meterRegistry);
+            this.shrunk = Counter.builder("app.datasource.pool.resizes").tag("pool", name).tag("direction", "shrink")
+                    .description("Pool size changes made by the adaptive sizer").register(meterRegistry);
+            Gauge.builder("app.datasource.pool.size", dataSource, HikariDataSource::getMaximumPoolSize).tag("pool", name)
+                    .description("Current maximum-pool-size").register(meterRegistry);
+            Gauge.builder("app.datasource.pool.acquire.mean", this, state -> state.lastMeanWaitSeconds).tag("pool", name)
+                    .baseUnit("seconds").description("Mean connection acquire time over the last sizing window")
+                    .register(meterRegistry);
+        }
+    }
+
+    public AdaptivePoolSizer(List<HikariDataSource> dataSources, MeterRegistry meterRegistry,
+                             @Value("${app.datasource.pool.adaptive:true}") boolean enabled,
+                             @Value("${app.datasource.pool.max-size:20}") int maxSize,
+                             @Value("${app.datasource.pool.grow-step:2}") int growStep,
+                             @Value("${app.datasource.pool.target-wait:5ms}") Duration targetWait,
+                             @Value("${app.datasource.pool.low-utilization:0.5}") double lowUtilization,
+                             @Value("${app.datasource.pool.shrink-after:6}") int shrinkAfter) {
+        this.meterRegistry = meterRegistry;
+        this.enabled = enabled;
+        this.maxSize = maxSize;
+        this.growStep = growStep;
+        this.targetWaitNanos = targetWait.toNanos();
+        this.lowUtilization = lowUtilization;
+        this.shrinkAfter = shrinkAfter;
+        this.pools = dataSources.stream().map(PoolState::new).toList();
+    }
+
+    /** Records the pool's peak demand; a single sample per window would miss short bursts. */
+    @Scheduled(fixedDelayString = "${app.datasource.pool.sample-interval:1s}")
+    public synchronized void sample() {
+        if (!enabled) {
+            return;
+        }
+        for (PoolState pool : pools) {
+            HikariPoolMXBean stats = pool.dataSource.getHikariPoolMXBean();
+            if (stats != null) {
+                pool.peakActive = Math.max(pool.peakActive, stats.getActiveConnections());
+                pool.peakPending = Math.max(pool.peakPending, stats.getThreadsAwaitingConnection());
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.datasource.pool.window:10s}")
+    public synchronized void adjust() {
+        if (!enabled) {
+            return;
+        }
+        sample();
+        for (PoolState pool : pools) {
+            if (pool.dataSource.getHikariPoolMXBean() != null) {
+                adjust(pool);
+            }
+            pool.peakActive = 0;
+            pool.peakPending = 0;
+        }
+    }
+
+    private void adjust(PoolState pool) {
+        long meanWaitNanos = meanAcquireNanos(pool);
+        pool.lastMeanWaitSeconds = meanWaitNanos / 1e9;
+        HikariConfigMXBean config = pool.dataSource.getHikariConfigMXBean();
+        int size = config.getMaximumPoolSize();
+
+        if (pool.peakPending > 0 || meanWaitNanos > targetWaitNanos) {
+            pool.quietWindows = 0;
+            if (size < pool.ceiling) {
+                int grown = Math.min(pool.ceiling, size + growStep);
+                config.setMaximumPoolSize(grown);
+                pool.grown.increment();
+                logger.info("Pool {} grown from {} to {} ({} waiting, mean acquire {} us)", pool.dataSource.getPoolName(),
+                        size, grown, pool.peakPending, meanWaitNanos / 1000);
+            }
+        } else if (size > pool.floor && pool.peakActive < size * lowUtilization) {
+            if (++pool.quietWindows >= shrinkAfter) {
+                pool.quietWindows = 0;
+                int shrunk = size - 1;
+                if (config.getMinimumIdle() > shrunk) {
+                    config.setMinimumIdle(shrunk);
+                }
+                config.setMaximumPoolSize(shrunk);
+                pool.shrunk.increment();
+                logger.info("Pool {} shrunk from {} to {} (peak {} in use)", pool.dataSource.getPoolName(),
+                        size, shrunk, pool.peakActive);
+            }
+        } else {
+            pool.quietWindows = 0;
+        }
+    }
+
+    /** Mean hikaricp.connections.acquire time since the previous window; 0 without pool metrics. */
+    private long meanAcquireNanos(PoolState pool) {
+        Timer acquire = meterRegistry.find("hikaricp.connections.acquire")
+                .tag("pool", pool.dataSource.getPoolName()).timer();
+        if (acquire == null) {
+            return 0;
+        }
+        long count = acquire.count();
+        double nanos = acquire.totalTime(TimeUnit.NANOSECONDS);
+        long acquisitions = count - pool.acquireCount;
+        double waited = nanos - pool.acquireNanos;
+        pool.acquireCount = count;
+        pool.acquireNanos = nanos;
+        return acquisitions > 0 ? (long) (waited / acquisitions) : 0;
+    }
+}
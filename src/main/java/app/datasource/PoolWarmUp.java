@@ -0,0 +1,87 @@
+package app.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Opens every pool's minimum-idle connections before the web server starts accepting requests,
+ * so the first requests after boot find open connections (TCP, TLS, authentication and session
+ * setup already done) instead of waiting for Hikari's background fill. Connections are borrowed
+ * all at once, which makes the pool create them, then handed back. A database that is slow or
+ * down only costs the warm-up (logged); it does not fail startup.
+ */
+@Component
+public class PoolWarmUp implements SmartLifecycle {
+
+    private static final Logger logger = LoggerFactory.getLogger(PoolWarmUp.class);
+
+    private final List<HikariDataSource> pools;
+    private final boolean enabled;
+    private volatile boolean running;
+
+    public PoolWarmUp(List<HikariDataSource> pools,
+                      @Value("${app.datasource.warm-up.enabled:true}") boolean enabled) {
+        this.pools = pools;
+        this.enabled = enabled;
+    }
+
+    @Override
+    public void start() {
+        if (enabled) {
+            pools.forEach(PoolWarmUp::warm);
+        }
+        running = true;
+    }
+
+    /** Returns the number of connections borrowed. */
+    static int warm(HikariDataSource pool) {
+        long started = System.nanoTime();
+        List<Connection> borrowed = new ArrayList<>();
+        int target = 1; // minimum-idle is only resolved once the first borrow has started the pool
+        try {
+            while (borrowed.size() < target) {
+                borrowed.add(pool.getConnection());
+                target = Math.min(pool.getMinimumIdle(), pool.getMaximumPoolSize());
+            }
+        } catch (SQLException ex) {
+            logger.warn("Pool {} warm-up stopped after {} of {} connections: {}",
+                    pool.getPoolName(), borrowed.size(), target, ex.getMessage());
+        } finally {
+            for (Connection connection : borrowed) {
+                try {
+                    connection.close();
+                } catch (SQLException ex) {
+                    logger.debug("Could not return warm-up connection", ex);
+                }
+            }
+        }
+        logger.info("Pool {} warmed with {} connections in {} ms", pool.getPoolName(), borrowed.size(),
+                (System.nanoTime() - started) / 1_000_000);
+        return borrowed.size();
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    /** Before the web server (and the audit writer) start. */
+    @Override
+    public int getPhase() {
+        return SmartLifecycle.DEFAULT_PHASE - 8192;
+    }
+}
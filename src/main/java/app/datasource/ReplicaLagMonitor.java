@@ -0,0 +1,100 @@
+package app.datasource;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import javax.sql.DataSource;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Measures replica lag with a heartbeat row: every probe reads the replica's copy of
+ * replica_heartbeat, then advances the primary's copy to now. The lag is the age of the
+ * replica's copy, so it reads up to one probe interval high, and clocks of the nodes writing
+ * beats must be in sync to within a fraction of max-lag. The replica is usable while the lag
+ * is at most app.datasource.replica.max-lag; it starts unusable until the first good probe.
+ */
+public class ReplicaLagMonitor implements MeterBinder {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReplicaLagMonitor.class);
+
+    private final JdbcTemplate primary;
+    private final JdbcTemplate replica;
+    private final Duration maxLag;
+    private Clock clock = Clock.systemUTC();
+
+    private volatile boolean usable;
+    private volatile long lagMillis = -1;
+
+    public ReplicaLagMonitor(DataSource primary, DataSource replica, Duration maxLag) {
+        this.primary = new JdbcTemplate(primary);
+        this.replica = new JdbcTemplate(replica);
+        this.replica.setQueryTimeout(2);
+        this.maxLag = maxLag;
+    }
+
+    void setClock(Clock clock) {
+        this.clock = clock;
+    }
+
+    public boolean isReplicaUsable() {
+        return usable;
+    }
+
+    /** Last measured lag in milliseconds, or -1 if the replica could not be read. */
+    public long getLagMillis() {
+        return lagMillis;
+    }
+
+    @Scheduled(fixedDelayString = "${app.datasource.replica.probe-interval:1s}")
+    public void probe() {
+        long now = clock.millis();
+        long lag;
+        try {
+            List<Long> beat = replica.queryForList("SELECT beat_millis FROM replica_heartbeat WHERE id = 1", Long.class);
+            lag = beat.isEmpty() ? -1 : Math.max(0, now - beat.get(0));
+        } catch (DataAccessException ex) {
+            logger.debug("Replica probe failed", ex);
+            lag = -1;
+        }
+        try {
+            if (primary.update("UPDATE replica_heartbeat SET beat_millis = GREATEST(beat_millis, ?) WHERE id = 1", now) == 0) {
+                primary.update("INSERT INTO replica_heartbeat (id, beat_millis) VALUES (1, ?)", now);
+            }
+        } catch (DuplicateKeyException ex) {
+            // another node inserted the row first
+        } catch (DataAccessException ex) {
+            logger.warn("Could not write replica heartbeat: {}", ex.getMostSpecificCause().getMessage());
+        }
+
+        boolean nowUsable = lag >= 0 && lag <= maxLag.toMillis();
+        if (nowUsable != usable) {
+            if (nowUsable) {
+                logger.info("Replica usable again (lag {} ms)", lag);
+            } else {
+                logger.warn("Replica reads moved to the primary (lag {})", lag < 0 ? "unknown" : lag + " ms");
+            }
+        }
+        lagMillis = lag;
+        usable = nowUsable;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("app.datasource.replica.lag", this, monitor -> monitor.lagMillis / 1000.0)
+                .description("Age of the replica heartbeat; negative when the replica cannot be read")
+                .baseUnit("seconds")
+                .register(registry);
+        Gauge.builder("app.datasource.replica.usable", this, monitor -> monitor.usable ? 1 : 0)
+                .description("1 while read-only transactions are routed to the replica")
+                .register(registry);
+    }
+}
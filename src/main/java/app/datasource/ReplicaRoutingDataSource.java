@@ -0,0 +1,82 @@
+package app.datasource;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import javax.sql.DataSource;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Sends read-only transactions to the replica pool and everything else to the primary.
+ * <p>
+ * Must sit behind a LazyConnectionDataSourceProxy: the JPA transaction manager asks for a
+ * connection before the transaction's read-only flag is published, so the target is chosen when
+ * the first statement runs. Reads fall back to the primary while {@link ReplicaLagMonitor}
+ * reports the replica as too far behind or unreachable, inside {@link #usePrimary(Supplier)},
+ * and for the rest of an HTTP request that has run a read-write transaction (so a request
+ * reads its own writes). Plain JDBC work outside a transaction, such as the session store,
+ * always uses the primary.
+ */
+public final class ReplicaRoutingDataSource extends AbstractRoutingDataSource {
+
+    enum Target { PRIMARY, REPLICA }
+
+    private static final String PINNED = ReplicaRoutingDataSource.class.getName() + ".PINNED";
+    private static final ThreadLocal<Integer> forcedPrimary = ThreadLocal.withInitial(() -> 0);
+
+    private final ReplicaLagMonitor lagMonitor;
+
+    public ReplicaRoutingDataSource(DataSource primary, DataSource replica, ReplicaLagMonitor lagMonitor) {
+        this.lagMonitor = lagMonitor;
+        setTargetDataSources(Map.of(Target.PRIMARY, primary, Target.REPLICA, replica));
+        setDefaultTargetDataSource(primary);
+        setLenientFallback(false);
+    }
+
+    /**
+     * Runs the work with every read on the primary, for lookups that must see data committed
+     * moments ago. Costs nothing when no replica is configured.
+     */
+    public static <T> T usePrimary(Supplier<T> work) {
+        int depth = forcedPrimary.get();
+        forcedPrimary.set(depth + 1);
+        try {
+            return work.get();
+        } finally {
+            if (depth == 0) {
+                forcedPrimary.remove();
+            } else {
+                forcedPrimary.set(depth);
+            }
+        }
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            if (TransactionSynchronizationManager.isActualTransactionActive()) {
+                pinRequest();
+            }
+            return Target.PRIMARY;
+        }
+        if (forcedPrimary.get() > 0 || isRequestPinned() || !lagMonitor.isReplicaUsable()) {
+            return Target.PRIMARY;
+        }
+        return Target.REPLICA;
+    }
+
+    private static void pinRequest() {
+        RequestAttributes request = RequestContextHolder.getRequestAttributes();
+        if (request != null) {
+            request.setAttribute(PINNED, Boolean.TRUE, RequestAttributes.SCOPE_REQUEST);
+        }
+    }
+
+    private static boolean isRequestPinned() {
+        RequestAttributes request = RequestContextHolder.getRequestAttributes();
+        return request != null && request.getAttribute(PINNED, RequestAttributes.SCOPE_REQUEST) != null;
+    }
+}
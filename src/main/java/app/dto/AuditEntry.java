@@ -0,0 +1,8 @@
+package app.dto;
+
+import java.time.Instant;
+
+/** One auth_audit row as returned by GET /api/admin/audit. */
+public record AuditEntry(long id, Instant occurredAt, String type, Long userId, String email,
+                         String remoteAddress, String detail) {
+}
@@ -0,0 +1,10 @@
+package app.dto;
+
+import java.util.List;
+
+/**
+ * One keyset page of audit entries, newest first; pass nextCursor as {@code before} to get the
+ * next (older) page, null when this is the last one.
+ */
+public record AuditPage(List<AuditEntry> items, Long nextCursor) {
+}
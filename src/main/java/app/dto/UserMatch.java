@@ -0,0 +1,7 @@
+package app.dto;
+
+import app.model.UserRole;
+
+/** One user search suggestion, served from {@link app.service.UserSearchIndex}. */
+public record UserMatch(Long id, String name, String email, UserRole role) {
+}
@@ -0,0 +1,10 @@
+package app.dto;
+
+import java.util.List;
+
+/**
+ * One keyset page of users; pass nextCursor as {@code after} to get the next page,
+ * null when this is the last one.
+ */
+public record UserPage(List<UserSummary> items, Long nextCursor) {
+}
@@ -0,0 +1,13 @@
+package app.dto;
+
+import app.model.UserRole;
+
+import java.time.LocalDateTime;
+
+/**
+ * Admin listing row: every users column except the password hash, selected with a JPQL
+ * constructor expression so the hash is never read from the database.
+ */
+public record UserSummary(Long id, String name, String email, UserRole role,
+                          LocalDateTime createdAt, LocalDateTime updatedAt) {
+}
@@ -5,15 +5,25 @@ import java.time.LocalDateTime;
 import org.hibernate.annotations.CreationTimestamp;
 import org.hibernate.annotations.UpdateTimestamp;
 
+import app.security.UserCacheEvictionListener;
+import app.service.RegisteredEmailListener;
+import app.service.UserSearchListener;
+
 @Entity
-@Table(name = "users")
+@Table(name = "users", uniqueConstraints = @UniqueConstraint(name = User.EMAIL_CONSTRAINT, columnNames = "email"))
+@EntityListeners({UserCacheEvictionListener.class, RegisteredEmailListener.class, UserSearchListener.class})
 public class User {
+    // named so a duplicate-email violation can be told apart from other integrity errors
+    public static final String EMAIL_CONSTRAINT = "users_email_uk";
+
+    // pooled sequence ids, so Hibernate knows ids before insert and can batch them
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "users_seq")
+    @SequenceGenerator(name = "users_seq", sequenceName = "users_seq", allocationSize = 50)
     private Long id;
     @Column(nullable = false, length = 100)
     private String name;
-    @Column(nullable = false, unique = true, length = 100)
+    @Column(nullable = false, length = 100)
     private String email;
     @Enumerated(EnumType.STRING)
     @Column(nullable = false)
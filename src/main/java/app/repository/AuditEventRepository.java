@@ -0,0 +1,84 @@
+package app.repository;
+
+import app.audit.AuditEvent;
+import app.audit.AuditEventType;
+import app.dto.AuditEntry;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Types;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * auth_audit access: batched inserts for {@link app.audit.AuditLog} and keyset pages for the
+ * admin API. Pages are read in a read-only transaction, so they come from the replica when one
+ * is configured.
+ */
+@Repository
+public class AuditEventRepository {
+
+    private static final String INSERT =
+            "INSERT INTO auth_audit (occurred_at, event_type, user_id, email, remote_addr, detail) VALUES (?, ?, ?, ?, ?, ?)";
+    private static final String SELECT =
+            "SELECT id, occurred_at, event_type, user_id, email, remote_addr, detail FROM auth_audit";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate readWrite;
+    private final TransactionTemplate readOnly;
+
+    public AuditEventRepository(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.readWrite = new TransactionTemplate(transactionManager);
+        this.readOnly = new TransactionTemplate(transactionManager);
+        this.readOnly.setReadOnly(true);
+    }
+
+    /** Inserts the events as one JDBC batch in one transaction. */
+    public void insertAll(List<AuditEvent> events) {
+        readWrite.executeWithoutResult(status -> jdbcTemplate.batchUpdate(INSERT, events, events.size(), (ps, event) -> {
+            ps.setLong(1, event.occurredAt().toEpochMilli());
+            ps.setString(2, event.type().name());
+            if (event.userId() != null) {
+                ps.setLong(3, event.userId());
+            } else {
+                ps.setNull(3, Types.BIGINT);
+            }
+            ps.setString(4, event.email());
+            ps.setString(5, event.remoteAddress());
+            ps.setString(6, event.detail());
+        }));
+    }
+
+    /**
+     * Up to {@code limit} entries with id below {@code before} (all when null), newest first,
+     * optionally restricted to one type and/or one email.
+     */
+    public List<AuditEntry> findPage(Long before, AuditEventType type, String email, int limit) {
+        StringBuilder sql = new StringBuilder(SELECT).append(" WHERE 1 = 1");
+        List<Object> args = new ArrayList<>(4);
+        if (before != null) {
+            sql.append(" AND id < ?");
+            args.add(before);
+        }
+        if (type != null) {
+            sql.append(" AND event_type = ?");
+            args.add(type.name());
+        }
+        if (email != null) {
+            sql.append(" AND email = ?");
+            args.add(email);
+        }
+        sql.append(" ORDER BY id DESC LIMIT ?");
+        args.add(limit);
+        return readOnly.execute(status -> jdbcTemplate.query(sql.toString(), (rs, row) -> {
+            long userId = rs.getLong(4);
+            Long nullableUserId = rs.wasNull() ? null : userId;
+            return new AuditEntry(rs.getLong(1), Instant.ofEpochMilli(rs.getLong(2)), rs.getString(3),
+                    nullableUserId, rs.getString(5), rs.getString(6), rs.getString(7));
+        }, args.toArray()));
+    }
+}
@@ -0,0 +1,83 @@
+package app.repository;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Full-table user export as NDJSON, written row by row from a forward-only, read-only cursor.
+ * With a positive fetch size the MariaDB driver streams the result set instead of buffering
+ * it, so memory stays flat whatever the table size. The password column is never selected.
+ * Runs in a read-only transaction, so it is served by the replica when one is configured.
+ * An interrupted export (its request timed out) stops at the next row.
+ */
+@Repository
+public class UserExportRepository {
+
+    private static final String SQL =
+            "SELECT id, name, email, role, created_at, updated_at FROM users ORDER BY id";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate readOnly;
+    private final JsonFactory jsonFactory = new JsonFactory();
+
+    public UserExportRepository(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager) {
+        this.jdbcTemplate = new JdbcTemplate(jdbcTemplate.getDataSource());
+        this.jdbcTemplate.setFetchSize(1000);
+        this.readOnly = new TransactionTemplate(transactionManager);
+        this.readOnly.setReadOnly(true);
+    }
+
+    /** @return number of rows written */
+    public long exportTo(OutputStream out) throws IOException {
+        long[] rows = {0};
+        try (JsonGenerator json = jsonFactory.createGenerator(out, JsonEncoding.UTF8)) {
+            json.setRootValueSeparator(null);
+            readOnly.executeWithoutResult(status -> jdbcTemplate.query(connection -> connection.prepareStatement(SQL,
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY), (ResultSet rs) -> {
+                try {
+                    if (Thread.currentThread().isInterrupted()) {
+                        // request timed out: the export task was cancelled
+                        throw new InterruptedIOException("Export cancelled after " + rows[0] + " rows");
+                    }
+                    json.writeStartObject();
+                    json.writeNumberField("id", rs.getLong(1));
+                    json.writeStringField("name", rs.getString(2));
+                    json.writeStringField("email", rs.getString(3));
+                    json.writeStringField("role", rs.getString(4));
+                    writeTimestamp(json, "createdAt", rs.getTimestamp(5));
+                    writeTimestamp(json, "updatedAt", rs.getTimestamp(6));
+                    json.writeEndObject();
+                    json.writeRaw('\n');
+                    rows[0]++;
+                } catch (IOException ex) {
+                    // client went away: abort the query instead of draining the cursor
+                    throw new UncheckedIOException(ex);
+                }
+            }));
+        } catch (UncheckedIOException ex) {
+            throw ex.getCause();
+        }
+        return rows[0];
+    }
+
+    private static void writeTimestamp(JsonGenerator json, String field, Timestamp value) throws IOException {
+        if (value == null) {
+            json.writeNullField(field);
+        } else {
+            json.writeStringField(field, DateTimeFormatter.ISO_LOCAL_DATE_TIME.format(value.toLocalDateTime()));
+        }
+    }
+}
@@ -1,9 +1,31 @@
 package app.repository;
 
+import app.dto.UserSummary;
 import app.model.User;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
+// query methods run in read-only transactions (replica reads when one is configured);
+// inherited writes keep SimpleJpaRepository's read-write transactions
+@Transactional(readOnly = true)
 public interface UserRepository extends JpaRepository<User, Long> {
     Optional<User> findByEmail(String email);
+
+    boolean existsByEmail(String email);
+
+    // keyset page on the primary key, without the password column
+    @Query("select new app.dto.UserSummary(u.id, u.name, u.email, u.role, u.createdAt, u.updatedAt) "
+            + "from User u where u.id > :after order by u.id")
+    List<UserSummary> findPageAfter(@Param("after") long after, Limit limit);
+
+    // one IN query per bulk-registration chunk instead of a lookup per row
+    @Query("select u.email from User u where u.email in :emails")
+    List<String> findExistingEmails(@Param("emails") Collection<String> emails);
 }
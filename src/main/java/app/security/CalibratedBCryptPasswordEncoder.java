@@ -0,0 +1,84 @@
+package app.security;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.time.Duration;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * BCrypt encoder whose cost is picked at startup for the box we run on, and which asks for
+ * a rehash whenever a stored hash was produced with a lower cost. Hashes are only ever
+ * upgraded: calibrating on a faster box, or lowering the configured cost, leaves stronger
+ * hashes as they are.
+ */
+public class CalibratedBCryptPasswordEncoder extends BCryptPasswordEncoder {
+
+    private static final Logger logger = LoggerFactory.getLogger(CalibratedBCryptPasswordEncoder.class);
+    private static final String SAMPLE = "calibration-sample-password";
+    private static final Pattern BCRYPT_HASH = Pattern.compile("\\$2[aby]?\\$(\\d\\d)\\$[./0-9A-Za-z]{53}");
+
+    private final int cost;
+
+    public CalibratedBCryptPasswordEncoder(int cost) {
+        super(cost);
+        this.cost = cost;
+    }
+
+    public int getCost() {
+        return cost;
+    }
+
+    /** False for anything that is not a well-formed BCrypt hash; matches() rejects those anyway. */
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        if (encodedPassword == null) {
+            return false;
+        }
+        Matcher hash = BCRYPT_HASH.matcher(encodedPassword);
+        if (!hash.matches()) {
+            return false;
+        }
+        int stored = Integer.parseInt(hash.group(1));
+        return stored >= 4 && stored <= 31 && stored < cost;
+    }
+
+    /**
+     * Returns the highest cost in [minCost, maxCost] whose single hash stays within the budget.
+     * Each cost doubles the work, so we stop at the first one that blows the budget.
+     */
+    public static int calibrate(int minCost, int maxCost, Duration budget) {
+        BCryptPasswordEncoder warmup = new BCryptPasswordEncoder(4);
+        for (int i = 0; i < 10; i++) {
+            warmup.encode(SAMPLE);
+        }
+
+        int chosen = minCost;
+        for (int candidate = minCost; candidate <= maxCost; candidate++) {
+            long nanos = timeHash(new BCryptPasswordEncoder(candidate));
+            logger.debug("BCrypt cost {} takes {} ms", candidate, nanos / 1_000_000);
+            if (nanos > budget.toNanos()) {
+                if (candidate == minCost) {
+                    logger.warn("BCrypt minimum cost {} already exceeds the {} ms budget", minCost, budget.toMillis());
+                }
+                break;
+            }
+            chosen = candidate;
+        }
+        logger.info("Calibrated BCrypt cost {} for a {} ms hash budget", chosen, budget.toMillis());
+        return chosen;
+    }
+
+    private static long timeHash(BCryptPasswordEncoder encoder) {
+        // best of two, to keep a GC pause or scheduler hiccup from lowering the cost
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < 2; i++) {
+            long start = System.nanoTime();
+            encoder.encode(SAMPLE);
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        return best;
+    }
+}
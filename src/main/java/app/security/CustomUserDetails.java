@@ -1,65 +1,159 @@
 package app.security;
 
 import app.model.User;
+import app.model.UserRole;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Base64;
 import java.util.Collection;
 import java.util.List;
 
 /**
- * Wraps your User entity and exposes it as a Spring Security UserDetails.
+ * Immutable snapshot of a User, exposed as a Spring Security UserDetails. Copied out of the
+ * entity when loaded, so sessions and caches never hold a managed entity. Only the instance
+ * used to check the password carries the hash; the authenticated principal is the
+ * {@link #withoutPassword()} copy. The GET /api/user body and its ETag are built on first use
+ * and reused for the lifetime of the principal.
  */
-public class CustomUserDetails implements UserDetails {
+public final class CustomUserDetails implements UserDetails {
 
-    private final User user;
+    private static final long serialVersionUID = 1L;
+    private static final JsonFactory JSON = new JsonFactory();
+
+    private final Long id;
+    private final String name;
+    private final String email;
+    private final UserRole role;
+    private final LocalDateTime createdAt;
+    private final LocalDateTime updatedAt;
+    private final String password;
+    @SuppressWarnings("serial") // always a List.of, which is serializable
+    private final List<GrantedAuthority> authorities;
+
+    private transient volatile byte[] json;
+    private transient volatile String etag;
 
     public CustomUserDetails(User user) {
-        this.user = user;
+        this(user.getId(), user.getName(), user.getEmail(), UserRole.valueOf(user.getRole()),
+                user.getCreatedAt(), user.getUpdatedAt(), user.getPassword());
+    }
+
+    public CustomUserDetails(Long id, String name, String email, UserRole role,
+                             LocalDateTime createdAt, LocalDateTime updatedAt, String password) {
+        this.id = id;
+        this.name = name;
+        this.email = email;
+        this.role = role;
+        this.createdAt = createdAt;
+        this.updatedAt = updatedAt;
+        this.password = password;
+        // Prefix with ROLE_ to match Spring conventions
+        this.authorities = List.of(new SimpleGrantedAuthority("ROLE_" + role));
+    }
+
+    /** The same principal without the password hash, for sessions and tokens. */
+    public CustomUserDetails withoutPassword() {
+        return password == null ? this
+                : new CustomUserDetails(id, name, email, role, createdAt, updatedAt, null);
     }
 
     // Expose extra fields for your controllers/DTOs
     public Long getId() {
-        return user.getId();
+        return id;
     }
 
     public String getName() {
-        return user.getName();
+        return name;
     }
 
     public String getRole() {
-        return user.getRole();
+        return role.name();
+    }
+
+    public UserRole getUserRole() {
+        return role;
     }
 
     public String getEmail() {
-        return user.getEmail();
+        return email;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
     }
 
-    public String getCreatedAt() {
-        return user.getCreatedAt().toString();
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
     }
 
-    public String getUpdatedAt() {
-        return user.getUpdatedAt().toString();
+    /** GET /api/user response body: id, name, email, role, createdAt, updatedAt. */
+    public byte[] toJson() {
+        byte[] bytes = json;
+        if (bytes == null) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream(160);
+            try (JsonGenerator generator = JSON.createGenerator(out)) {
+                generator.writeStartObject();
+                if (id != null) {
+                    generator.writeNumberField("id", id);
+                } else {
+                    generator.writeNullField("id");
+                }
+                generator.writeStringField("name", name);
+                generator.writeStringField("email", email);
+                generator.writeStringField("role", role.name());
+                generator.writeStringField("createdAt", createdAt != null ? createdAt.toString() : null);
+                generator.writeStringField("updatedAt", updatedAt != null ? updatedAt.toString() : null);
+                generator.writeEndObject();
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+            bytes = out.toByteArray();
+            json = bytes;
+        }
+        return bytes;
+    }
+
+    /** Strong ETag over {@link #toJson()}. */
+    public String getEtag() {
+        String tag = etag;
+        if (tag == null) {
+            try {
+                byte[] digest = MessageDigest.getInstance("SHA-256").digest(toJson());
+                tag = "\"" + Base64.getUrlEncoder().withoutPadding().encodeToString(Arrays.copyOf(digest, 12)) + "\"";
+            } catch (NoSuchAlgorithmException ex) {
+                throw new IllegalStateException(ex);
+            }
+            etag = tag;
+        }
+        return tag;
     }
 
     // --- UserDetails contract ---
     @Override
     public Collection<? extends GrantedAuthority> getAuthorities() {
-        // Prefix with ROLE_ to match Spring conventions
-        return List.of(new SimpleGrantedAuthority("ROLE_" + user.getRole()));
+        return authorities;
     }
 
     @Override
     public String getPassword() {
-        return user.getPassword();
+        return password;
     }
 
     @Override
     public String getUsername() {
         // Spring Security uses "username" as the login identifier
-        return user.getEmail();
+        return email;
     }
 
     @Override
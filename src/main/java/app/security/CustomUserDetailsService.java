@@ -1,27 +1,51 @@
 package app.security;
 
+import app.datasource.ReplicaRoutingDataSource;
 import app.model.User;
 import app.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
 
+import java.util.Optional;
+
 @Service
-public class CustomUserDetailsService implements UserDetailsService {
+public class CustomUserDetailsService implements UserDetailsService, UserDetailsPasswordService {
 
     private final UserRepository userRepository;
+    private final boolean replicaConfigured;
 
-    public CustomUserDetailsService(UserRepository repo) {
+    public CustomUserDetailsService(UserRepository repo,
+                                    @Value("${app.datasource.replica.url:}") String replicaUrl) {
         this.userRepository = repo;
+        this.replicaConfigured = !replicaUrl.isBlank();
     }
 
     @Override
     public UserDetails loadUserByUsername(String email) throws UsernameNotFoundException {
         User user = userRepository.findByEmail(email)
+            // a user who just registered may not have reached the replica yet
+            .or(() -> replicaConfigured
+                    ? ReplicaRoutingDataSource.usePrimary(() -> userRepository.findByEmail(email))
+                    : Optional.<User>empty())
             .orElseThrow(() -> new UsernameNotFoundException("User not found: " + email));
 
         // ✅ Return your CustomUserDetails, not Spring’s User
         return new CustomUserDetails(user);
     }
-}
\ No newline at end of file
+
+    /**
+     * Called by the DaoAuthenticationProvider after a successful login whose stored hash
+     * needs upgrading (different cost or algorithm id); rewrites User.password in place.
+     */
+    @Override
+    public UserDetails updatePassword(UserDetails details, String newPassword) {
+        User user = userRepository.findByEmail(details.getUsername())
+            .orElseThrow(() -> new UsernameNotFoundException("User not found: " + details.getUsername()));
+        user.setPassword(newPassword);
+        return new CustomUserDetails(userRepository.save(user));
+    }
+}
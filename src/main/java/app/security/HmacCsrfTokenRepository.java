@@ -0,0 +1,189 @@
+package app.security;
+
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpSession;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseCookie;
+import org.springframework.security.web.csrf.CsrfToken;
+import org.springframework.security.web.csrf.CsrfTokenRepository;
+import org.springframework.security.web.csrf.DefaultCsrfToken;
+import org.springframework.stereotype.Component;
+import org.springframework.web.util.WebUtils;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Signed double-submit CSRF tokens (app.security.csrf.mode=hmac). The XSRF-TOKEN cookie is
+ * verified by its HMAC alone, with no server-side state, and is only written when it is
+ * missing or no longer valid, so repeated page loads neither regenerate it nor send Set-Cookie.
+ * <p>
+ * Format: {@code base64url(kid) "." binding "." base64url(HMAC-SHA256)}. With a session, the
+ * binding is {@code s} and the MAC covers the session id, so the token is derived from the
+ * session and dies with it; the login response carries the new session's token. Without a
+ * session (register, login) the binding is a random nonce covered by the MAC. Keys rotate like
+ * the bearer token keys: add a {@code kid:secret} entry to app.security.csrf.keys, switch
+ * app.security.csrf.active-key-id, and drop the old kid once its sessions have expired. With no
+ * keys configured a random key is generated at startup, which only suits a single instance;
+ * app.security.csrf.require-keys (on in the prod profile) makes that a startup failure instead.
+ */
+@Component
+public class HmacCsrfTokenRepository implements CsrfTokenRepository {
+
+    public static final String COOKIE_NAME = "XSRF-TOKEN";
+    public static final String HEADER_NAME = "X-XSRF-TOKEN";
+    public static final String PARAMETER_NAME = "_csrf";
+
+    private static final Logger logger = LoggerFactory.getLogger(HmacCsrfTokenRepository.class);
+    private static final String ALGORITHM = "HmacSHA256";
+    private static final String SESSION_BINDING = "s";
+    private static final int MIN_SECRET_BYTES = 32;
+    private static final int NONCE_BYTES = 16;
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    private final SecureRandom random = new SecureRandom();
+    private final Map<String, SecretKeySpec> keys = new HashMap<>();
+    private final Map<String, Queue<Mac>> macs = new HashMap<>();
+    private final String activeHeader;
+
+    public HmacCsrfTokenRepository(@Value("${app.security.csrf.keys:}") String keys,
+                                   @Value("${app.security.csrf.active-key-id:}") String activeKeyId,
+                                   @Value("${app.security.csrf.mode:hmac}") String mode,
+                                   @Value("${app.security.csrf.require-keys:false}") boolean requireKeys) {
+        for (String entry : keys.split(",")) {
+            String trimmed = entry.trim();
+            if (trimmed.isEmpty()) {
+                continue;
+            }
+            int colon = trimmed.indexOf(':');
+            if (colon <= 0) {
+                throw new IllegalArgumentException("CSRF key must look like kid:base64-secret");
+            }
+            byte[] secret = Base64.getDecoder().decode(trimmed.substring(colon + 1));
+            if (secret.length < MIN_SECRET_BYTES) {
+                throw new IllegalArgumentException("CSRF key " + trimmed.substring(0, colon)
+                        + " must be at least " + MIN_SECRET_BYTES + " bytes");
+            }
+            addKey(trimmed.substring(0, colon), secret);
+        }
+        if (this.keys.isEmpty()) {
+            if (requireKeys && "hmac".equals(mode)) {
+                throw new IllegalStateException("app.security.csrf.keys must be set: app.security.csrf.require-keys is on");
+            }
+            byte[] secret = new byte[MIN_SECRET_BYTES];
+            random.nextBytes(secret);
+            activeKeyId = "local";
+            addKey(activeKeyId, secret);
+            logger.info("No app.security.csrf.keys configured; CSRF tokens are signed with a per-process key");
+        } else if (!this.keys.containsKey(activeKeyId)) {
+            throw new IllegalStateException("app.security.csrf.active-key-id must name one of app.security.csrf.keys");
+        }
+        this.activeHeader = ENCODER.encodeToString(activeKeyId.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private void addKey(String keyId, byte[] secret) {
+        keys.put(keyId, new SecretKeySpec(secret, ALGORITHM));
+        macs.put(keyId, new ConcurrentLinkedQueue<>());
+    }
+
+    @Override
+    public CsrfToken generateToken(HttpServletRequest request) {
+        HttpSession session = request.getSession(false);
+        String binding = session != null ? SESSION_BINDING : ENCODER.encodeToString(nonce());
+        String signingInput = activeHeader + "." + binding;
+        String token = signingInput + "." + ENCODER.encodeToString(sign(activeHeader, signingInput, session));
+        return new DefaultCsrfToken(HEADER_NAME, PARAMETER_NAME, token);
+    }
+
+    @Override
+    public CsrfToken loadToken(HttpServletRequest request) {
+        Cookie cookie = WebUtils.getCookie(request, COOKIE_NAME);
+        if (cookie == null || !isValid(cookie.getValue(), request.getSession(false))) {
+            return null;
+        }
+        return new DefaultCsrfToken(HEADER_NAME, PARAMETER_NAME, cookie.getValue());
+    }
+
+    @Override
+    public void saveToken(CsrfToken token, HttpServletRequest request, HttpServletResponse response) {
+        Cookie current = WebUtils.getCookie(request, COOKIE_NAME);
+        if (token != null && current != null && token.getToken().equals(current.getValue())) {
+            return; // the browser already has it
+        }
+        ResponseCookie cookie = ResponseCookie.from(COOKIE_NAME, token != null ? token.getToken() : "")
+                .path("/")
+                .httpOnly(false) // read by the SPA and echoed in X-XSRF-TOKEN
+                .secure(false)
+                .sameSite("Lax")
+                .maxAge(token != null ? -1 : 0)
+                .build();
+        response.addHeader(HttpHeaders.SET_COOKIE, cookie.toString());
+    }
+
+    /** True when the token was signed by a known key for this session (or for no session). */
+    boolean isValid(String token, HttpSession session) {
+        int first = token.indexOf('.');
+        int second = token.indexOf('.', first + 1);
+        if (first <= 0 || second < 0 || token.indexOf('.', second + 1) >= 0) {
+            return false;
+        }
+        boolean sessionBound = SESSION_BINDING.equals(token.substring(first + 1, second));
+        if (sessionBound != (session != null)) {
+            return false;
+        }
+        try {
+            String header = token.substring(0, first);
+            byte[] expected = sign(header, token.substring(0, second), session);
+            return expected != null && MessageDigest.isEqual(expected, DECODER.decode(token.substring(second + 1)));
+        } catch (IllegalArgumentException ex) {
+            return false; // bad base64
+        }
+    }
+
+    private byte[] nonce() {
+        byte[] nonce = new byte[NONCE_BYTES];
+        random.nextBytes(nonce);
+        return nonce;
+    }
+
+    /** MAC over the signing input and, for session-bound tokens, the session id; null for an unknown key. */
+    private byte[] sign(String header, String signingInput, HttpSession session) {
+        String keyId = new String(DECODER.decode(header), StandardCharsets.UTF_8);
+        Queue<Mac> pool = macs.get(keyId);
+        if (pool == null) {
+            return null;
+        }
+        Mac mac = pool.poll();
+        if (mac == null) {
+            try {
+                mac = Mac.getInstance(ALGORITHM);
+                mac.init(keys.get(keyId));
+            } catch (GeneralSecurityException ex) {
+                throw new IllegalStateException("HMAC-SHA256 unavailable", ex);
+            }
+        }
+        mac.update(signingInput.getBytes(StandardCharsets.US_ASCII));
+        if (session != null) {
+            mac.update((byte) 0);
+            mac.update(session.getId().getBytes(StandardCharsets.UTF_8));
+        }
+        byte[] signature = mac.doFinal();
+        pool.offer(mac);
+        return signature;
+    }
+}
@@ -1,6 +1,7 @@
 package app.security;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
+import app.audit.AuditEventType;
+import app.audit.AuditLog;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -9,30 +10,72 @@ import jakarta.servlet.http.HttpSession;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.AuthenticationServiceException;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.AuthenticationException;
 import org.springframework.security.web.authentication.AbstractAuthenticationProcessingFilter;
 
 import java.io.IOException;
-import java.util.Map;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
 
 public class JsonUsernamePasswordAuthFilter extends AbstractAuthenticationProcessingFilter {
 
     private static final Logger logger = LoggerFactory.getLogger(JsonUsernamePasswordAuthFilter.class);
-    private final ObjectMapper objectMapper = new ObjectMapper();
+    private static final String EMAIL_ATTRIBUTE = JsonUsernamePasswordAuthFilter.class.getName() + ".email";
+    private LoginCredentialsParser credentialsParser = new LoginCredentialsParser(8 * 1024, 8);
+    private LoginThrottle loginThrottle;
+    private LoginMetrics loginMetrics;
+    private AuditLog auditLog;
 
     public JsonUsernamePasswordAuthFilter(String defaultFilterProcessesUrl, AuthenticationManager authManager) {
-        super(defaultFilterProcessesUrl);
-        setAuthenticationManager(authManager);
+        super(defaultFilterProcessesUrl, authManager);
+    }
+
+    public void setCredentialsParser(LoginCredentialsParser credentialsParser) {
+        this.credentialsParser = credentialsParser;
+    }
+
+    public void setLoginThrottle(LoginThrottle loginThrottle) {
+        this.loginThrottle = loginThrottle;
+    }
+
+    public void setLoginMetrics(LoginMetrics loginMetrics) {
+        this.loginMetrics = loginMetrics;
+    }
+
+    public void setAuditLog(AuditLog auditLog) {
+        this.auditLog = auditLog;
     }
 
     @Override
     public Authentication attemptAuthentication(HttpServletRequest request, HttpServletResponse response)
             throws AuthenticationException, IOException {
-        Map<String, String> creds = objectMapper.readValue(request.getInputStream(), Map.class);
-        String email = creds.get("email");
-        String password = creds.get("password");
+        // refuse declared oversize bodies without reading them
+        if (request.getContentLengthLong() > credentialsParser.getMaxBytes()) {
+            throw new MalformedCredentialsException("Login body too large");
+        }
+        long parseStart = System.nanoTime();
+        LoginCredentialsParser.Credentials creds;
+        try {
+            creds = credentialsParser.parse(request.getInputStream());
+        } finally {
+            if (loginMetrics != null) {
+                loginMetrics.stage(LoginMetrics.Stage.PARSE).record(System.nanoTime() - parseStart, TimeUnit.NANOSECONDS);
+            }
+        }
+        String email = creds.email();
+        String password = creds.password();
+        request.setAttribute(EMAIL_ATTRIBUTE, email); // for the failure audit
+
+        // reject over-budget accounts before any user lookup or hashing
+        if (loginThrottle != null) {
+            long retryAfter = loginThrottle.acquireForEmail(email);
+            if (retryAfter > 0) {
+                throw new LoginThrottledException(retryAfter);
+            }
+        }
 
         UsernamePasswordAuthenticationToken authRequest =
                 new UsernamePasswordAuthenticationToken(email, password);
@@ -46,21 +89,24 @@ public class JsonUsernamePasswordAuthFilter extends AbstractAuthenticationProces
                                             FilterChain chain,
                                             Authentication authResult)
             throws IOException, ServletException {
-        // ✅ Let Spring Security handle session creation and SecurityContext
+        record(LoginMetrics.Outcome.SUCCESS);
+        if (loginThrottle != null) {
+            loginThrottle.refundEmail((String) request.getAttribute(EMAIL_ATTRIBUTE));
+        }
+        if (auditLog != null) {
+            Long userId = authResult.getPrincipal() instanceof CustomUserDetails principal ? principal.getId() : null;
+            auditLog.record(AuditEventType.LOGIN_SUCCESS, userId, authResult.getName(), request.getRemoteAddr(), null);
+        }
+        // ✅ Let Spring Security handle the SecurityContext; the success handler writes the response
         super.successfulAuthentication(request, response, chain, authResult);
 
-        // 🔎 Log session details
+        // 🔎 Log session details (token mode issues no session)
         HttpSession session = request.getSession(false);
         if (session != null) {
             logger.info("Session created for user {} with ID {}", authResult.getName(), session.getId());
         } else {
-            logger.warn("No session found after successful authentication for user {}", authResult.getName());
+            logger.debug("No session after successful authentication for user {}", authResult.getName());
         }
-
-        // ✅ Write custom JSON response
-        response.setContentType("application/json");
-        response.getWriter().write("{\"status\":\"success\",\"user\":\"" + authResult.getName() + "\"}");
-        response.getWriter().flush(); // flush but don’t close, so Set-Cookie header is preserved
     }
 
     @Override
@@ -68,9 +114,61 @@ public class JsonUsernamePasswordAuthFilter extends AbstractAuthenticationProces
                                               HttpServletResponse response,
                                               AuthenticationException failed)
             throws IOException, ServletException {
+        LoginMetrics.Outcome outcome = outcomeOf(failed);
+        record(outcome);
+        if (auditLog != null) {
+            auditLog.record(AuditEventType.LOGIN_FAILURE, null, (String) request.getAttribute(EMAIL_ATTRIBUTE),
+                    request.getRemoteAddr(), outcome.name().toLowerCase(Locale.ROOT));
+        }
+        if (failed instanceof PasswordHashingRejectedException rejected) {
+            response.setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+            response.setHeader("Retry-After", String.valueOf(rejected.getRetryAfterSeconds()));
+            response.setContentType("application/json");
+            response.getWriter().write("{\"status\":\"error\",\"message\":\"Server busy, retry later\"}");
+            response.getWriter().flush();
+            return;
+        }
+        if (failed instanceof MalformedCredentialsException) {
+            response.setStatus(HttpServletResponse.SC_BAD_REQUEST);
+            response.setContentType("application/json");
+            response.getWriter().write("{\"status\":\"error\",\"message\":\"Email and password are required\"}");
+            response.getWriter().flush();
+            return;
+        }
+        if (failed instanceof LoginThrottledException throttled) {
+            response.setStatus(429);
+            response.setHeader("Retry-After", String.valueOf(throttled.getRetryAfterSeconds()));
+            response.setContentType("application/json");
+            response.getWriter().write("{\"status\":\"error\",\"message\":\"Too many login attempts\"}");
+            response.getWriter().flush();
+            return;
+        }
+
         response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
         response.setContentType("application/json");
         response.getWriter().write("{\"status\":\"error\",\"message\":\"Invalid credentials\"}");
         response.getWriter().flush();
     }
+
+    private static LoginMetrics.Outcome outcomeOf(AuthenticationException failed) {
+        if (failed instanceof PasswordHashingRejectedException) {
+            return LoginMetrics.Outcome.BUSY;
+        }
+        if (failed instanceof MalformedCredentialsException) {
+            return LoginMetrics.Outcome.MALFORMED;
+        }
+        if (failed instanceof LoginThrottledException) {
+            return LoginMetrics.Outcome.THROTTLED;
+        }
+        if (failed instanceof AuthenticationServiceException) {
+            return LoginMetrics.Outcome.ERROR;
+        }
+        return LoginMetrics.Outcome.BAD_CREDENTIALS;
+    }
+
+    private void record(LoginMetrics.Outcome outcome) {
+        if (loginMetrics != null) {
+            loginMetrics.record(outcome);
+        }
+    }
 }
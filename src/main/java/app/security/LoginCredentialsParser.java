@@ -0,0 +1,117 @@
+package app.security;
+
+import com.fasterxml.jackson.core.JacksonException;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.StreamReadConstraints;
+import com.fasterxml.jackson.core.exc.StreamConstraintsException;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Token-level parser for login bodies. Pulls only "email" and "password" from the top-level
+ * object, skips anything else without materializing it, and stops reading as soon as both are
+ * found. Body size and nesting depth are capped while streaming, so an oversized or deeply
+ * nested payload is rejected as soon as it crosses the limit instead of after being buffered.
+ */
+public class LoginCredentialsParser {
+
+    public record Credentials(String email, String password) { }
+
+    private final JsonFactory jsonFactory;
+    private final int maxBytes;
+
+    public LoginCredentialsParser(int maxBytes, int maxDepth) {
+        this.maxBytes = maxBytes;
+        this.jsonFactory = JsonFactory.builder()
+                .streamReadConstraints(StreamReadConstraints.builder()
+                        .maxNestingDepth(maxDepth)
+                        .maxStringLength(maxBytes)
+                        .build())
+                .build();
+    }
+
+    public int getMaxBytes() {
+        return maxBytes;
+    }
+
+    public Credentials parse(InputStream body) throws IOException {
+        String email = null;
+        String password = null;
+
+        try (JsonParser parser = jsonFactory.createParser(new LimitedInputStream(body, maxBytes))) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new MalformedCredentialsException("Login body must be a JSON object");
+            }
+            JsonToken token;
+            while ((email == null || password == null) && (token = parser.nextToken()) != JsonToken.END_OBJECT) {
+                if (token != JsonToken.FIELD_NAME) {
+                    throw new MalformedCredentialsException("Malformed login body");
+                }
+                String field = parser.currentName();
+                JsonToken value = parser.nextToken();
+                if ("email".equals(field)) {
+                    email = stringValue(parser, value);
+                } else if ("password".equals(field)) {
+                    password = stringValue(parser, value);
+                } else {
+                    parser.skipChildren();
+                }
+            }
+        } catch (StreamConstraintsException ex) {
+            throw new MalformedCredentialsException("Login body too large or too deeply nested", ex);
+        } catch (JacksonException ex) {
+            throw new MalformedCredentialsException("Malformed login body", ex);
+        }
+
+        if (email == null || password == null) {
+            throw new MalformedCredentialsException("Email and password are required");
+        }
+        return new Credentials(email, password);
+    }
+
+    private static String stringValue(JsonParser parser, JsonToken value) throws IOException {
+        if (value != JsonToken.VALUE_STRING) {
+            throw new MalformedCredentialsException("Email and password must be strings");
+        }
+        return parser.getText();
+    }
+
+    /** Fails the read once more than {@code limit} bytes have been consumed. */
+    private static final class LimitedInputStream extends FilterInputStream {
+        private long remaining;
+
+        LimitedInputStream(InputStream in, long limit) {
+            super(in);
+            this.remaining = limit;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) {
+                consumed(1);
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] buffer, int off, int len) throws IOException {
+            int n = super.read(buffer, off, len);
+            if (n > 0) {
+                consumed(n);
+            }
+            return n;
+        }
+
+        private void consumed(int n) {
+            remaining -= n;
+            if (remaining < 0) {
+                throw new MalformedCredentialsException("Login body too large");
+            }
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package app.security;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Meters for the JSON login pipeline (see METRICS.md):
+ * auth.login.stage{stage} timers for each step of a login and
+ * auth.login.attempts{outcome} counters for how each attempt ended.
+ */
+@Component
+public class LoginMetrics {
+
+    public enum Stage {
+        PARSE("parse"),
+        USER_LOAD("user_load"),
+        PASSWORD_VERIFY("password_verify"),
+        SESSION_SAVE("session_save"),
+        TOKEN_ISSUE("token_issue");
+
+        private final String tag;
+
+        Stage(String tag) {
+            this.tag = tag;
+        }
+    }
+
+    public enum Outcome {
+        SUCCESS("success"),
+        BAD_CREDENTIALS("bad_credentials"),
+        MALFORMED("malformed"),
+        THROTTLED("throttled"),
+        BUSY("busy"),
+        ERROR("error");
+
+        private final String tag;
+
+        Outcome(String tag) {
+            this.tag = tag;
+        }
+    }
+
+    private final Map<Stage, Timer> stages = new EnumMap<>(Stage.class);
+    private final Map<Outcome, Counter> outcomes = new EnumMap<>(Outcome.class);
+
+    public LoginMetrics(MeterRegistry meterRegistry) {
+        for (Stage stage : Stage.values()) {
+            stages.put(stage, Timer.builder("auth.login.stage")
+                    .tag("stage", stage.tag)
+                    .description("Time spent in one step of a JSON login")
+                    .publishPercentileHistogram()
+                    .minimumExpectedValue(Duration.ofMillis(1))
+                    .maximumExpectedValue(Duration.ofSeconds(10))
+                    .register(meterRegistry));
+        }
+        for (Outcome outcome : Outcome.values()) {
+            outcomes.put(outcome, Counter.builder("auth.login.attempts")
+                    .tag("outcome", outcome.tag)
+                    .description("Login attempts by how they ended")
+                    .register(meterRegistry));
+        }
+    }
+
+    public Timer stage(Stage stage) {
+        return stages.get(stage);
+    }
+
+    public void record(Outcome outcome) {
+        outcomes.get(outcome).increment();
+    }
+}
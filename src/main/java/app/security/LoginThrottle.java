@@ -0,0 +1,80 @@
+package app.security;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-client-IP and per-account login budgets. Both are checked before any user lookup or
+ * password hashing: the IP budget in the loginThrottleFilter, the account budget right after
+ * the credentials are parsed in {@link JsonUsernamePasswordAuthFilter}. A successful login
+ * gets its account token back, so only failed attempts count against an account.
+ */
+@Component
+public class LoginThrottle {
+
+    private final RateLimiterTable byIp;
+    private final RateLimiterTable byEmail;
+    private final Counter ipRejected;
+    private final Counter emailRejected;
+
+    public LoginThrottle(@Value("${app.security.login-throttle.ip.capacity:20}") int ipCapacity,
+                         @Value("${app.security.login-throttle.ip.refill-period:1m}") Duration ipRefill,
+                         @Value("${app.security.login-throttle.email.capacity:5}") int emailCapacity,
+                         @Value("${app.security.login-throttle.email.refill-period:5m}") Duration emailRefill,
+                         @Value("${app.security.login-throttle.max-entries:100000}") int maxEntries,
+                         MeterRegistry meterRegistry) {
+        this.byIp = new RateLimiterTable(ipCapacity, ipRefill.toNanos(), maxEntries);
+        this.byEmail = new RateLimiterTable(emailCapacity, emailRefill.toNanos(), maxEntries);
+
+        this.ipRejected = Counter.builder("auth.login.throttled").tag("key", "ip").register(meterRegistry);
+        this.emailRejected = Counter.builder("auth.login.throttled").tag("key", "email").register(meterRegistry);
+        Gauge.builder("auth.login.throttle.buckets", byIp, RateLimiterTable::size).tag("key", "ip").register(meterRegistry);
+        Gauge.builder("auth.login.throttle.buckets", byEmail, RateLimiterTable::size).tag("key", "email").register(meterRegistry);
+    }
+
+    /** @return 0 when allowed, otherwise seconds the client should wait */
+    public long acquireForIp(String ip) {
+        long waitNanos = byIp.tryAcquire(ip);
+        if (waitNanos > 0) {
+            ipRejected.increment();
+        }
+        return toRetryAfterSeconds(waitNanos);
+    }
+
+    /** @return 0 when allowed, otherwise seconds the client should wait */
+    public long acquireForEmail(String email) {
+        if (email == null) {
+            return 0;
+        }
+        long waitNanos = byEmail.tryAcquire(email.trim().toLowerCase(Locale.ROOT));
+        if (waitNanos > 0) {
+            emailRejected.increment();
+        }
+        return toRetryAfterSeconds(waitNanos);
+    }
+
+    /** Returns the token a successful login took from the account budget. */
+    public void refundEmail(String email) {
+        if (email != null) {
+            byEmail.refund(email.trim().toLowerCase(Locale.ROOT));
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.security.login-throttle.eviction-interval:30s}")
+    public void evictIdleBuckets() {
+        byIp.evictIdle();
+        byEmail.evictIdle();
+    }
+
+    private static long toRetryAfterSeconds(long waitNanos) {
+        return waitNanos <= 0 ? 0 : Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos + 999_999_999L));
+    }
+}
@@ -0,0 +1,20 @@
+package app.security;
+
+import org.springframework.security.authentication.AuthenticationServiceException;
+
+/**
+ * Thrown when a login body is not a small JSON object with string "email" and "password".
+ * Mapped to 400 Bad Request.
+ */
+public class MalformedCredentialsException extends AuthenticationServiceException {
+
+    private static final long serialVersionUID = 1L;
+
+    public MalformedCredentialsException(String message) {
+        super(message);
+    }
+
+    public MalformedCredentialsException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
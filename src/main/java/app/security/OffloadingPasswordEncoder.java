@@ -0,0 +1,151 @@
+package app.security;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.security.authentication.AuthenticationServiceException;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs the (CPU heavy) delegate encoder on a dedicated, fixed-size pool with a bounded queue,
+ * so a burst of logins can only ever occupy {@code threads} cores. When the queue is full the
+ * caller fails fast with {@link PasswordHashingRejectedException} instead of piling up on
+ * Tomcat worker threads.
+ */
+public class OffloadingPasswordEncoder implements PasswordEncoder {
+
+    private final PasswordEncoder delegate;
+    private final ThreadPoolExecutor executor;
+    private final long retryAfterSeconds;
+    private final Timer encodeTimer;
+    private final Timer matchesTimer;
+    private final Counter rejected;
+
+    public OffloadingPasswordEncoder(PasswordEncoder delegate, int threads, int queueCapacity,
+                                     long retryAfterSeconds, MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        this.retryAfterSeconds = retryAfterSeconds;
+
+        AtomicInteger counter = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "password-hash-" + counter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+
+        this.encodeTimer = Timer.builder("auth.hashing.duration").tag("operation", "encode")
+                .description("Time spent hashing on the password executor").register(meterRegistry);
+        this.matchesTimer = Timer.builder("auth.hashing.duration").tag("operation", "matches")
+                .description("Time spent hashing on the password executor").register(meterRegistry);
+        this.rejected = Counter.builder("auth.hashing.rejected")
+                .description("Hash jobs refused because the queue was full").register(meterRegistry);
+        Gauge.builder("auth.hashing.queue.size", executor, e -> e.getQueue().size())
+                .description("Hash jobs waiting for a thread").register(meterRegistry);
+        Gauge.builder("auth.hashing.active", executor, ThreadPoolExecutor::getActiveCount)
+                .description("Hash jobs currently running").register(meterRegistry);
+        Gauge.builder("auth.hashing.threads", executor, ThreadPoolExecutor::getMaximumPoolSize)
+                .description("Size of the password executor").register(meterRegistry);
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return submit(() -> encodeTimer.record(() -> delegate.encode(rawPassword)));
+    }
+
+    /**
+     * Hashes a batch across the pool. At most one job per hashing thread is outstanding at a
+     * time, so interactive logins queued behind a bulk import wait for one round of hashes,
+     * not the whole batch; when the queue is full the caller hashes the row itself.
+     */
+    public List<String> encodeAll(List<? extends CharSequence> rawPasswords) {
+        String[] encoded = new String[rawPasswords.size()];
+        Semaphore inFlight = new Semaphore(executor.getMaximumPoolSize());
+        List<Future<?>> futures = new ArrayList<>(rawPasswords.size());
+        try {
+            for (int i = 0; i < encoded.length; i++) {
+                int index = i;
+                CharSequence raw = rawPasswords.get(i);
+                inFlight.acquire();
+                try {
+                    futures.add(executor.submit(() -> {
+                        try {
+                            encoded[index] = encodeTimer.record(() -> delegate.encode(raw));
+                        } finally {
+                            inFlight.release();
+                        }
+                    }));
+                } catch (RejectedExecutionException ex) {
+                    inFlight.release();
+                    encoded[index] = encodeTimer.record(() -> delegate.encode(raw));
+                }
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } catch (InterruptedException ex) {
+            futures.forEach(future -> future.cancel(true));
+            Thread.currentThread().interrupt();
+            throw new AuthenticationServiceException("Interrupted while hashing passwords", ex);
+        } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new AuthenticationServiceException("Password hashing failed", ex.getCause());
+        }
+        return List.of(encoded);
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return submit(() -> matchesTimer.record(() -> delegate.matches(rawPassword, encodedPassword)));
+    }
+
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        // only inspects the stored hash, cheap enough for the caller's thread
+        return delegate.upgradeEncoding(encodedPassword);
+    }
+
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    private <T> T submit(Callable<T> job) {
+        Future<T> future;
+        try {
+            future = executor.submit(job);
+        } catch (RejectedExecutionException ex) {
+            rejected.increment();
+            throw new PasswordHashingRejectedException(retryAfterSeconds);
+        }
+
+        try {
+            return future.get();
+        } catch (InterruptedException ex) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new AuthenticationServiceException("Interrupted while hashing password", ex);
+        } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new AuthenticationServiceException("Password hashing failed", ex.getCause());
+        }
+    }
+}
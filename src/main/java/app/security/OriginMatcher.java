@@ -0,0 +1,257 @@
+package app.security;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Allowlist of front-end origins, compiled once at startup and shared by CORS and the
+ * originCheckFilter.
+ * <p>
+ * Entries are either exact origins ({@code https://app.example.com}) or wildcard subdomains
+ * ({@code https://*.example.com}, any depth, optional port). Exact origins live in an
+ * open-addressing table hashed case-insensitively over a char range; wildcards live in a trie of
+ * reversed host suffixes. Both are queried on sub-ranges of the header value, so checking an
+ * Origin or extracting the origin from a Referer allocates nothing.
+ */
+public final class OriginMatcher {
+
+    private final String[] exactTable;
+    private final int exactMask;
+    private final SuffixNode wildcardRoot = new SuffixNode();
+    private final List<String> exactOrigins = new ArrayList<>();
+    private final List<String> wildcardPatterns = new ArrayList<>();
+
+    private OriginMatcher(List<String> entries) {
+        List<String> exact = new ArrayList<>();
+        for (String entry : entries) {
+            String origin = entry.trim();
+            if (origin.isEmpty()) {
+                continue;
+            }
+            int schemeEnd = origin.indexOf("://");
+            if (schemeEnd <= 0) {
+                throw new IllegalArgumentException("Allowed origin must look like scheme://host[:port]: " + origin);
+            }
+            String scheme = origin.substring(0, schemeEnd).toLowerCase(Locale.ROOT);
+            String authority = origin.substring(schemeEnd + 3).toLowerCase(Locale.ROOT);
+            if (authority.endsWith("/")) {
+                authority = authority.substring(0, authority.length() - 1);
+            }
+            int colon = authority.lastIndexOf(':');
+            String host = colon >= 0 ? authority.substring(0, colon) : authority;
+            int port = colon >= 0 ? Integer.parseInt(authority.substring(colon + 1)) : -1;
+            if (port == defaultPort(scheme)) {
+                port = -1;
+            }
+
+            if (host.startsWith("*.")) {
+                wildcardRoot.insert(host.substring(1), scheme, port); // keep the leading dot
+                wildcardPatterns.add(scheme + "://" + authority);
+            } else {
+                String normalized = scheme + "://" + host + (port >= 0 ? ":" + port : "");
+                exact.add(normalized);
+                exactOrigins.add(normalized);
+            }
+        }
+
+        int size = Integer.highestOneBit(Math.max(4, exact.size() * 4 - 1)) << 1;
+        this.exactTable = new String[size];
+        this.exactMask = size - 1;
+        for (String origin : exact) {
+            int slot = hash(origin, 0, origin.length()) & exactMask;
+            while (exactTable[slot] != null && !exactTable[slot].equals(origin)) {
+                slot = (slot + 1) & exactMask;
+            }
+            exactTable[slot] = origin;
+        }
+    }
+
+    /** Parses a comma-separated list of origins and wildcard patterns. */
+    public static OriginMatcher parse(String commaSeparated) {
+        return new OriginMatcher(List.of(commaSeparated.split(",")));
+    }
+
+    public List<String> getExactOrigins() {
+        return List.copyOf(exactOrigins);
+    }
+
+    public List<String> getWildcardPatterns() {
+        return List.copyOf(wildcardPatterns);
+    }
+
+    /** Checks a full Origin header value. */
+    public boolean matchesOrigin(String origin) {
+        return origin != null && matches(origin, 0, origin.length());
+    }
+
+    /** Checks the origin part (scheme://host[:port]) of a Referer header value. */
+    public boolean matchesReferer(String referer) {
+        if (referer == null) {
+            return false;
+        }
+        int schemeEnd = referer.indexOf("://");
+        if (schemeEnd <= 0) {
+            return false;
+        }
+        int end = referer.length();
+        for (int i = schemeEnd + 3; i < referer.length(); i++) {
+            char c = referer.charAt(i);
+            if (c == '/' || c == '?' || c == '#') {
+                end = i;
+                break;
+            }
+        }
+        return matches(referer, 0, end);
+    }
+
+    private boolean matches(String value, int start, int end) {
+        if (matchesExact(value, start, end)) {
+            return true;
+        }
+        return wildcardRoot.hasChildren() && matchesWildcard(value, start, end);
+    }
+
+    private boolean matchesExact(String value, int start, int end) {
+        int length = end - start;
+        int slot = hash(value, start, end) & exactMask;
+        String candidate;
+        while ((candidate = exactTable[slot]) != null) {
+            if (candidate.length() == length && candidate.regionMatches(true, 0, value, start, length)) {
+                return true;
+            }
+            slot = (slot + 1) & exactMask;
+        }
+        return false;
+    }
+
+    private boolean matchesWildcard(String value, int start, int end) {
+        int schemeEnd = value.indexOf("://", start);
+        if (schemeEnd < 0 || schemeEnd >= end) {
+            return false;
+        }
+        int hostStart = schemeEnd + 3;
+        if (value.indexOf('@', hostStart) >= 0 && value.indexOf('@', hostStart) < end) {
+            return false; // userinfo is never part of an origin
+        }
+        int hostEnd = end;
+        int port = -1;
+        for (int i = end - 1; i >= hostStart; i--) {
+            char c = value.charAt(i);
+            if (c == ':') {
+                port = parsePort(value, i + 1, end);
+                if (port < 0) {
+                    return false;
+                }
+                hostEnd = i;
+                break;
+            }
+            if (c < '0' || c > '9') {
+                break;
+            }
+        }
+
+        // walk the host right to left down the suffix trie
+        SuffixNode node = wildcardRoot;
+        for (int i = hostEnd - 1; i > hostStart; i--) {
+            node = node.child(Character.toLowerCase(value.charAt(i)));
+            if (node == null) {
+                return false;
+            }
+            // a pattern suffix ".example.com" ends here and at least one label char precedes it
+            if (node.schemes != null && value.charAt(i) == '.' && node.allows(value, start, schemeEnd, port)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static int parsePort(String value, int from, int to) {
+        if (from >= to || to - from > 5) {
+            return -1;
+        }
+        int port = 0;
+        for (int i = from; i < to; i++) {
+            char c = value.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            port = port * 10 + (c - '0');
+        }
+        return port;
+    }
+
+    private static int defaultPort(String scheme) {
+        return switch (scheme) {
+            case "http" -> 80;
+            case "https" -> 443;
+            default -> -2;
+        };
+    }
+
+    private static int hash(String value, int start, int end) {
+        int h = 0;
+        for (int i = start; i < end; i++) {
+            h = 31 * h + Character.toLowerCase(value.charAt(i));
+        }
+        return h ^ (h >>> 16);
+    }
+
+    /** Trie over reversed host characters; nodes that end a pattern carry its scheme/port rules. */
+    private static final class SuffixNode {
+        private char[] keys = new char[0];
+        private SuffixNode[] children = new SuffixNode[0];
+        private String[] schemes; // non-null when a pattern ends at this node
+        private int[] ports;
+
+        boolean hasChildren() {
+            return keys.length > 0;
+        }
+
+        SuffixNode child(char c) {
+            for (int i = 0; i < keys.length; i++) {
+                if (keys[i] == c) {
+                    return children[i];
+                }
+            }
+            return null;
+        }
+
+        void insert(String suffix, String scheme, int port) {
+            SuffixNode node = this;
+            for (int i = suffix.length() - 1; i >= 0; i--) {
+                char c = suffix.charAt(i);
+                SuffixNode next = node.child(c);
+                if (next == null) {
+                    next = new SuffixNode();
+                    node.keys = Arrays.copyOf(node.keys, node.keys.length + 1);
+                    node.children = Arrays.copyOf(node.children, node.children.length + 1);
+                    node.keys[node.keys.length - 1] = c;
+                    node.children[node.children.length - 1] = next;
+                }
+                node = next;
+            }
+            int count = node.schemes == null ? 0 : node.schemes.length;
+            node.schemes = node.schemes == null ? new String[1] : Arrays.copyOf(node.schemes, count + 1);
+            node.ports = node.ports == null ? new int[1] : Arrays.copyOf(node.ports, count + 1);
+            node.schemes[count] = scheme;
+            node.ports[count] = port;
+        }
+
+        boolean allows(String value, int schemeStart, int schemeEnd, int port) {
+            int schemeLength = schemeEnd - schemeStart;
+            for (int i = 0; i < schemes.length; i++) {
+                String scheme = schemes[i];
+                int rulePort = ports[i];
+                if (scheme.length() == schemeLength && scheme.regionMatches(true, 0, value, schemeStart, schemeLength)) {
+                    int effective = port == defaultPort(scheme) ? -1 : port;
+                    if (effective == rulePort) {
+                        return true;
+                    }
+                }
+            }
+            return false;
+        }
+    }
+}
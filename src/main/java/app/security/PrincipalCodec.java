@@ -0,0 +1,83 @@
+package app.security;
+
+import app.model.UserRole;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+/**
+ * Compact binary form of an authenticated principal: id, email, role, plus the display name and
+ * timestamps GET /api/user returns. The password hash is never written; decoding yields a
+ * principal that needs no database access.
+ */
+public final class PrincipalCodec {
+
+    private static final byte VERSION = 1;
+    private static final UserRole[] ROLES = UserRole.values();
+
+    private PrincipalCodec() {
+    }
+
+    public static byte[] encode(CustomUserDetails principal) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(96);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(VERSION);
+            out.writeLong(principal.getId() != null ? principal.getId() : -1L);
+            out.writeUTF(principal.getEmail());
+            out.writeByte(principal.getUserRole().ordinal());
+            writeNullableUtf(out, principal.getName());
+            writeTimestamp(out, principal.getCreatedAt());
+            writeTimestamp(out, principal.getUpdatedAt());
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        return bytes.toByteArray();
+    }
+
+    public static CustomUserDetails decode(byte[] encoded) {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(encoded))) {
+            byte version = in.readByte();
+            if (version != VERSION) {
+                throw new IllegalArgumentException("Unknown principal encoding version " + version);
+            }
+            long id = in.readLong();
+            String email = in.readUTF();
+            UserRole role = ROLES[in.readByte()];
+            String name = readNullableUtf(in);
+            LocalDateTime createdAt = readTimestamp(in);
+            LocalDateTime updatedAt = readTimestamp(in);
+            return new CustomUserDetails(id >= 0 ? id : null, name, email, role, createdAt, updatedAt, null);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    private static void writeNullableUtf(DataOutputStream out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+
+    private static String readNullableUtf(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    private static void writeTimestamp(DataOutputStream out, LocalDateTime value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeLong(value.toEpochSecond(ZoneOffset.UTC));
+            out.writeInt(value.getNano());
+        }
+    }
+
+    private static LocalDateTime readTimestamp(DataInputStream in) throws IOException {
+        return in.readBoolean() ? LocalDateTime.ofEpochSecond(in.readLong(), in.readInt(), ZoneOffset.UTC) : null;
+    }
+}
@@ -0,0 +1,81 @@
+package app.security;
+
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.security.web.util.matcher.RequestMatcher;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * GET/HEAD requests for public, session-less routes (the SPA shell, its assets, anonymous
+ * probes), compiled once from Ant-style patterns into an exact-path hash set, a root-file
+ * extension table and a prefix table, so selecting the fast-path filter chain is one hash
+ * lookup or a handful of region compares rather than a walk over pattern matchers.
+ * <p>
+ * Supported patterns: literal paths ({@code /favicon.ico}), root files by extension
+ * ({@code /*.js}) and subtrees ({@code /assets/**}, which also covers {@code /assets}).
+ * Anything else is rejected at startup. Paths are matched after the context path; the
+ * firewall has already rejected non-normalized URIs by the time chains are selected.
+ */
+public final class PublicRouteIndex implements RequestMatcher {
+
+    private final Set<String> exact = new HashSet<>();
+    private final String[] rootExtensions;
+    private final String[] prefixes;
+
+    private PublicRouteIndex(String... patterns) {
+        List<String> extensions = new ArrayList<>();
+        List<String> subtrees = new ArrayList<>();
+        for (String pattern : patterns) {
+            if (pattern.startsWith("/*.") && pattern.indexOf('*', 2) < 0 && pattern.indexOf('/', 1) < 0) {
+                extensions.add(pattern.substring(2)); // ".js"
+            } else if (pattern.endsWith("/**") && pattern.indexOf('*') == pattern.length() - 2) {
+                String root = pattern.substring(0, pattern.length() - 3);
+                exact.add(root.isEmpty() ? "/" : root);
+                subtrees.add(root + "/");
+            } else if (pattern.startsWith("/") && pattern.indexOf('*') < 0 && pattern.indexOf('?') < 0) {
+                exact.add(pattern);
+            } else {
+                throw new IllegalArgumentException("Unsupported public route pattern: " + pattern);
+            }
+        }
+        this.rootExtensions = extensions.toArray(String[]::new);
+        this.prefixes = subtrees.toArray(String[]::new);
+    }
+
+    public static PublicRouteIndex compile(String... patterns) {
+        return new PublicRouteIndex(patterns);
+    }
+
+    @Override
+    public boolean matches(HttpServletRequest request) {
+        String method = request.getMethod();
+        if (!"GET".equals(method) && !"HEAD".equals(method)) {
+            return false;
+        }
+        String uri = request.getRequestURI();
+        String contextPath = request.getContextPath();
+        return matchesPath(contextPath.isEmpty() ? uri : uri.substring(contextPath.length()));
+    }
+
+    public boolean matchesPath(String path) {
+        if (exact.contains(path)) {
+            return true;
+        }
+        if (path.lastIndexOf('/') == 0) {
+            for (String extension : rootExtensions) {
+                if (path.length() > extension.length() + 1 && path.endsWith(extension)) {
+                    return true;
+                }
+            }
+        }
+        for (String prefix : prefixes) {
+            if (path.startsWith(prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
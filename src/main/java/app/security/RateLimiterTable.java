@@ -0,0 +1,125 @@
+package app.security;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Lock-free token buckets keyed by string, implemented as GCRA: each bucket is a single
+ * AtomicLong holding its "theoretical arrival time", updated with one CAS per attempt.
+ * <p>
+ * Every key has its own bucket. A bucket whose arrival time is in the past is fully refilled
+ * and indistinguishable from a new one, so {@link #evictIdle()} drops it; a bucket that still
+ * holds back attempts is never dropped. Memory is bounded by failing closed: once
+ * {@code maxEntries} keys are tracked and none has refilled, attempts for new keys are refused
+ * until one does, so flooding the table with throwaway keys cannot reset a drained budget.
+ */
+class RateLimiterTable {
+
+    private static final int MAX_KEY_LENGTH = 254;
+
+    private final ConcurrentHashMap<String, AtomicLong> buckets = new ConcurrentHashMap<>();
+    private final LongSupplier nanoClock;
+    private final long emissionIntervalNanos;
+    private final long burstToleranceNanos;
+    private final int maxEntries;
+    /** Earliest time a full table is swept again from {@link #tryAcquire}, so a flood scans it rarely. */
+    private final AtomicLong nextSweepNanos;
+
+    /**
+     * @param capacity          attempts allowed in a burst
+     * @param refillPeriodNanos nanos for a drained bucket to refill completely
+     */
+    RateLimiterTable(int capacity, long refillPeriodNanos, int maxEntries) {
+        this(capacity, refillPeriodNanos, maxEntries, System::nanoTime);
+    }
+
+    RateLimiterTable(int capacity, long refillPeriodNanos, int maxEntries, LongSupplier nanoClock) {
+        this.emissionIntervalNanos = refillPeriodNanos / capacity;
+        this.burstToleranceNanos = emissionIntervalNanos * (capacity - 1);
+        this.maxEntries = maxEntries;
+        this.nanoClock = nanoClock;
+        this.nextSweepNanos = new AtomicLong(nanoClock.getAsLong());
+    }
+
+    /**
+     * Takes one token for the key.
+     * @return 0 when allowed, otherwise nanos until the next token is available
+     */
+    long tryAcquire(String key) {
+        // longer keys are never legitimate emails or addresses; they share a bucket per prefix
+        String k = truncate(key);
+        long now = nanoClock.getAsLong();
+        AtomicLong bucket = buckets.get(k);
+        if (bucket == null) {
+            if (isFull(now)) {
+                // a retry hint: a flood's single-attempt buckets refill within one interval
+                return emissionIntervalNanos;
+            }
+            bucket = buckets.computeIfAbsent(k, x -> new AtomicLong(Long.MIN_VALUE));
+        }
+        while (true) {
+            long tat = bucket.get();
+            long base = Math.max(tat, now);
+            long allowAt = base - burstToleranceNanos;
+            if (now < allowAt) {
+                return allowAt - now;
+            }
+            if (bucket.compareAndSet(tat, base + emissionIntervalNanos)) {
+                return 0;
+            }
+        }
+    }
+
+    /**
+     * Gives back one token taken by {@link #tryAcquire}, e.g. once the attempt it paid for
+     * turned out to be legitimate. A bucket never holds more than its capacity.
+     */
+    void refund(String key) {
+        AtomicLong bucket = buckets.get(truncate(key));
+        if (bucket == null) {
+            return;
+        }
+        long now = nanoClock.getAsLong();
+        while (true) {
+            long tat = bucket.get();
+            if (tat <= now || bucket.compareAndSet(tat, Math.max(tat - emissionIntervalNanos, now))) {
+                return;
+            }
+        }
+    }
+
+    private static String truncate(String key) {
+        return key.length() > MAX_KEY_LENGTH ? key.substring(0, MAX_KEY_LENGTH) : key;
+    }
+
+    private boolean isFull(long now) {
+        if (buckets.size() < maxEntries) {
+            return false;
+        }
+        long next = nextSweepNanos.get();
+        if (now - next >= 0 && nextSweepNanos.compareAndSet(next, now + emissionIntervalNanos)) {
+            evictIdle();
+        }
+        return buckets.size() >= maxEntries;
+    }
+
+    /**
+     * Removes buckets that have fully refilled. A bucket is only removed if it is still the
+     * one that was checked, so a bucket created for the same key in the meantime stays.
+     */
+    void evictIdle() {
+        long now = nanoClock.getAsLong();
+        for (Map.Entry<String, AtomicLong> entry : buckets.entrySet()) {
+            AtomicLong bucket = entry.getValue();
+            if (bucket.get() <= now) {
+                buckets.remove(entry.getKey(), bucket);
+            }
+        }
+    }
+
+    long size() {
+        return buckets.size();
+    }
+}
@@ -0,0 +1,149 @@
+package app.security;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Stateless bearer tokens (app.security.token.enabled=true), issued on login and verified on
+ * every /api call without touching the session store or the database.
+ * <p>
+ * Format: {@code base64url(kid) "." base64url(expiry || principal) "." base64url(HMAC-SHA256)},
+ * where the principal is the {@link PrincipalCodec} record and expiry is epoch seconds. The key
+ * id header picks the verification key, so keys can be rotated by adding a new
+ * {@code kid:secret} entry, switching app.security.token.active-key-id and dropping the old
+ * entry once its tokens have expired. Tokens cannot be revoked before expiry; keep the TTL short.
+ */
+@Component
+public class SignedTokenService {
+
+    private static final String ALGORITHM = "HmacSHA256";
+    private static final int MIN_SECRET_BYTES = 32;
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    private final boolean enabled;
+    private final Map<String, SecretKeySpec> keys = new HashMap<>();
+    private final String activeKeyId;
+    private final String activeHeader;
+    private final Duration ttl;
+    private Clock clock = Clock.systemUTC();
+
+    // Mac instances are not thread-safe; pooled per key rather than per thread, since a
+    // ThreadLocal would build a new Mac for every request on virtual threads
+    private final Map<String, Queue<Mac>> macs = new HashMap<>();
+
+    public SignedTokenService(@Value("${app.security.token.enabled:false}") boolean enabled,
+                              @Value("${app.security.token.keys:}") String keys,
+                              @Value("${app.security.token.active-key-id:}") String activeKeyId,
+                              @Value("${app.security.token.ttl:15m}") Duration ttl) {
+        this.enabled = enabled;
+        this.ttl = ttl;
+        for (String entry : keys.split(",")) {
+            String trimmed = entry.trim();
+            if (trimmed.isEmpty()) {
+                continue;
+            }
+            int colon = trimmed.indexOf(':');
+            if (colon <= 0) {
+                throw new IllegalArgumentException("Token key must look like kid:base64-secret");
+            }
+            byte[] secret = Base64.getDecoder().decode(trimmed.substring(colon + 1));
+            if (secret.length < MIN_SECRET_BYTES) {
+                throw new IllegalArgumentException("Token key " + trimmed.substring(0, colon)
+                        + " must be at least " + MIN_SECRET_BYTES + " bytes");
+            }
+            this.keys.put(trimmed.substring(0, colon), new SecretKeySpec(secret, ALGORITHM));
+            this.macs.put(trimmed.substring(0, colon), new ConcurrentLinkedQueue<>());
+        }
+        if (enabled && !this.keys.containsKey(activeKeyId)) {
+            throw new IllegalStateException("app.security.token.active-key-id must name one of app.security.token.keys");
+        }
+        this.activeKeyId = activeKeyId;
+        this.activeHeader = ENCODER.encodeToString(activeKeyId.getBytes(StandardCharsets.UTF_8));
+    }
+
+    void setClock(Clock clock) {
+        this.clock = clock;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public Duration getTtl() {
+        return ttl;
+    }
+
+    /** Issues a token for the principal, signed with the active key. */
+    public String issue(CustomUserDetails principal) {
+        byte[] encoded = PrincipalCodec.encode(principal);
+        byte[] payload = ByteBuffer.allocate(Long.BYTES + encoded.length)
+                .putLong(clock.instant().plus(ttl).getEpochSecond())
+                .put(encoded)
+                .array();
+        String signingInput = activeHeader + "." + ENCODER.encodeToString(payload);
+        return signingInput + "." + ENCODER.encodeToString(sign(activeKeyId, signingInput));
+    }
+
+    /**
+     * Returns the principal carried by a valid, unexpired token, or null when the token is
+     * malformed, signed with an unknown key, tampered with or expired.
+     */
+    public CustomUserDetails verify(String token) {
+        int first = token.indexOf('.');
+        int second = token.indexOf('.', first + 1);
+        if (first <= 0 || second < 0 || token.indexOf('.', second + 1) >= 0) {
+            return null;
+        }
+        try {
+            String keyId = new String(DECODER.decode(token.substring(0, first)), StandardCharsets.UTF_8);
+            if (!keys.containsKey(keyId)) {
+                return null;
+            }
+            byte[] expected = sign(keyId, token.substring(0, second));
+            byte[] actual = DECODER.decode(token.substring(second + 1));
+            if (!MessageDigest.isEqual(expected, actual)) {
+                return null;
+            }
+            ByteBuffer payload = ByteBuffer.wrap(DECODER.decode(token.substring(first + 1, second)));
+            if (payload.getLong() <= clock.instant().getEpochSecond()) {
+                return null;
+            }
+            byte[] principal = new byte[payload.remaining()];
+            payload.get(principal);
+            return PrincipalCodec.decode(principal);
+        } catch (IllegalArgumentException ex) {
+            return null; // bad base64 or unknown encoding version
+        }
+    }
+
+    private byte[] sign(String keyId, String signingInput) {
+        Queue<Mac> pool = macs.get(keyId);
+        Mac mac = pool.poll();
+        if (mac == null) {
+            try {
+                mac = Mac.getInstance(ALGORITHM);
+                mac.init(keys.get(keyId));
+            } catch (GeneralSecurityException ex) {
+                throw new IllegalStateException("HMAC-SHA256 unavailable", ex);
+            }
+        }
+        byte[] signature = mac.doFinal(signingInput.getBytes(StandardCharsets.US_ASCII));
+        pool.offer(mac);
+        return signature;
+    }
+}
@@ -0,0 +1,46 @@
+package app.security;
+
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.AuthenticationException;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsService;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * DaoAuthenticationProvider whose successful Authentication carries the password-less copy of
+ * the loaded {@link CustomUserDetails}, so nothing stored in a session or token ever holds the
+ * hash. The loaded instance (with hash) stays in the UserDetailsCache for the next login.
+ * Password checks are timed as auth.login.stage password_verify (user_load is timed around the
+ * UserDetailsService in AuthenticationConfig, since retrieveUser is final).
+ */
+public class SnapshotAuthenticationProvider extends DaoAuthenticationProvider {
+
+    private final LoginMetrics metrics;
+
+    public SnapshotAuthenticationProvider(UserDetailsService userDetailsService, LoginMetrics metrics) {
+        super(userDetailsService);
+        this.metrics = metrics;
+    }
+
+    @Override
+    protected void additionalAuthenticationChecks(UserDetails userDetails, UsernamePasswordAuthenticationToken authentication)
+            throws AuthenticationException {
+        long start = System.nanoTime();
+        try {
+            super.additionalAuthenticationChecks(userDetails, authentication);
+        } finally {
+            metrics.stage(LoginMetrics.Stage.PASSWORD_VERIFY).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    @Override
+    protected Authentication createSuccessAuthentication(Object principal, Authentication authentication,
+                                                         UserDetails user) {
+        Object stripped = principal instanceof CustomUserDetails details ? details.withoutPassword() : principal;
+        // the hash-upgrade check in the superclass still sees the full user
+        return super.createSuccessAuthentication(stripped, authentication, user);
+    }
+}
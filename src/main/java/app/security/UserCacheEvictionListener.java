@@ -0,0 +1,53 @@
+package app.security;
+
+import app.model.User;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * JPA lifecycle hook that keeps {@link UserDetailsCache} consistent with every
+ * write to the users table (register, password rehash, profile edits, deletes).
+ * Inside a transaction the entry is evicted after commit: evicting at flush time would let a
+ * login between flush and commit cache the old row again until the TTL.
+ */
+@Component
+public class UserCacheEvictionListener {
+
+    private final UserDetailsCache userCache;
+
+    public UserCacheEvictionListener(UserDetailsCache userCache) {
+        this.userCache = userCache;
+    }
+
+    @PostPersist
+    public void onInsert(User user) {
+        // a fresh row can only be cached under its email, no id scan needed
+        String email = user.getEmail();
+        afterCommit(() -> userCache.removeUserFromCache(email));
+    }
+
+    @PostUpdate
+    @PostRemove
+    public void onChange(User user) {
+        Long id = user.getId();
+        String email = user.getEmail();
+        afterCommit(() -> userCache.evictUser(id, email));
+    }
+
+    private static void afterCommit(Runnable eviction) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            eviction.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                eviction.run();
+            }
+        });
+    }
+}
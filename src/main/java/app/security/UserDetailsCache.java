@@ -0,0 +1,92 @@
+package app.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.userdetails.UserCache;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Size-bounded, TTL-based cache of loaded principals, keyed by email.
+ * Plugged into the DaoAuthenticationProvider so repeated logins skip
+ * UserRepository.findByEmail. A cached entry that fails the password check
+ * is re-read from the database by the provider, so stale hashes never lock a user out.
+ * A user id to email index lets a write to the users table evict its entry in O(1) even
+ * after an email change.
+ */
+@Component
+public class UserDetailsCache implements UserCache {
+
+    private final Cache<String, UserDetails> cache;
+    private final ConcurrentHashMap<Long, String> emailsById = new ConcurrentHashMap<>();
+
+    public UserDetailsCache(@Value("${app.security.user-cache.max-size:10000}") long maxSize,
+                            @Value("${app.security.user-cache.ttl:5m}") Duration ttl,
+                            MeterRegistry meterRegistry) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                // run on the caller so the index never lists an email that is gone
+                .executor(Runnable::run)
+                .removalListener((String email, UserDetails user, RemovalCause cause) -> {
+                    if (cause != RemovalCause.REPLACED && user instanceof CustomUserDetails details && details.getId() != null) {
+                        emailsById.remove(details.getId(), email);
+                    }
+                })
+                .build();
+        // cache.gets / cache.puts / cache.evictions tagged cache=principals
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "principals");
+    }
+
+    @Override
+    public UserDetails getUserFromCache(String username) {
+        return username == null ? null : cache.getIfPresent(username);
+    }
+
+    @Override
+    public void putUserInCache(UserDetails user) {
+        cache.put(user.getUsername(), user);
+        if (user instanceof CustomUserDetails details && details.getId() != null) {
+            emailsById.put(details.getId(), user.getUsername());
+        }
+    }
+
+    @Override
+    public void removeUserFromCache(String username) {
+        if (username != null) {
+            cache.invalidate(username);
+        }
+    }
+
+    /**
+     * Drops every entry for the given user. Entries are keyed by email, so an
+     * email change would otherwise leave the old key cached until it expires;
+     * the old key is found through the id index rather than a scan.
+     */
+    public void evictUser(Long id, String email) {
+        removeUserFromCache(email);
+        if (id != null) {
+            removeUserFromCache(emailsById.remove(id));
+        }
+    }
+
+    public void clear() {
+        cache.invalidateAll();
+    }
+
+    public long size() {
+        return cache.estimatedSize();
+    }
+
+    int indexedIds() {
+        return emailsById.size();
+    }
+}
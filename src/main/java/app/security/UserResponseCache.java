@@ -0,0 +1,46 @@
+package app.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+/**
+ * GET /api/user bodies and ETags, keyed by user id and updatedAt. The jdbc session store and
+ * bearer tokens decode a fresh principal on every request, so the principal's own memoized
+ * body would be rebuilt and rehashed each time; any write to the user moves updatedAt and
+ * therefore the key, so entries never need evicting, only expiring.
+ */
+@Component
+public class UserResponseCache {
+
+    public record Rendered(byte[] json, String etag) { }
+
+    private record Key(Long id, LocalDateTime updatedAt) { }
+
+    private final Cache<Key, Rendered> cache;
+
+    public UserResponseCache(@Value("${app.security.user-response-cache.max-size:10000}") long maxSize,
+                             @Value("${app.security.user-response-cache.ttl:30m}") Duration ttl,
+                             MeterRegistry meterRegistry) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterAccess(ttl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "user_responses");
+    }
+
+    public Rendered get(CustomUserDetails principal) {
+        if (principal.getId() == null) {
+            return new Rendered(principal.toJson(), principal.getEtag());
+        }
+        return cache.get(new Key(principal.getId(), principal.getUpdatedAt()),
+                key -> new Rendered(principal.toJson(), principal.getEtag()));
+    }
+}
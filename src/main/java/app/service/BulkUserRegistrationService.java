@@ -0,0 +1,314 @@
+package app.service;
+
+import app.audit.AuditEventType;
+import app.audit.AuditLog;
+import app.model.User;
+import app.model.UserRole;
+import app.repository.UserRepository;
+import app.security.OffloadingPasswordEncoder;
+import com.fasterxml.jackson.core.JacksonException;
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.StreamReadConstraints;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Bulk user import behind POST /api/admin/users/bulk.
+ * <p>
+ * The body is a JSON array of user objects or NDJSON (one object per line) and is read as a
+ * token stream, {@code chunkSize} rows at a time. Per chunk: one IN query for existing emails,
+ * passwords hashed in parallel on the password executor, and one transaction whose inserts
+ * Hibernate sends as JDBC batches. One NDJSON result line per input row, tagged with its row
+ * index, is flushed after every chunk, followed by a summary line. An interrupted import
+ * (its request timed out) stops before the next chunk.
+ */
+@Service
+public class BulkUserRegistrationService {
+
+    private static final Logger logger = LoggerFactory.getLogger(BulkUserRegistrationService.class);
+    private static final int MAX_FIELD_LENGTH = 100; // users.name / users.email column size
+
+    public record Summary(int created, int duplicates, int invalid, boolean truncated) { }
+
+    private record Row(int index, String name, String email, String password, UserRole role) { }
+
+    private final UserRepository userRepository;
+    private final PasswordEncoder passwordEncoder;
+    private final TransactionTemplate transactionTemplate;
+    private final AuditLog auditLog;
+    private final JsonFactory jsonFactory;
+    private final int chunkSize;
+    private final int maxRows;
+
+    public BulkUserRegistrationService(UserRepository userRepository,
+                                       PasswordEncoder passwordEncoder,
+                                       PlatformTransactionManager transactionManager,
+                                       AuditLog auditLog,
+                                       @Value("${app.admin.bulk.chunk-size:500}") int chunkSize,
+                                       @Value("${app.admin.bulk.max-rows:100000}") int maxRows) {
+        this.userRepository = userRepository;
+        this.passwordEncoder = passwordEncoder;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.auditLog = auditLog;
+        this.chunkSize = chunkSize;
+        this.maxRows = maxRows;
+        this.jsonFactory = JsonFactory.builder()
+                .streamReadConstraints(StreamReadConstraints.builder()
+                        .maxNestingDepth(8)
+                        .maxStringLength(1024)
+                        .build())
+                .build();
+    }
+
+    public Summary register(InputStream body, OutputStream results) throws IOException {
+        int created = 0;
+        int duplicates = 0;
+        int invalid = 0;
+        boolean truncated = false;
+        Set<String> seen = new HashSet<>(); // emails already handled in this request, lower case
+
+        try (JsonParser parser = jsonFactory.createParser(body);
+             JsonGenerator out = jsonFactory.createGenerator(results, JsonEncoding.UTF8)) {
+            out.setRootValueSeparator(null);
+            JsonToken first = parser.nextToken();
+            boolean array = first == JsonToken.START_ARRAY;
+            JsonToken token = array ? parser.nextToken() : first;
+
+            int index = 0;
+            List<Row> chunk = new ArrayList<>(chunkSize);
+            try {
+                while (token != null && token != JsonToken.END_ARRAY) {
+                    if (index == maxRows) {
+                        truncated = true;
+                        break;
+                    }
+                    Row row = readRow(parser, token, index++);
+                    if (row == null) {
+                        writeResult(out, index - 1, null, "invalid", "Name, email and password are required", null);
+                        invalid++;
+                    } else {
+                        chunk.add(row);
+                    }
+                    if (chunk.size() == chunkSize) {
+                        int[] counts = processChunk(chunk, seen, out);
+                        created += counts[0];
+                        duplicates += counts[1];
+                        chunk.clear();
+                    }
+                    token = parser.nextToken();
+                }
+            } catch (JacksonException ex) {
+                // rows read so far are still imported; the rest of the body is not
+                logger.warn("Bulk registration stopped at row {}: {}", index, ex.getOriginalMessage());
+                writeResult(out, index, null, "error", "Malformed input", null);
+                truncated = true;
+            }
+            int[] counts = processChunk(chunk, seen, out);
+            created += counts[0];
+            duplicates += counts[1];
+
+            Summary summary = new Summary(created, duplicates, invalid, truncated);
+            out.writeStartObject();
+            out.writeStringField("status", "done");
+            out.writeNumberField("created", summary.created());
+            out.writeNumberField("duplicates", summary.duplicates());
+            out.writeNumberField("invalid", summary.invalid());
+            out.writeBooleanField("truncated", summary.truncated());
+            out.writeEndObject();
+            out.writeRaw('\n');
+            return summary;
+        }
+    }
+
+    private Row readRow(JsonParser parser, JsonToken token, int index) throws IOException {
+        if (token != JsonToken.START_OBJECT) {
+            parser.skipChildren();
+            return null;
+        }
+        String name = null;
+        String email = null;
+        String password = null;
+        String role = null;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken value = parser.nextToken();
+            String text = value == JsonToken.VALUE_STRING ? parser.getText() : null;
+            if (text == null) {
+                parser.skipChildren();
+                continue;
+            }
+            switch (field) {
+                case "name" -> name = text;
+                case "email" -> email = text.trim();
+                case "password" -> password = text;
+                case "role" -> role = text;
+                default -> { }
+            }
+        }
+        if (name == null || name.isBlank() || name.length() > MAX_FIELD_LENGTH
+                || email == null || email.isEmpty() || email.length() > MAX_FIELD_LENGTH || email.indexOf('@') <= 0
+                || password == null || password.isEmpty()) {
+            return null;
+        }
+        UserRole userRole = UserRole.USER;
+        if (role != null) {
+            try {
+                userRole = UserRole.valueOf(role.toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException ex) {
+                return null;
+            }
+        }
+        return new Row(index, name, email, password, userRole);
+    }
+
+    /** Returns {created, duplicates} for the chunk and writes a result line per row, in input order. */
+    private int[] processChunk(List<Row> chunk, Set<String> seen, JsonGenerator out) throws IOException {
+        if (chunk.isEmpty()) {
+            return new int[] {0, 0};
+        }
+        if (Thread.currentThread().isInterrupted()) {
+            // the request timed out and the task was cancelled; earlier chunks stay committed
+            throw new InterruptedIOException("Bulk registration cancelled at row " + chunk.get(0).index());
+        }
+        List<Row> candidates = new ArrayList<>(chunk.size());
+        List<String> emails = new ArrayList<>(chunk.size());
+        String[] outcome = new String[chunk.size()];
+        for (int i = 0; i < chunk.size(); i++) {
+            Row row = chunk.get(i);
+            if (seen.add(row.email().toLowerCase(Locale.ROOT))) {
+                candidates.add(row);
+                emails.add(row.email());
+            } else {
+                outcome[i] = "duplicate";
+            }
+        }
+
+        Set<String> existing = new HashSet<>();
+        if (!emails.isEmpty()) {
+            for (String email : userRepository.findExistingEmails(emails)) {
+                existing.add(email.toLowerCase(Locale.ROOT));
+            }
+        }
+        List<Row> fresh = new ArrayList<>(candidates.size());
+        for (Row row : candidates) {
+            if (!existing.contains(row.email().toLowerCase(Locale.ROOT))) {
+                fresh.add(row);
+            }
+        }
+
+        List<String> hashes = hashAll(fresh);
+        List<User> users = new ArrayList<>(fresh.size());
+        for (int i = 0; i < fresh.size(); i++) {
+            Row row = fresh.get(i);
+            User user = new User();
+            user.setName(row.name());
+            user.setEmail(row.email());
+            user.setPassword(hashes.get(i));
+            user.setRole(row.role());
+            users.add(user);
+        }
+        boolean[] inserted = insert(users);
+
+        int created = 0;
+        int duplicates = 0;
+        int next = 0;
+        int base = chunk.get(0).index();
+        for (int i = 0; i < chunk.size(); i++) {
+            Row row = chunk.get(i);
+            if (next < fresh.size() && fresh.get(next) == row) {
+                if (inserted[next]) {
+                    writeResult(out, row.index(), row.email(), "created", null, users.get(next).getId());
+                    auditLog.record(AuditEventType.REGISTRATION, users.get(next).getId(), row.email(), null, "bulk");
+                    created++;
+                } else {
+                    writeResult(out, row.index(), row.email(), "duplicate", null, null);
+                    duplicates++;
+                }
+                next++;
+            } else {
+                writeResult(out, row.index(), row.email(), "duplicate", null, null);
+                duplicates++;
+            }
+        }
+        out.flush();
+        logger.debug("Bulk chunk from row {}: {} created, {} duplicates", base, created, duplicates);
+        return new int[] {created, duplicates};
+    }
+
+    private List<String> hashAll(List<Row> rows) {
+        List<String> passwords = new ArrayList<>(rows.size());
+        rows.forEach(row -> passwords.add(row.password()));
+        if (passwordEncoder instanceof OffloadingPasswordEncoder offloading) {
+            return offloading.encodeAll(passwords);
+        }
+        List<String> hashes = new ArrayList<>(rows.size());
+        passwords.forEach(password -> hashes.add(passwordEncoder.encode(password)));
+        return hashes;
+    }
+
+    /**
+     * Inserts the chunk in one transaction. If a concurrent registration took one of the emails
+     * since the duplicate check, the chunk is retried row by row so only the conflicting rows fail.
+     */
+    private boolean[] insert(List<User> users) {
+        boolean[] inserted = new boolean[users.size()];
+        if (users.isEmpty()) {
+            return inserted;
+        }
+        try {
+            transactionTemplate.executeWithoutResult(status -> userRepository.saveAll(users));
+            Arrays.fill(inserted, true);
+        } catch (DataIntegrityViolationException ex) {
+            for (int i = 0; i < users.size(); i++) {
+                User user = users.get(i);
+                user.setId(null);
+                try {
+                    transactionTemplate.executeWithoutResult(status -> userRepository.save(user));
+                    inserted[i] = true;
+                } catch (DataIntegrityViolationException duplicate) {
+                    inserted[i] = false;
+                }
+            }
+        }
+        return inserted;
+    }
+
+    private static void writeResult(JsonGenerator out, int index, String email, String status,
+                                    String message, Long id) throws IOException {
+        out.writeStartObject();
+        out.writeNumberField("row", index);
+        if (email != null) {
+            out.writeStringField("email", email);
+        }
+        out.writeStringField("status", status);
+        if (id != null) {
+            out.writeNumberField("id", id);
+        }
+        if (message != null) {
+            out.writeStringField("message", message);
+        }
+        out.writeEndObject();
+        out.writeRaw('\n');
+    }
+}
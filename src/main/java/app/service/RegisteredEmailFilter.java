@@ -0,0 +1,183 @@
+package app.service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Bloom filter over registered emails (lower case), used by registration to skip the existence
+ * probe for emails that are certainly new.
+ * <p>
+ * A negative answer is exact for every email this node has seen: the filter is warmed from the
+ * users table once the application is ready and updated on every insert. A positive answer is
+ * only "maybe": it is wrong with probability ~{@code false-positive-rate} while the number of
+ * emails stays below {@code expected-entries}, and degrades beyond that (see the
+ * auth.register.email_filter.fpp gauge); {@link #rebuild()} resizes it and drops deleted emails.
+ * Emails registered on other nodes are missed until the next rebuild, which only costs those
+ * signups the unique-constraint path. Until the first warm-up completes, every email is "maybe".
+ */
+@Component
+public class RegisteredEmailFilter implements MeterBinder {
+
+    private static final Logger logger = LoggerFactory.getLogger(RegisteredEmailFilter.class);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final long expectedEntries;
+    private final double falsePositiveRate;
+
+    private volatile Bits current;
+    private volatile Bits building;
+    private volatile boolean warmed;
+
+    public RegisteredEmailFilter(JdbcTemplate jdbcTemplate,
+                                 @Value("${app.registration.email-filter.expected-entries:1000000}") long expectedEntries,
+                                 @Value("${app.registration.email-filter.false-positive-rate:0.01}") double falsePositiveRate) {
+        this.jdbcTemplate = new JdbcTemplate(jdbcTemplate.getDataSource());
+        this.jdbcTemplate.setFetchSize(1000); // stream the warm-up scan
+        this.expectedEntries = expectedEntries;
+        this.falsePositiveRate = falsePositiveRate;
+        this.current = new Bits(expectedEntries, falsePositiveRate);
+    }
+
+    @Override
+    public void bindTo(MeterRegistry meterRegistry) {
+        Gauge.builder("auth.register.email_filter.entries", this, f -> f.current.count.get())
+                .description("Emails added to the registration filter").register(meterRegistry);
+        Gauge.builder("auth.register.email_filter.fpp", this, f -> f.current.expectedFpp())
+                .description("Current false-positive probability of the registration filter").register(meterRegistry);
+    }
+
+    /** False means the email is certainly not registered (as far as this node knows). */
+    public boolean mightContain(String email) {
+        return !warmed || current.mightContain(key(email));
+    }
+
+    public void add(String email) {
+        String key = key(email);
+        current.add(key);
+        Bits next = building;
+        if (next != null) {
+            next.add(key);
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        rebuild();
+    }
+
+    /**
+     * Rebuilds the filter from the users table, sized for max(expected-entries, 2 x row count).
+     * Lookups keep using the old filter until the new one is complete.
+     * @return number of emails loaded
+     */
+    public synchronized long rebuild() {
+        long started = System.nanoTime();
+        Long rows = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM users", Long.class);
+        Bits next = new Bits(Math.max(expectedEntries, 2 * (rows != null ? rows : 0)), falsePositiveRate);
+        building = next;
+        try {
+            jdbcTemplate.query("SELECT email FROM users", rs -> {
+                next.add(key(rs.getString(1)));
+            });
+            current = next;
+            warmed = true;
+        } finally {
+            building = null;
+        }
+        logger.info("Registered-email filter rebuilt with {} emails ({} bits, {} hashes, fpp {}) in {} ms",
+                next.count.get(), next.bitCount, next.hashes, String.format("%.4f", next.expectedFpp()),
+                (System.nanoTime() - started) / 1_000_000);
+        return next.count.get();
+    }
+
+    public long size() {
+        return current.count.get();
+    }
+
+    public double expectedFalsePositiveRate() {
+        return current.expectedFpp();
+    }
+
+    private static String key(String email) {
+        return email.trim().toLowerCase(Locale.ROOT);
+    }
+
+    /** Bit array with k probes derived by double hashing one 64-bit hash. */
+    private static final class Bits {
+        private final AtomicLongArray words;
+        private final long bitCount;
+        private final int hashes;
+        private final AtomicLong count = new AtomicLong();
+
+        Bits(long entries, double fpp) {
+            long bits = (long) Math.ceil(-entries * Math.log(fpp) / (Math.log(2) * Math.log(2)));
+            int words = (int) Math.min(Integer.MAX_VALUE - 8, Math.max(1, (bits + 63) >>> 6));
+            this.words = new AtomicLongArray(words);
+            this.bitCount = (long) words << 6;
+            this.hashes = Math.max(1, (int) Math.round((double) bitCount / entries * Math.log(2)));
+        }
+
+        void add(String key) {
+            long h1 = hash(key);
+            long h2 = mix(h1 ^ 0x9E3779B97F4A7C15L) | 1;
+            boolean changed = false;
+            for (int i = 0; i < hashes; i++) {
+                long bit = Math.floorMod(h1 + i * h2, bitCount);
+                int word = (int) (bit >>> 6);
+                long mask = 1L << bit;
+                long old;
+                while (((old = words.get(word)) & mask) == 0) {
+                    if (words.compareAndSet(word, old, old | mask)) {
+                        changed = true;
+                        break;
+                    }
+                }
+            }
+            if (changed) {
+                count.incrementAndGet();
+            }
+        }
+
+        boolean mightContain(String key) {
+            long h1 = hash(key);
+            long h2 = mix(h1 ^ 0x9E3779B97F4A7C15L) | 1;
+            for (int i = 0; i < hashes; i++) {
+                long bit = Math.floorMod(h1 + i * h2, bitCount);
+                if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        double expectedFpp() {
+            return Math.pow(1 - Math.exp(-(double) hashes * count.get() / bitCount), hashes);
+        }
+
+        private static long hash(String key) {
+            long h = 0xcbf29ce484222325L; // FNV-1a over the chars, then a full avalanche
+            for (int i = 0; i < key.length(); i++) {
+                h = (h ^ key.charAt(i)) * 0x100000001b3L;
+            }
+            return mix(h);
+        }
+
+        private static long mix(long z) {
+            z = (z ^ (z >>> 33)) * 0xff51afd7ed558ccdL;
+            z = (z ^ (z >>> 33)) * 0xc4ceb93fe53aed63L;
+            return z ^ (z >>> 33);
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package app.service;
+
+import app.model.User;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostUpdate;
+import org.springframework.stereotype.Component;
+
+/**
+ * JPA lifecycle hook that adds every inserted or re-addressed email to
+ * {@link RegisteredEmailFilter}, whichever path wrote it (register, bulk import, edits).
+ */
+@Component
+public class RegisteredEmailListener {
+
+    private final RegisteredEmailFilter emailFilter;
+
+    public RegisteredEmailListener(RegisteredEmailFilter emailFilter) {
+        this.emailFilter = emailFilter;
+    }
+
+    @PostPersist
+    @PostUpdate
+    public void onWrite(User user) {
+        emailFilter.add(user.getEmail());
+    }
+}
@@ -0,0 +1,460 @@
+package app.service;
+
+import app.dto.UserMatch;
+import app.model.UserRole;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory prefix index over user names and emails for type-ahead search, so no keystroke
+ * reaches the database.
+ * <p>
+ * The bulk of the index is an immutable segment of primitive arrays: every user's name and
+ * email in one UTF-8 arena (plus a lower-case copy), and the search keys as offsets into the
+ * lower-case arena, sorted. Keys are the email, the whole name and the name from each later
+ * word on ("smi" finds "John Smith"); they share the arena bytes instead of being copied. A
+ * lookup is a binary search for the prefix and a forward scan over the matching keys.
+ * <p>
+ * Writes (see {@link UserSearchListener}) land in a small map of changed users that overrides
+ * the segment and is scanned linearly; {@link #mergeChanges()} folds it into a new segment
+ * with one linear merge. The segment is built from a streaming scan once the application is
+ * ready; until then searches return nothing.
+ */
+@Component
+public class UserSearchIndex implements MeterBinder {
+
+    private static final Logger logger = LoggerFactory.getLogger(UserSearchIndex.class);
+    private static final UserRole[] ROLES = UserRole.values();
+    private static final int ARRAY_HEADER_BYTES = 16;
+
+    /** Latest state of a user written since the segment was built; removed users have null fields. */
+    private record Change(long id, String name, String email, UserRole role, List<String> keys) {
+
+        static Change of(long id, String name, String email, UserRole role) {
+            List<String> keys = new ArrayList<>(4);
+            for (int start : keyStarts(name)) {
+                keys.add(name.substring(start).toLowerCase(Locale.ROOT));
+            }
+            keys.add(email.toLowerCase(Locale.ROOT));
+            return new Change(id, name, email, role, keys);
+        }
+
+        boolean removed() {
+            return name == null;
+        }
+    }
+
+    /** A hit with the key it matched, for ordering segment and change hits together. */
+    private record Hit(String key, UserMatch match) { }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Map<Long, Change> changes = new ConcurrentHashMap<>();
+    private volatile Segment segment = new Builder().build();
+
+    public UserSearchIndex(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = new JdbcTemplate(jdbcTemplate.getDataSource());
+        this.jdbcTemplate.setFetchSize(1000); // stream the build scan
+    }
+
+    @Override
+    public void bindTo(MeterRegistry meterRegistry) {
+        Gauge.builder("app.search.users", this, UserSearchIndex::size)
+                .description("Users in the search index").register(meterRegistry);
+        Gauge.builder("app.search.bytes", this, UserSearchIndex::footprintBytes)
+                .description("Heap held by the search index segment").register(meterRegistry);
+        Gauge.builder("app.search.pending_changes", changes, Map::size)
+                .description("User writes not yet merged into the search index segment").register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        rebuild();
+    }
+
+    /** Rebuilds the segment from the users table; returns the number of users indexed. */
+    public synchronized int rebuild() {
+        long started = System.nanoTime();
+        Builder builder = new Builder();
+        jdbcTemplate.query("SELECT id, name, email, role FROM users", rs -> {
+            builder.add(rs.getLong(1), rs.getString(2), rs.getString(3), UserRole.valueOf(rs.getString(4)));
+        });
+        // writes that raced with the scan stay in the change map, which overrides the segment
+        segment = builder.build();
+        logger.info("User search index built with {} users ({} KB) in {} ms", segment.users,
+                segment.footprintBytes() / 1024, (System.nanoTime() - started) / 1_000_000);
+        return segment.users;
+    }
+
+    /** Records an inserted or updated user. */
+    public void put(long id, String name, String email, UserRole role) {
+        changes.put(id, Change.of(id, name, email, role));
+    }
+
+    public void remove(long id) {
+        changes.put(id, new Change(id, null, null, null, List.of()));
+    }
+
+    /** Folds the pending changes into a new segment. */
+    @Scheduled(fixedDelayString = "${app.search.merge-interval:30s}")
+    public synchronized void mergeChanges() {
+        if (changes.isEmpty()) {
+            return;
+        }
+        List<Change> merged = List.copyOf(changes.values());
+        segment = segment.merge(merged);
+        for (Change change : merged) {
+            changes.remove(change.id(), change); // unless it changed again meanwhile
+        }
+    }
+
+    /**
+     * Up to {@code limit} users whose name, a word of their name, or email starts with the query
+     * (case-insensitive), in key order. A query with control characters matches nothing: no
+     * key contains them, and a NUL would match the arena's key terminator.
+     */
+    public List<UserMatch> search(String query, int limit) {
+        String prefix = query.trim().toLowerCase(Locale.ROOT);
+        if (prefix.isEmpty() || limit <= 0 || hasControlCharacters(prefix)) {
+            return List.of();
+        }
+        Segment current = segment;
+        List<Hit> hits = new ArrayList<>(limit);
+        current.search(prefix.getBytes(StandardCharsets.UTF_8), limit, changes, hits);
+        if (!changes.isEmpty()) {
+            for (Change change : changes.values()) {
+                if (change.removed()) {
+                    continue;
+                }
+                for (String key : change.keys()) {
+                    if (key.startsWith(prefix)) {
+                        hits.add(new Hit(key, new UserMatch(change.id(), change.name(), change.email(), change.role())));
+                        break;
+                    }
+                }
+            }
+            hits.sort(Comparator.comparing(Hit::key));
+        }
+        // each user is hit at most once: the segment skips changed users and repeated keys
+        return hits.stream().limit(limit).map(Hit::match).toList();
+    }
+
+    public int size() {
+        return segment.users;
+    }
+
+    /** Heap held by the segment's arrays (the pending changes are not counted). */
+    public long footprintBytes() {
+        return segment.footprintBytes();
+    }
+
+    private static boolean hasControlCharacters(String text) {
+        for (int i = 0; i < text.length(); i++) {
+            if (Character.isISOControl(text.charAt(i))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /** Start offsets of the keys taken from a name: the whole name and each later word. */
+    private static List<Integer> keyStarts(String name) {
+        List<Integer> starts = new ArrayList<>(3);
+        starts.add(0);
+        for (int i = 1; i < name.length(); i++) {
+            char previous = name.charAt(i - 1);
+            if ((previous == ' ' || previous == '-') && name.charAt(i) != ' ') {
+                starts.add(i);
+            }
+        }
+        return starts;
+    }
+
+    /**
+     * Immutable index state. User u's display text is {@code name \0 email} at
+     * text[textStart[u]..textStart[u+1]); its lower-case copy {@code name \0 email \0} is at
+     * lower[lowerStart[u]..]. Key i starts at lower[keyPos[i]] and runs to the next 0 byte.
+     */
+    static final class Segment {
+        final int users;
+        final long[] ids;
+        final byte[] roles;
+        final int[] textStart;
+        final byte[] text;
+        final int[] lowerStart;
+        final byte[] lower;
+        final int[] keyPos;
+        final int[] keyUser;
+
+        Segment(int users, long[] ids, byte[] roles, int[] textStart, byte[] text,
+                int[] lowerStart, byte[] lower, int[] keyPos, int[] keyUser) {
+            this.users = users;
+            this.ids = ids;
+            this.roles = roles;
+            this.textStart = textStart;
+            this.text = text;
+            this.lowerStart = lowerStart;
+            this.lower = lower;
+            this.keyPos = keyPos;
+            this.keyUser = keyUser;
+        }
+
+        long footprintBytes() {
+            return 6L * ARRAY_HEADER_BYTES + 8L * ids.length + roles.length + 4L * textStart.length + text.length
+                    + 4L * lowerStart.length + lower.length + 4L * keyPos.length + 4L * keyUser.length;
+        }
+
+        void search(byte[] prefix, int limit, Map<Long, Change> changes, List<Hit> hits) {
+            int from = lowerBound(prefix);
+            Set<Integer> seen = new HashSet<>();
+            for (int i = from; i < keyPos.length && hits.size() < limit && startsWith(keyPos[i], prefix); i++) {
+                int user = keyUser[i];
+                if (!seen.add(user) || (!changes.isEmpty() && changes.containsKey(ids[user]))) {
+                    continue; // already listed, or superseded by a pending change
+                }
+                hits.add(new Hit(key(keyPos[i]), match(user)));
+            }
+        }
+
+        private int lowerBound(byte[] prefix) {
+            int low = 0;
+            int high = keyPos.length;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (compareToPrefix(keyPos[mid], prefix) < 0) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+
+        /** Negative when the key sorts before every key starting with the prefix. */
+        private int compareToPrefix(int pos, byte[] prefix) {
+            for (int i = 0; i < prefix.length; i++) {
+                int a = lower[pos + i] & 0xff;
+                int b = prefix[i] & 0xff;
+                if (a != b) {
+                    return a - b; // a 0 terminator sorts first
+                }
+            }
+            return 0;
+        }
+
+        private boolean startsWith(int pos, byte[] prefix) {
+            return compareToPrefix(pos, prefix) == 0;
+        }
+
+        private String key(int pos) {
+            int end = pos;
+            while (lower[end] != 0) {
+                end++;
+            }
+            return new String(lower, pos, end - pos, StandardCharsets.UTF_8);
+        }
+
+        private UserMatch match(int user) {
+            int start = textStart[user];
+            int end = textStart[user + 1];
+            int separator = start;
+            while (text[separator] != 0) {
+                separator++;
+            }
+            return new UserMatch(ids[user], new String(text, start, separator - start, StandardCharsets.UTF_8),
+                    new String(text, separator + 1, end - separator - 1, StandardCharsets.UTF_8), ROLES[roles[user]]);
+        }
+
+        /** A new segment without the changed users' old entries and with their current state. */
+        Segment merge(List<Change> changed) {
+            Set<Long> changedIds = new HashSet<>(changed.size() * 2);
+            changed.forEach(change -> changedIds.add(change.id()));
+
+            Builder builder = new Builder();
+            int[] newSlot = new int[users];
+            for (int user = 0; user < users; user++) {
+                if (changedIds.contains(ids[user])) {
+                    newSlot[user] = -1;
+                    continue;
+                }
+                newSlot[user] = builder.users;
+                builder.copy(this, user);
+            }
+            int retainedKeys = 0;
+            long[] retained = new long[keyPos.length];
+            for (int i = 0; i < keyPos.length; i++) {
+                int slot = newSlot[keyUser[i]];
+                if (slot >= 0) {
+                    int pos = builder.lowerStart(slot) + keyPos[i] - lowerStart[keyUser[i]];
+                    retained[retainedKeys++] = Builder.pack(pos, slot);
+                }
+            }
+            for (Change change : changed) {
+                if (!change.removed()) {
+                    builder.add(change.id(), change.name(), change.email(), change.role());
+                }
+            }
+            return builder.build(Arrays.copyOf(retained, retainedKeys));
+        }
+    }
+
+    /** Appends users to growable arrays, then sorts the keys into a {@link Segment}. */
+    static final class Builder {
+        private int users;
+        private long[] ids = new long[1024];
+        private byte[] roles = new byte[1024];
+        private int[] textStart = new int[1025];
+        private int[] lowerStart = new int[1025];
+        private final ByteArrayOutputStream text = new ByteArrayOutputStream(64 * 1024);
+        private final ByteArrayOutputStream lower = new ByteArrayOutputStream(64 * 1024);
+        private long[] keys = new long[4096]; // packed (lower offset, user)
+        private int keyCount;
+
+        static long pack(int pos, int user) {
+            return ((long) pos << 32) | (user & 0xffffffffL);
+        }
+
+        int lowerStart(int user) {
+            return lowerStart[user];
+        }
+
+        void add(long id, String name, String email, UserRole role) {
+            int user = append(id, role);
+            byte[] display = (name + '\0' + email).getBytes(StandardCharsets.UTF_8);
+            text.writeBytes(display);
+            int base = lower.size();
+            String lowerName = name.toLowerCase(Locale.ROOT);
+            byte[] lowerBytes = (lowerName + '\0' + email.toLowerCase(Locale.ROOT) + '\0').getBytes(StandardCharsets.UTF_8);
+            lower.writeBytes(lowerBytes);
+            finish(user);
+            for (int start : keyStarts(lowerName)) {
+                addKey(base + lowerName.substring(0, start).getBytes(StandardCharsets.UTF_8).length, user);
+            }
+            addKey(base + lowerName.getBytes(StandardCharsets.UTF_8).length + 1, user);
+        }
+
+        void copy(Segment from, int user) {
+            int slot = append(from.ids[user], ROLES[from.roles[user]]);
+            text.write(from.text, from.textStart[user], from.textStart[user + 1] - from.textStart[user]);
+            lower.write(from.lower, from.lowerStart[user], from.lowerStart[user + 1] - from.lowerStart[user]);
+            finish(slot);
+        }
+
+        private int append(long id, UserRole role) {
+            if (users == ids.length) {
+                ids = Arrays.copyOf(ids, users * 2);
+                roles = Arrays.copyOf(roles, users * 2);
+                textStart = Arrays.copyOf(textStart, users * 2 + 1);
+                lowerStart = Arrays.copyOf(lowerStart, users * 2 + 1);
+            }
+            ids[users] = id;
+            roles[users] = (byte) role.ordinal();
+            textStart[users] = text.size();
+            lowerStart[users] = lower.size();
+            return users;
+        }
+
+        private void finish(int user) {
+            users = user + 1;
+            textStart[users] = text.size();
+            lowerStart[users] = lower.size();
+        }
+
+        private void addKey(int pos, int user) {
+            if (keyCount == keys.length) {
+                keys = Arrays.copyOf(keys, keyCount * 2);
+            }
+            keys[keyCount++] = pack(pos, user);
+        }
+
+        Segment build() {
+            return build(new long[0]);
+        }
+
+        /** Sorts this builder's keys and merges them with already sorted ones. */
+        Segment build(long[] sorted) {
+            byte[] lowerBytes = lower.toByteArray();
+            long[] added = Arrays.copyOf(keys, keyCount);
+            sort(added, lowerBytes);
+            int total = sorted.length + added.length;
+            int[] keyPos = new int[total];
+            int[] keyUser = new int[total];
+            int a = 0;
+            int b = 0;
+            for (int i = 0; i < total; i++) {
+                long next;
+                if (b == added.length || (a < sorted.length && compare(lowerBytes, sorted[a], added[b]) <= 0)) {
+                    next = sorted[a++];
+                } else {
+                    next = added[b++];
+                }
+                keyPos[i] = (int) (next >>> 32);
+                keyUser[i] = (int) next;
+            }
+            return new Segment(users, Arrays.copyOf(ids, users), Arrays.copyOf(roles, users),
+                    Arrays.copyOf(textStart, users + 1), text.toByteArray(),
+                    Arrays.copyOf(lowerStart, users + 1), lowerBytes, keyPos, keyUser);
+        }
+
+        /** Bottom-up merge sort of packed keys by their bytes. */
+        private static void sort(long[] keys, byte[] lower) {
+            long[] source = keys;
+            long[] target = new long[keys.length];
+            for (int width = 1; width < keys.length; width *= 2) {
+                for (int start = 0; start < keys.length; start += 2 * width) {
+                    int middle = Math.min(start + width, keys.length);
+                    int end = Math.min(start + 2 * width, keys.length);
+                    int a = start;
+                    int b = middle;
+                    for (int i = start; i < end; i++) {
+                        if (b == end || (a < middle && compare(lower, source[a], source[b]) <= 0)) {
+                            target[i] = source[a++];
+                        } else {
+                            target[i] = source[b++];
+                        }
+                    }
+                }
+                long[] swap = source;
+                source = target;
+                target = swap;
+            }
+            if (source != keys) {
+                System.arraycopy(source, 0, keys, 0, keys.length);
+            }
+        }
+
+        private static int compare(byte[] lower, long left, long right) {
+            int a = (int) (left >>> 32);
+            int b = (int) (right >>> 32);
+            while (true) {
+                int x = lower[a++] & 0xff;
+                int y = lower[b++] & 0xff;
+                if (x != y) {
+                    return x - y;
+                }
+                if (x == 0) {
+                    return 0;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package app.service;
+
+import app.model.User;
+import app.model.UserRole;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * JPA lifecycle hook that keeps {@link UserSearchIndex} in step with every write to users.
+ * Inside a transaction the index is only touched after commit, so a rolled-back signup never
+ * shows up in search.
+ */
+@Component
+public class UserSearchListener {
+
+    private final UserSearchIndex searchIndex;
+
+    public UserSearchListener(UserSearchIndex searchIndex) {
+        this.searchIndex = searchIndex;
+    }
+
+    @PostPersist
+    @PostUpdate
+    public void onWrite(User user) {
+        long id = user.getId();
+        String name = user.getName();
+        String email = user.getEmail();
+        UserRole role = UserRole.valueOf(user.getRole());
+        afterCommit(() -> searchIndex.put(id, name, email, role));
+    }
+
+    @PostRemove
+    public void onRemove(User user) {
+        long id = user.getId();
+        afterCommit(() -> searchIndex.remove(id));
+    }
+
+    private static void afterCommit(Runnable update) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            update.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                update.run();
+            }
+        });
+    }
+}
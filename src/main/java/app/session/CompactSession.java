@@ -0,0 +1,113 @@
+package app.session;
+
+import org.springframework.session.MapSession;
+import org.springframework.session.Session;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Set;
+
+/**
+ * Session handed out by {@link JdbcCompactSessionRepository}. Tracks what changed since it was
+ * loaded so the repository can tell a full row write from a last-access touch.
+ */
+public final class CompactSession implements Session {
+
+    private final MapSession delegate;
+    private String persistedId;
+    private boolean isNew;
+    private boolean changed;
+
+    CompactSession(MapSession delegate, boolean isNew) {
+        this.delegate = delegate;
+        this.persistedId = isNew ? null : delegate.getId();
+        this.isNew = isNew;
+    }
+
+    MapSession delegate() {
+        return delegate;
+    }
+
+    boolean isNew() {
+        return isNew;
+    }
+
+    /** Attributes, id or timeout changed: the full row must be rewritten. */
+    boolean isChanged() {
+        return changed;
+    }
+
+    String persistedId() {
+        return persistedId;
+    }
+
+    void markPersisted() {
+        isNew = false;
+        changed = false;
+        persistedId = delegate.getId();
+    }
+
+    @Override
+    public String getId() {
+        return delegate.getId();
+    }
+
+    @Override
+    public String changeSessionId() {
+        changed = true;
+        return delegate.changeSessionId();
+    }
+
+    @Override
+    public <T> T getAttribute(String attributeName) {
+        return delegate.getAttribute(attributeName);
+    }
+
+    @Override
+    public Set<String> getAttributeNames() {
+        return delegate.getAttributeNames();
+    }
+
+    @Override
+    public void setAttribute(String attributeName, Object attributeValue) {
+        changed = true;
+        delegate.setAttribute(attributeName, attributeValue);
+    }
+
+    @Override
+    public void removeAttribute(String attributeName) {
+        changed = true;
+        delegate.removeAttribute(attributeName);
+    }
+
+    @Override
+    public Instant getCreationTime() {
+        return delegate.getCreationTime();
+    }
+
+    @Override
+    public void setLastAccessedTime(Instant lastAccessedTime) {
+        delegate.setLastAccessedTime(lastAccessedTime);
+    }
+
+    @Override
+    public Instant getLastAccessedTime() {
+        return delegate.getLastAccessedTime();
+    }
+
+    @Override
+    public void setMaxInactiveInterval(Duration interval) {
+        changed = true;
+        delegate.setMaxInactiveInterval(interval);
+    }
+
+    @Override
+    public Duration getMaxInactiveInterval() {
+        return delegate.getMaxInactiveInterval();
+    }
+
+    @Override
+    public boolean isExpired() {
+        return delegate.isExpired();
+    }
+}
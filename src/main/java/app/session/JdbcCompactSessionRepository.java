@@ -0,0 +1,190 @@
+package app.session;
+
+import app.security.CustomUserDetails;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.SqlParameterValue;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.session.MapSession;
+import org.springframework.session.SessionRepository;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.sql.Types;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Session repository on the application datasource (table app_session), so any node can serve
+ * any session.
+ * <p>
+ * Rows hold the compact attribute encoding from {@link SessionAttributeCodec}. A request that
+ * only touches the session (the common case) does not write: its last-access time is parked in
+ * memory and flushed in one JDBC batch by {@link #flushLastAccess()}. Expired rows are deleted
+ * by {@link #deleteExpired()}, which also refreshes the app.sessions.active gauge, so scrapes
+ * never query the table.
+ */
+public class JdbcCompactSessionRepository implements SessionRepository<CompactSession>, MeterBinder {
+
+    private static final Logger logger = LoggerFactory.getLogger(JdbcCompactSessionRepository.class);
+
+    private static final String INSERT = "INSERT INTO app_session "
+            + "(session_id, creation_time, last_access_time, max_inactive_seconds, expiry_time, principal_id, attributes) "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?)";
+    private static final String UPDATE = "UPDATE app_session SET session_id = ?, last_access_time = ?, "
+            + "max_inactive_seconds = ?, expiry_time = ?, principal_id = ?, attributes = ? WHERE session_id = ?";
+    private static final String TOUCH = "UPDATE app_session SET last_access_time = ?, expiry_time = ? "
+            + "WHERE session_id = ? AND last_access_time < ?";
+    private static final String SELECT = "SELECT creation_time, last_access_time, max_inactive_seconds, attributes "
+            + "FROM app_session WHERE session_id = ?";
+    private static final String DELETE = "DELETE FROM app_session WHERE session_id = ?";
+    private static final String DELETE_EXPIRED = "DELETE FROM app_session WHERE expiry_time < ?";
+    private static final String COUNT_ACTIVE = "SELECT COUNT(*) FROM app_session WHERE expiry_time >= ?";
+
+    private record PendingAccess(long lastAccessMillis, int maxInactiveSeconds) { }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Duration defaultMaxInactiveInterval;
+    private final Map<String, PendingAccess> pendingAccess = new ConcurrentHashMap<>();
+    private volatile long activeSessions;
+
+    public JdbcCompactSessionRepository(JdbcTemplate jdbcTemplate, Duration defaultMaxInactiveInterval) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.defaultMaxInactiveInterval = defaultMaxInactiveInterval;
+    }
+
+    @Override
+    public CompactSession createSession() {
+        MapSession session = new MapSession();
+        session.setMaxInactiveInterval(defaultMaxInactiveInterval);
+        return new CompactSession(session, true);
+    }
+
+    @Override
+    public void save(CompactSession session) {
+        long lastAccess = session.getLastAccessedTime().toEpochMilli();
+        int maxInactive = (int) session.getMaxInactiveInterval().toSeconds();
+        long expiry = lastAccess + maxInactive * 1000L;
+
+        if (session.isNew()) {
+            jdbcTemplate.update(INSERT, session.getId(), session.getCreationTime().toEpochMilli(), lastAccess,
+                    maxInactive, expiry, principalId(session), encode(session));
+        } else if (session.isChanged()) {
+            pendingAccess.remove(session.persistedId());
+            jdbcTemplate.update(UPDATE, session.getId(), lastAccess, maxInactive, expiry,
+                    principalId(session), encode(session), session.persistedId());
+        } else {
+            // touch only: write behind
+            pendingAccess.merge(session.getId(), new PendingAccess(lastAccess, maxInactive),
+                    (old, now) -> now.lastAccessMillis() >= old.lastAccessMillis() ? now : old);
+        }
+        session.markPersisted();
+    }
+
+    @Override
+    public CompactSession findById(String id) {
+        List<CompactSession> found = jdbcTemplate.query(SELECT, (rs, rowNum) -> {
+            MapSession session = new MapSession(id);
+            session.setCreationTime(Instant.ofEpochMilli(rs.getLong("creation_time")));
+            session.setLastAccessedTime(Instant.ofEpochMilli(rs.getLong("last_access_time")));
+            session.setMaxInactiveInterval(Duration.ofSeconds(rs.getInt("max_inactive_seconds")));
+            try {
+                SessionAttributeCodec.decode(rs.getBytes("attributes"), session::setAttribute);
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+            return new CompactSession(session, false);
+        }, id);
+        if (found.isEmpty()) {
+            return null;
+        }
+
+        CompactSession session = found.get(0);
+        PendingAccess pending = pendingAccess.get(id);
+        if (pending != null && pending.lastAccessMillis() > session.getLastAccessedTime().toEpochMilli()) {
+            session.delegate().setLastAccessedTime(Instant.ofEpochMilli(pending.lastAccessMillis()));
+        }
+        if (session.isExpired()) {
+            deleteById(id);
+            return null;
+        }
+        return session;
+    }
+
+    @Override
+    public void deleteById(String id) {
+        pendingAccess.remove(id);
+        jdbcTemplate.update(DELETE, id);
+    }
+
+    /** Writes the parked last-access times in one batch. */
+    @Scheduled(fixedDelayString = "${app.session.access-flush-interval:5s}")
+    public int flushLastAccess() {
+        if (pendingAccess.isEmpty()) {
+            return 0;
+        }
+        List<Object[]> batch = new ArrayList<>(pendingAccess.size());
+        for (String id : List.copyOf(pendingAccess.keySet())) {
+            PendingAccess pending = pendingAccess.remove(id);
+            if (pending != null) {
+                long expiry = pending.lastAccessMillis() + pending.maxInactiveSeconds() * 1000L;
+                batch.add(new Object[] {pending.lastAccessMillis(), expiry, id, pending.lastAccessMillis()});
+            }
+        }
+        jdbcTemplate.batchUpdate(TOUCH, batch);
+        return batch.size();
+    }
+
+    /** Flushes pending touches first so a session kept alive in memory is not swept. */
+    @Scheduled(fixedDelayString = "${app.session.cleanup-interval:1m}")
+    public int deleteExpired() {
+        flushLastAccess();
+        int deleted = jdbcTemplate.update(DELETE_EXPIRED, System.currentTimeMillis());
+        if (deleted > 0) {
+            logger.debug("Deleted {} expired sessions", deleted);
+        }
+        activeSessions = countActive();
+        return deleted;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("app.sessions.active", this, repository -> repository.activeSessions)
+                .description("Unexpired rows in app_session as of the last sweep")
+                .register(registry);
+        Gauge.builder("app.sessions.pending_touches", pendingAccess, Map::size)
+                .description("Last-access updates waiting for the next batch flush")
+                .register(registry);
+    }
+
+    public long countActive() {
+        Long count = jdbcTemplate.queryForObject(COUNT_ACTIVE, Long.class, System.currentTimeMillis());
+        return count != null ? count : 0;
+    }
+
+    private static Object principalId(CompactSession session) {
+        for (String name : session.getAttributeNames()) {
+            CustomUserDetails principal = SessionAttributeCodec.principalOf(session.getAttribute(name));
+            if (principal != null && principal.getId() != null) {
+                return principal.getId();
+            }
+        }
+        return new SqlParameterValue(Types.BIGINT, null);
+    }
+
+    private static byte[] encode(CompactSession session) {
+        try {
+            return SessionAttributeCodec.encode(session);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package app.session;
+
+import app.security.CustomUserDetails;
+import app.security.PrincipalCodec;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextImpl;
+import org.springframework.session.Session;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.function.BiConsumer;
+
+/**
+ * Binary encoding of session attributes. The security context of a logged-in user, which is
+ * what nearly every session holds, is written as a {@link PrincipalCodec} record; any other
+ * attribute falls back to Java serialization.
+ */
+final class SessionAttributeCodec {
+
+    private static final byte PRINCIPAL_CONTEXT = 1;
+    private static final byte SERIALIZED = 2;
+
+    private SessionAttributeCodec() {
+    }
+
+    static byte[] encode(Session session) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(128);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            for (String name : session.getAttributeNames()) {
+                Object value = session.getAttribute(name);
+                if (value == null) {
+                    continue;
+                }
+                out.writeUTF(name);
+                CustomUserDetails principal = principalOf(value);
+                byte[] payload;
+                if (principal != null) {
+                    out.writeByte(PRINCIPAL_CONTEXT);
+                    payload = PrincipalCodec.encode(principal);
+                } else if (value instanceof Serializable serializable) {
+                    out.writeByte(SERIALIZED);
+                    payload = serialize(serializable);
+                } else {
+                    throw new IOException("Session attribute " + name + " is not serializable");
+                }
+                out.writeInt(payload.length);
+                out.write(payload);
+            }
+        }
+        return bytes.toByteArray();
+    }
+
+    static void decode(byte[] encoded, BiConsumer<String, Object> sink) throws IOException {
+        if (encoded == null || encoded.length == 0) {
+            return;
+        }
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(encoded))) {
+            while (in.available() > 0) {
+                String name = in.readUTF();
+                byte type = in.readByte();
+                byte[] payload = new byte[in.readInt()];
+                in.readFully(payload);
+                if (type == PRINCIPAL_CONTEXT) {
+                    CustomUserDetails principal = PrincipalCodec.decode(payload);
+                    sink.accept(name, new SecurityContextImpl(UsernamePasswordAuthenticationToken.authenticated(
+                            principal, null, principal.getAuthorities())));
+                } else {
+                    sink.accept(name, deserialize(payload));
+                }
+            }
+        }
+    }
+
+    /** Returns the principal if the value is a plain logged-in security context. */
+    static CustomUserDetails principalOf(Object value) {
+        if (value instanceof SecurityContext context
+                && context.getAuthentication() instanceof UsernamePasswordAuthenticationToken token
+                && token.getClass() == UsernamePasswordAuthenticationToken.class
+                && token.isAuthenticated()
+                && token.getPrincipal() instanceof CustomUserDetails principal) {
+            return principal;
+        }
+        return null;
+    }
+
+    private static byte[] serialize(Serializable value) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(value);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static Object deserialize(byte[] payload) throws IOException {
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(payload))) {
+            return in.readObject();
+        } catch (ClassNotFoundException ex) {
+            throw new IOException(ex);
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package app.trace;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Bounded, lock-free multi-producer / single-consumer ring of request trace records.
+ * <p>
+ * Slots are preallocated parallel arrays, so recording a trace stores a few primitives and two
+ * existing String references; nothing is allocated. Each slot carries a sequence number
+ * (Vyukov's bounded queue): producers claim a slot with one CAS on the tail and publish it by
+ * advancing the slot's sequence. When the ring is full the record is dropped and counted rather
+ * than making a request thread wait.
+ */
+public class RequestTraceBuffer {
+
+    /** Receives drained records; the String arguments are the references stored at offer time. */
+    @FunctionalInterface
+    public interface Consumer {
+        void accept(long timestampMillis, String method, String path, int status,
+                    boolean sessionPresent, long principalId, long durationNanos);
+    }
+
+    private final int mask;
+    private final AtomicLongArray sequences;
+    private final long[] timestamps;
+    private final String[] methods;
+    private final String[] paths;
+    private final int[] statuses;
+    private final boolean[] sessions;
+    private final long[] principals;
+    private final long[] durations;
+
+    private final AtomicLong tail = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private volatile long head; // written by the consumer thread only
+
+    public RequestTraceBuffer(int requestedCapacity) {
+        int capacity = Integer.highestOneBit(Math.max(1, requestedCapacity - 1)) << 1; // next power of two, at least 2
+        this.mask = capacity - 1;
+        this.sequences = new AtomicLongArray(capacity);
+        for (int i = 0; i < capacity; i++) {
+            sequences.set(i, i);
+        }
+        this.timestamps = new long[capacity];
+        this.methods = new String[capacity];
+        this.paths = new String[capacity];
+        this.statuses = new int[capacity];
+        this.sessions = new boolean[capacity];
+        this.principals = new long[capacity];
+        this.durations = new long[capacity];
+    }
+
+    /** @return false if the ring was full and the record was dropped */
+    public boolean offer(long timestampMillis, String method, String path, int status,
+                         boolean sessionPresent, long principalId, long durationNanos) {
+        long pos = tail.get();
+        while (true) {
+            int index = (int) (pos & mask);
+            long diff = sequences.get(index) - pos;
+            if (diff == 0) {
+                if (tail.compareAndSet(pos, pos + 1)) {
+                    timestamps[index] = timestampMillis;
+                    methods[index] = method;
+                    paths[index] = path;
+                    statuses[index] = status;
+                    sessions[index] = sessionPresent;
+                    principals[index] = principalId;
+                    durations[index] = durationNanos;
+                    sequences.lazySet(index, pos + 1); // publish
+                    return true;
+                }
+                pos = tail.get();
+            } else if (diff < 0) {
+                dropped.incrementAndGet();
+                return false;
+            } else {
+                pos = tail.get();
+            }
+        }
+    }
+
+    /**
+     * Hands up to {@code max} published records to the consumer. Single consumer thread only.
+     * @return number of records drained
+     */
+    public int drain(Consumer consumer, int max) {
+        int drained = 0;
+        while (drained < max) {
+            int index = (int) (head & mask);
+            if (sequences.get(index) != head + 1) {
+                break;
+            }
+            consumer.accept(timestamps[index], methods[index], paths[index], statuses[index],
+                    sessions[index], principals[index], durations[index]);
+            methods[index] = null;
+            paths[index] = null;
+            sequences.lazySet(index, head + mask + 1); // hand the slot back to producers
+            head++;
+            drained++;
+        }
+        return drained;
+    }
+
+    public int capacity() {
+        return mask + 1;
+    }
+
+    public long size() {
+        return tail.get() - head;
+    }
+
+    public long droppedCount() {
+        return dropped.get();
+    }
+}
@@ -0,0 +1,123 @@
+package app.trace;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Sampled request tracing. Request threads only roll the sampling dice and, when sampled, push
+ * primitives into a {@link RequestTraceBuffer}; a single background thread formats the records
+ * and appends them to a rolling file. Unsampled requests cost one random number.
+ */
+@Component
+public class RequestTracer implements SmartLifecycle {
+
+    private static final Logger logger = LoggerFactory.getLogger(RequestTracer.class);
+    private static final int DRAIN_BATCH = 512;
+
+    private final double sampleRate;
+    private final RequestTraceBuffer buffer;
+    private final Path file;
+    private final long maxFileBytes;
+    private final int maxFiles;
+
+    private volatile boolean running;
+    private Thread writerThread;
+
+    public RequestTracer(@Value("${app.trace.sample-rate:0.01}") double sampleRate,
+                         @Value("${app.trace.buffer-size:8192}") int bufferSize,
+                         @Value("${app.trace.file:logs/trace.log}") String file,
+                         @Value("${app.trace.max-file-size:10MB}") DataSize maxFileSize,
+                         @Value("${app.trace.max-files:5}") int maxFiles,
+                         MeterRegistry meterRegistry) {
+        this.sampleRate = sampleRate;
+        this.buffer = new RequestTraceBuffer(bufferSize);
+        this.file = Path.of(file);
+        this.maxFileBytes = maxFileSize.toBytes();
+        this.maxFiles = maxFiles;
+
+        FunctionCounter.builder("app.trace.dropped", buffer, RequestTraceBuffer::droppedCount)
+                .description("Sampled traces dropped because the ring was full").register(meterRegistry);
+        Gauge.builder("app.trace.buffer.size", buffer, RequestTraceBuffer::size)
+                .description("Traces waiting for the writer").register(meterRegistry);
+    }
+
+    public boolean sample() {
+        return sampleRate > 0 && (sampleRate >= 1 || ThreadLocalRandom.current().nextDouble() < sampleRate);
+    }
+
+    public void record(String method, String path, int status, boolean sessionPresent,
+                       long principalId, long durationNanos) {
+        buffer.offer(System.currentTimeMillis(), method, path, status, sessionPresent, principalId, durationNanos);
+    }
+
+    @Override
+    public void start() {
+        if (sampleRate <= 0) {
+            return;
+        }
+        running = true;
+        writerThread = new Thread(this::writeLoop, "request-trace-writer");
+        writerThread.setDaemon(true);
+        writerThread.start();
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        if (writerThread != null) {
+            LockSupport.unpark(writerThread);
+            try {
+                writerThread.join(TimeUnit.SECONDS.toMillis(5));
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    private void writeLoop() {
+        StringBuilder line = new StringBuilder(256);
+        try (RollingTraceFile out = new RollingTraceFile(file, maxFileBytes, maxFiles)) {
+            RequestTraceBuffer.Consumer formatter = (timestamp, method, path, status, session, principal, duration) -> {
+                // ts method path status duration_us session principal_id
+                line.setLength(0);
+                line.append(timestamp).append(' ').append(method).append(' ').append(path).append(' ')
+                        .append(status).append(' ').append(duration / 1_000).append(' ')
+                        .append(session ? 'S' : '-').append(' ').append(principal);
+                try {
+                    out.write(line);
+                } catch (IOException ex) {
+                    throw new IllegalStateException(ex);
+                }
+            };
+            while (running) {
+                if (buffer.drain(formatter, DRAIN_BATCH) == 0) {
+                    out.flush();
+                    LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(20));
+                }
+            }
+            while (buffer.drain(formatter, DRAIN_BATCH) > 0) {
+                // flush what is left on shutdown
+            }
+        } catch (IOException | RuntimeException ex) {
+            logger.error("Request trace writer stopped", ex);
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package app.trace;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Size-based rolling file: trace.log, trace.log.1 ... trace.log.N (oldest dropped).
+ * Used only from the trace writer thread.
+ */
+class RollingTraceFile implements AutoCloseable {
+
+    private final Path file;
+    private final long maxBytes;
+    private final int maxBackups;
+    private BufferedWriter writer;
+    private long written;
+
+    RollingTraceFile(Path file, long maxBytes, int maxBackups) throws IOException {
+        this.file = file;
+        this.maxBytes = maxBytes;
+        this.maxBackups = maxBackups;
+        if (file.getParent() != null) {
+            Files.createDirectories(file.getParent());
+        }
+        open();
+    }
+
+    void write(CharSequence line) throws IOException {
+        if (written >= maxBytes) {
+            roll();
+        }
+        writer.append(line).append('\n');
+        written += line.length() + 1;
+    }
+
+    void flush() throws IOException {
+        writer.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        writer.close();
+    }
+
+    private void open() throws IOException {
+        writer = new BufferedWriter(new OutputStreamWriter(Files.newOutputStream(file,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND), StandardCharsets.UTF_8), 64 * 1024);
+        written = Files.size(file);
+    }
+
+    private void roll() throws IOException {
+        writer.close();
+        for (int i = maxBackups - 1; i >= 1; i--) {
+            Path older = backup(i);
+            if (Files.exists(older)) {
+                Files.move(older, backup(i + 1), StandardCopyOption.REPLACE_EXISTING);
+            }
+        }
+        if (maxBackups > 0) {
+            Files.move(file, backup(1), StandardCopyOption.REPLACE_EXISTING);
+        } else {
+            Files.delete(file);
+        }
+        open();
+    }
+
+    private Path backup(int index) {
+        return file.resolveSibling(file.getFileName() + "." + index);
+    }
+}
@@ -0,0 +1,35 @@
+-- Baseline schema, matching what ddl-auto=create-drop generated for the entities up to this point.
+-- The prod profile validates the entities against it (spring.jpa.hibernate.ddl-auto=validate);
+-- change the schema only by adding a new V<n>__description.sql.
+
+CREATE SEQUENCE users_seq START WITH 1 INCREMENT BY 50;
+
+CREATE TABLE users (
+    id         BIGINT                        NOT NULL PRIMARY KEY,
+    name       VARCHAR(100)                  NOT NULL,
+    email      VARCHAR(100)                  NOT NULL,
+    role       ENUM ('USER', 'ADMIN', 'AGENT') NOT NULL,
+    password   VARCHAR(255)                  NOT NULL,
+    created_at DATETIME(6)                   NOT NULL,
+    updated_at DATETIME(6),
+    CONSTRAINT users_email_uk UNIQUE (email)
+);
+
+-- Externalized HTTP sessions (see app.session.JdbcCompactSessionRepository)
+CREATE TABLE app_session (
+    session_id           VARCHAR(64) NOT NULL PRIMARY KEY,
+    creation_time        BIGINT      NOT NULL,
+    last_access_time     BIGINT      NOT NULL,
+    max_inactive_seconds INT         NOT NULL,
+    expiry_time          BIGINT      NOT NULL,
+    principal_id         BIGINT,
+    attributes           BLOB
+);
+
+CREATE INDEX app_session_expiry_ix ON app_session (expiry_time);
+
+-- Replica lag heartbeat (see app.datasource.ReplicaLagMonitor)
+CREATE TABLE replica_heartbeat (
+    id          INT    NOT NULL PRIMARY KEY,
+    beat_millis BIGINT NOT NULL
+);
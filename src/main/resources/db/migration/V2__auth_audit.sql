@@ -0,0 +1,13 @@
+-- Authentication audit trail (see app.audit.AuditLog); newest first by id
+CREATE TABLE auth_audit (
+    id          BIGINT       NOT NULL AUTO_INCREMENT PRIMARY KEY,
+    occurred_at BIGINT       NOT NULL,
+    event_type  VARCHAR(32)  NOT NULL,
+    user_id     BIGINT,
+    email       VARCHAR(100),
+    remote_addr VARCHAR(45),
+    detail      VARCHAR(255)
+);
+
+CREATE INDEX auth_audit_email_ix ON auth_audit (email, id);
+CREATE INDEX auth_audit_type_ix ON auth_audit (event_type, id);
@@ -0,0 +1,32 @@
+-- Externalized HTTP sessions (see app.session.JdbcCompactSessionRepository)
+CREATE TABLE IF NOT EXISTS app_session (
+    session_id           VARCHAR(64) NOT NULL PRIMARY KEY,
+    creation_time        BIGINT      NOT NULL,
+    last_access_time     BIGINT      NOT NULL,
+    max_inactive_seconds INT         NOT NULL,
+    expiry_time          BIGINT      NOT NULL,
+    principal_id         BIGINT,
+    attributes           BLOB
+);
+
+CREATE INDEX IF NOT EXISTS app_session_expiry_ix ON app_session (expiry_time);
+
+-- Replica lag heartbeat (see app.datasource.ReplicaLagMonitor); a single row, written on the primary
+CREATE TABLE IF NOT EXISTS replica_heartbeat (
+    id          INT    NOT NULL PRIMARY KEY,
+    beat_millis BIGINT NOT NULL
+);
+
+-- Authentication audit trail (see app.audit.AuditLog); newest first by id
+CREATE TABLE IF NOT EXISTS auth_audit (
+    id          BIGINT       NOT NULL AUTO_INCREMENT PRIMARY KEY,
+    occurred_at BIGINT       NOT NULL,
+    event_type  VARCHAR(32)  NOT NULL,
+    user_id     BIGINT,
+    email       VARCHAR(100),
+    remote_addr VARCHAR(45),
+    detail      VARCHAR(255)
+);
+
+CREATE INDEX IF NOT EXISTS auth_audit_email_ix ON auth_audit (email, id);
+CREATE INDEX IF NOT EXISTS auth_audit_type_ix ON auth_audit (event_type, id);
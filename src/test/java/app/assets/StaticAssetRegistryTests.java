@@ -0,0 +1,108 @@
+package app.assets;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayInputStream;
+import java.time.Duration;
+import java.util.zip.GZIPInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class StaticAssetRegistryTests {
+
+    private static final String SCRIPT = "/assets/index-Cls-akSc.js";
+
+    private static StaticAssetRegistry registry;
+
+    @BeforeAll
+    static void load() throws Exception {
+        registry = new StaticAssetRegistry("classpath:/static/", DataSize.ofMegabytes(5), Duration.ofDays(365));
+    }
+
+    private static MockHttpServletResponse get(StaticAsset asset, String acceptEncoding, String ifNoneMatch) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", asset.path());
+        if (acceptEncoding != null) {
+            request.addHeader("Accept-Encoding", acceptEncoding);
+        }
+        if (ifNoneMatch != null) {
+            request.addHeader("If-None-Match", ifNoneMatch);
+        }
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        registry.serve(asset, request, response);
+        return response;
+    }
+
+    @Test
+    void hashedAssetsAreImmutableAndServedGzippedWhenAccepted() throws Exception {
+        StaticAsset script = registry.find(SCRIPT);
+        MockHttpServletResponse response = get(script, "gzip, deflate, br", null);
+
+        assertThat(response.getHeader("Cache-Control")).isEqualTo("public, max-age=31536000, immutable");
+        assertThat(response.getHeader("Content-Encoding")).isEqualTo("gzip");
+        assertThat(response.getHeader("Vary")).isEqualTo("Accept-Encoding");
+        assertThat(response.getContentType()).startsWith("text/javascript");
+        assertThat(response.getContentAsByteArray().length).isLessThan(script.identity().length / 2);
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(response.getContentAsByteArray()))) {
+            assertThat(in.readAllBytes()).isEqualTo(script.identity());
+        }
+    }
+
+    @Test
+    void identityWhenGzipIsNotAcceptedAndEtagsDifferPerEncoding() throws Exception {
+        StaticAsset script = registry.find(SCRIPT);
+        MockHttpServletResponse plain = get(script, "gzip;q=0", null);
+        MockHttpServletResponse gzipped = get(script, "gzip", null);
+
+        assertThat(plain.getHeader("Content-Encoding")).isNull();
+        assertThat(plain.getContentAsByteArray()).isEqualTo(script.identity());
+        assertThat(plain.getHeader("ETag")).isNotEqualTo(gzipped.getHeader("ETag"));
+        assertThat(get(script, "gzip", gzipped.getHeader("ETag")).getStatus()).isEqualTo(304);
+    }
+
+    @Test
+    void acceptEncodingIsNegotiatedWithQZeroAsARefusal() {
+        StaticAsset script = registry.find(SCRIPT);
+        assertThat(StaticAssetRegistry.negotiate(script, "gzip, deflate")).isEqualTo(StaticAsset.Encoding.GZIP);
+        assertThat(StaticAssetRegistry.negotiate(script, " GZIP ;q=0.5")).isEqualTo(StaticAsset.Encoding.GZIP);
+        assertThat(StaticAssetRegistry.negotiate(script, "*")).isEqualTo(StaticAsset.Encoding.GZIP);
+        assertThat(StaticAssetRegistry.negotiate(script, "gzip;q=0")).isEqualTo(StaticAsset.Encoding.IDENTITY);
+        assertThat(StaticAssetRegistry.negotiate(script, "deflate, gzip ; q = 0.000,")).isEqualTo(StaticAsset.Encoding.IDENTITY);
+        assertThat(StaticAssetRegistry.negotiate(script, "gzip;q=0.01")).isEqualTo(StaticAsset.Encoding.GZIP);
+        assertThat(StaticAssetRegistry.negotiate(script, "gzipx, xgzip")).isEqualTo(StaticAsset.Encoding.IDENTITY);
+        assertThat(StaticAssetRegistry.negotiate(script, "")).isEqualTo(StaticAsset.Encoding.IDENTITY);
+
+        assertThat(StaticAssetRegistry.isZeroQuality("q=0.", 0, 4)).isTrue();
+        assertThat(StaticAssetRegistry.isZeroQuality("Q=0", 0, 3)).isTrue();
+        assertThat(StaticAssetRegistry.isZeroQuality("q=1", 0, 3)).isFalse();
+        assertThat(StaticAssetRegistry.isZeroQuality("level=0", 0, 7)).isFalse();
+    }
+
+    @Test
+    void onlyBundlerOutputWithAContentHashIsImmutable() {
+        assertThat(StaticAssetRegistry.isHashed(SCRIPT)).isTrue();
+        assertThat(StaticAssetRegistry.isHashed("/assets/index-0qAUAnrZ.css")).isTrue();
+
+        assertThat(StaticAssetRegistry.isHashed("/apple-touch-icon.png")).isFalse();
+        assertThat(StaticAssetRegistry.isHashed("/android-chrome-192x192.png")).isFalse();
+        assertThat(StaticAssetRegistry.isHashed("/assets/android-chrome-192x192.png")).isFalse();
+        assertThat(StaticAssetRegistry.isHashed("/og-image-20241001.png")).isFalse();
+        assertThat(StaticAssetRegistry.isHashed("/assets/logo.svg")).isFalse();
+        assertThat(registry.find("/react.svg").cacheControl()).isEqualTo("no-cache");
+    }
+
+    @Test
+    void clientRoutesGetTheIndexShellButServerPathsDoNot() throws Exception {
+        StaticAsset shell = registry.spaShell("/dashboard/settings");
+        assertThat(shell).isSameAs(registry.find("/index.html")).isSameAs(registry.find("/"));
+        assertThat(shell.cacheControl()).isEqualTo("no-cache");
+        assertThat(get(shell, null, null).getContentAsString()).contains("<div id=\"root\"></div>");
+
+        assertThat(registry.spaShell("/api/user")).isNull();
+        assertThat(registry.spaShell("/actuator/health")).isNull();
+        assertThat(registry.spaShell("/missing.js")).isNull();
+    }
+}
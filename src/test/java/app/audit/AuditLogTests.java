@@ -0,0 +1,84 @@
+package app.audit;
+
+import app.controller.AdminAuditController;
+import app.dto.AuditEntry;
+import app.dto.AuditPage;
+import app.repository.AuditEventRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class AuditLogTests {
+
+    @Autowired
+    private AuditEventRepository repository;
+
+    @Autowired
+    private AdminAuditController controller;
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    /** Not started, so nothing is written until the test flushes. */
+    private AuditLog auditLog(int capacity, String overflow) {
+        return new AuditLog(repository, capacity, 2, Duration.ofSeconds(1), overflow,
+                Duration.ofMillis(10), Duration.ofSeconds(1), registry);
+    }
+
+    @Test
+    void flushWritesBatchesThatPageNewestFirst() {
+        AuditLog auditLog = auditLog(100, "drop");
+        String email = "audit-" + System.nanoTime() + "@example.com";
+        auditLog.record(AuditEventType.REGISTRATION, 7L, email, "10.0.0.1", null);
+        auditLog.record(AuditEventType.LOGIN_FAILURE, null, email, "10.0.0.1", "bad_credentials");
+        auditLog.record(AuditEventType.LOGIN_SUCCESS, 7L, email, "10.0.0.1", null);
+        auditLog.record(AuditEventType.SESSION_CREATED, 7L, email, "10.0.0.1", null);
+        auditLog.record(AuditEventType.LOGIN_SUCCESS, 7L, email, "10.0.0.2", null);
+
+        assertThat(auditLog.flush()).isEqualTo(5);
+        assertThat(registry.get("app.audit.events").tag("outcome", "written").counter().count()).isEqualTo(5);
+
+        List<String> types = new ArrayList<>();
+        Long cursor = null;
+        int pages = 0;
+        do {
+            AuditPage page = controller.list(cursor, null, email, 2).getBody();
+            page.items().forEach(entry -> types.add(entry.type()));
+            cursor = page.nextCursor();
+            pages++;
+        } while (cursor != null);
+        assertThat(pages).isEqualTo(3);
+        assertThat(types).containsExactly("LOGIN_SUCCESS", "SESSION_CREATED", "LOGIN_SUCCESS", "LOGIN_FAILURE", "REGISTRATION");
+
+        List<AuditEntry> failures = controller.list(null, AuditEventType.LOGIN_FAILURE, email, 50).getBody().items();
+        assertThat(failures).singleElement().satisfies(entry -> {
+            assertThat(entry.userId()).isNull();
+            assertThat(entry.detail()).isEqualTo("bad_credentials");
+            assertThat(entry.remoteAddress()).isEqualTo("10.0.0.1");
+        });
+    }
+
+    @Test
+    void fullQueueDropsInsteadOfFailingTheCaller() {
+        AuditLog dropping = auditLog(2, "drop");
+        AuditLog blocking = auditLog(2, "block");
+        for (AuditLog auditLog : List.of(dropping, blocking)) {
+            for (int i = 0; i < 3; i++) {
+                auditLog.record(AuditEventType.LOGIN_FAILURE, null, "x".repeat(300), null, "throttled");
+            }
+        }
+        assertThat(registry.get("app.audit.events").tag("outcome", "dropped").counter().count()).isEqualTo(2);
+        // oversized values are cut to the column sizes rather than failing the batch
+        assertThat(dropping.flush() + blocking.flush()).isEqualTo(4);
+        assertThat(registry.get("app.audit.events").tag("outcome", "failed").counter().count()).isZero();
+    }
+}
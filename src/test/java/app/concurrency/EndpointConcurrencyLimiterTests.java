@@ -0,0 +1,87 @@
+package app.concurrency;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.ByteArrayOutputStream;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class EndpointConcurrencyLimiterTests {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    @Test
+    void firstMatchingEntryWins() {
+        EndpointConcurrencyLimiter limiter = new EndpointConcurrencyLimiter(
+                "/api/auth/register:2, /api/admin/**:1, /api/**:10", Duration.ZERO, registry);
+
+        assertThat(limiter.find("/api/auth/register").pattern()).isEqualTo("/api/auth/register");
+        assertThat(limiter.find("/api/admin").pattern()).isEqualTo("/api/admin/**");
+        assertThat(limiter.find("/api/admin/users/bulk").pattern()).isEqualTo("/api/admin/**");
+        assertThat(limiter.find("/api/administrators").pattern()).isEqualTo("/api/**");
+        assertThat(limiter.find("/index.html")).isNull();
+    }
+
+    @Test
+    void refusesOnceThePermitsAreTaken() {
+        EndpointConcurrencyLimiter limiter = new EndpointConcurrencyLimiter(
+                "/api/auth/register:2", Duration.ofMillis(10), registry);
+        EndpointConcurrencyLimiter.Limit limit = limiter.find("/api/auth/register");
+
+        assertThat(limiter.tryAcquire(limit)).isTrue();
+        assertThat(limiter.tryAcquire(limit)).isTrue();
+        assertThat(limiter.tryAcquire(limit)).isFalse();
+        assertThat(limit.inFlight()).isEqualTo(2);
+        assertThat(registry.get("app.concurrency.rejected").tag("endpoint", "/api/auth/register").counter().count())
+                .isEqualTo(1);
+
+        limit.release();
+        assertThat(limiter.tryAcquire(limit)).isTrue();
+        assertThat(registry.get("app.concurrency.in_flight").gauge().value()).isEqualTo(2);
+    }
+
+    @Test
+    void rejectsMalformedEntries() {
+        assertThatThrownBy(() -> new EndpointConcurrencyLimiter("/api/user", Duration.ZERO, registry))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new EndpointConcurrencyLimiter("/api/user:0", Duration.ZERO, registry))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void streamedBodyKeepsThePermitUntilItReturns() throws Exception {
+        EndpointConcurrencyLimiter limiter = new EndpointConcurrencyLimiter(
+                "/api/users/export:1", Duration.ofMillis(10), registry);
+        EndpointConcurrencyLimiter.Limit limit = limiter.find("/api/users/export");
+        assertThat(limiter.tryAcquire(limit)).isTrue();
+        EndpointConcurrencyLimiter.Permit permit = new EndpointConcurrencyLimiter.Permit(limit);
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/users/export");
+        request.setAttribute(EndpointConcurrencyLimiter.PERMIT_ATTRIBUTE, permit);
+
+        int[] inFlightWhileWriting = {-1};
+        StreamingResponseBody body = StreamingResponses.bounded(request, Duration.ofMinutes(1),
+                out -> inFlightWhileWriting[0] = limit.inFlight());
+        permit.release(); // the request timed out before the body got a thread
+        assertThat(limit.inFlight()).isZero();
+
+        body.writeTo(new ByteArrayOutputStream());
+        assertThat(inFlightWhileWriting[0]).isEqualTo(-1);
+
+        assertThat(limiter.tryAcquire(limit)).isTrue();
+        EndpointConcurrencyLimiter.Permit next = new EndpointConcurrencyLimiter.Permit(limit);
+        request.setAttribute(EndpointConcurrencyLimiter.PERMIT_ATTRIBUTE, next);
+        body = StreamingResponses.bounded(request, Duration.ofMinutes(1), out -> {
+            next.release(); // request timed out while the body was still writing
+            inFlightWhileWriting[0] = limit.inFlight();
+        });
+        body.writeTo(new ByteArrayOutputStream());
+        assertThat(inFlightWhileWriting[0]).isEqualTo(1);
+        assertThat(limit.inFlight()).isZero();
+    }
+}
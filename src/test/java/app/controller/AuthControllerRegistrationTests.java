@@ -0,0 +1,54 @@
+package app.controller;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class AuthControllerRegistrationTests {
+
+    @Autowired
+    private AuthController authController;
+
+    private int register(String email) {
+        return authController.register(Map.of("name", "Dana", "email", email, "password", "password123"))
+                .getStatusCode().value();
+    }
+
+    @Test
+    void secondRegistrationForAnEmailIsAConflict() {
+        assertThat(register("dana@register.test")).isEqualTo(201);
+        assertThat(register("dana@register.test")).isEqualTo(409);
+    }
+
+    @Test
+    void concurrentRegistrationsForOneEmailYieldOneCreatedAndConflictsOnly() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Callable<Integer>> attempts = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                attempts.add(() -> register("race@register.test"));
+            }
+            List<Integer> statuses = new ArrayList<>();
+            for (Future<Integer> result : executor.invokeAll(attempts)) {
+                statuses.add(result.get());
+            }
+            assertThat(statuses).containsOnly(201, 409);
+            assertThat(statuses).filteredOn(status -> status == 201).hasSize(1);
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
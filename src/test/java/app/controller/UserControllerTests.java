@@ -0,0 +1,146 @@
+package app.controller;
+
+import app.dto.UserMatch;
+import app.dto.UserPage;
+import app.dto.UserSummary;
+import app.model.User;
+import app.model.UserRole;
+import app.repository.UserRepository;
+import app.security.CustomUserDetails;
+import app.security.PrincipalCodec;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class UserControllerTests {
+
+    @Autowired
+    private UserController userController;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @BeforeEach
+    void setUp() {
+        userRepository.deleteAll();
+        List<User> users = new ArrayList<>();
+        for (int i = 0; i < 25; i++) {
+            User user = new User();
+            user.setName("Listed " + i);
+            user.setEmail("listed" + i + "@mail.com");
+            user.setPassword("{bcrypt}secret-hash");
+            user.setRole(UserRole.USER);
+            users.add(user);
+        }
+        userRepository.saveAll(users);
+    }
+
+    @Test
+    void keysetPagesCoverEveryUserOnceInIdOrder() {
+        List<Long> ids = new ArrayList<>();
+        Long cursor = 0L;
+        int pages = 0;
+        while (cursor != null) {
+            UserPage page = userController.listUsers(cursor, 10).getBody();
+            page.items().stream().map(UserSummary::id).forEach(ids::add);
+            cursor = page.nextCursor();
+            pages++;
+        }
+        assertThat(pages).isEqualTo(3);
+        assertThat(ids).hasSize(25).isSorted().doesNotHaveDuplicates();
+    }
+
+    @Test
+    void searchSeesCommittedWritesThroughTheEntityListener() {
+        assertThat(userController.searchUsers("listed 1", 100).getBody())
+                .extracting(UserMatch::email)
+                .containsExactly("listed1@mail.com", "listed10@mail.com", "listed11@mail.com", "listed12@mail.com",
+                        "listed13@mail.com", "listed14@mail.com", "listed15@mail.com", "listed16@mail.com",
+                        "listed17@mail.com", "listed18@mail.com", "listed19@mail.com");
+        assertThat(userController.searchUsers("LISTED", 3).getBody()).hasSize(3);
+
+        User renamed = userRepository.findByEmail("listed7@mail.com").orElseThrow();
+        renamed.setName("Morgan Vale");
+        userRepository.save(renamed);
+        userRepository.delete(userRepository.findByEmail("listed8@mail.com").orElseThrow());
+
+        assertThat(userController.searchUsers("vale", 10).getBody()).singleElement()
+                .extracting(UserMatch::email).isEqualTo("listed7@mail.com");
+        assertThat(userController.searchUsers("listed8@", 10).getBody()).isEmpty();
+    }
+
+    @Test
+    void exportStreamsOneLinePerUserWithoutPasswords() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        userController.exportUsers(new MockHttpServletRequest()).getBody().writeTo(out);
+        String ndjson = out.toString(StandardCharsets.UTF_8);
+
+        assertThat(ndjson.lines()).hasSize(25).allMatch(line -> line.startsWith("{\"id\":"));
+        assertThat(ndjson).contains("\"email\":\"listed0@mail.com\"").doesNotContain("secret-hash");
+    }
+
+    @Test
+    void currentUserServesCachedBytesAndHonoursTheEtag() {
+        CustomUserDetails principal = new CustomUserDetails(7L, "Alex", "alex@mail.com", UserRole.ADMIN,
+                LocalDateTime.of(2025, 12, 4, 18, 59, 9), null, "{bcrypt}secret-hash").withoutPassword();
+        UsernamePasswordAuthenticationToken authentication =
+                UsernamePasswordAuthenticationToken.authenticated(principal, null, principal.getAuthorities());
+
+        MockHttpServletResponse firstResponse = new MockHttpServletResponse();
+        ResponseEntity<byte[]> first = userController.currentUser(authentication,
+                new ServletWebRequest(new MockHttpServletRequest("GET", "/api/user"), firstResponse));
+        assertThat(new String(first.getBody(), StandardCharsets.UTF_8)).isEqualTo(
+                "{\"id\":7,\"name\":\"Alex\",\"email\":\"alex@mail.com\",\"role\":\"ADMIN\","
+                        + "\"createdAt\":\"2025-12-04T18:59:09\",\"updatedAt\":null}");
+        assertThat(first.getHeaders().getETag()).isEqualTo(principal.getEtag());
+        assertThat(principal.toJson()).isSameAs(first.getBody());
+
+        MockHttpServletRequest revalidation = new MockHttpServletRequest("GET", "/api/user");
+        revalidation.addHeader("If-None-Match", principal.getEtag());
+        MockHttpServletResponse notModified = new MockHttpServletResponse();
+        ResponseEntity<byte[]> revalidated = userController.currentUser(authentication, new ServletWebRequest(revalidation, notModified));
+        assertThat(revalidated.getStatusCode().value()).isEqualTo(304);
+        assertThat(revalidated.getBody()).isNull();
+        assertThat(revalidated.getHeaders().getETag()).isEqualTo(principal.getEtag());
+        assertThat(revalidated.getHeaders().getCacheControl()).isEqualTo(first.getHeaders().getCacheControl());
+    }
+
+    @Test
+    void decodedPrincipalsShareTheRenderedBodyUntilTheUserChanges() {
+        CustomUserDetails principal = new CustomUserDetails(8L, "Blair", "blair@mail.com", UserRole.USER,
+                LocalDateTime.of(2025, 12, 4, 18, 59, 9), LocalDateTime.of(2025, 12, 5, 9, 0), null);
+        byte[] encoded = PrincipalCodec.encode(principal);
+
+        byte[] first = currentUserBody(PrincipalCodec.decode(encoded));
+        assertThat(currentUserBody(PrincipalCodec.decode(encoded))).isSameAs(first);
+
+        CustomUserDetails renamed = new CustomUserDetails(8L, "Blair R.", "blair@mail.com", UserRole.USER,
+                principal.getCreatedAt(), LocalDateTime.of(2025, 12, 6, 9, 0), null);
+        assertThat(new String(currentUserBody(PrincipalCodec.decode(PrincipalCodec.encode(renamed))),
+                StandardCharsets.UTF_8)).contains("\"name\":\"Blair R.\"");
+    }
+
+    private byte[] currentUserBody(CustomUserDetails principal) {
+        UsernamePasswordAuthenticationToken authentication =
+                UsernamePasswordAuthenticationToken.authenticated(principal, null, principal.getAuthorities());
+        return userController.currentUser(authentication, new ServletWebRequest(
+                new MockHttpServletRequest("GET", "/api/user"), new MockHttpServletResponse())).getBody();
+    }
+}
@@ -0,0 +1,99 @@
+package app.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+class AdaptivePoolSizerTests {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private HikariDataSource pool;
+
+    @BeforeEach
+    void setUp() {
+        pool = new HikariDataSource();
+        pool.setJdbcUrl("jdbc:h2:mem:pool-" + System.nanoTime());
+        pool.setPoolName("test");
+        pool.setMaximumPoolSize(2);
+        pool.setMinimumIdle(2);
+        pool.setConnectionTimeout(5000);
+        pool.setMetricRegistry(registry);
+    }
+
+    @AfterEach
+    void tearDown() {
+        pool.close();
+        executor.shutdownNow();
+    }
+
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+
+    private CompletableFuture<Connection> acquireAsync() {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return pool.getConnection();
+            } catch (SQLException ex) {
+                throw new IllegalStateException(ex);
+            }
+        }, executor);
+    }
+
+    private AdaptivePoolSizer sizer() {
+        return new AdaptivePoolSizer(List.of(pool), registry, true, 5, 2, Duration.ofMillis(5), 0.5, 2);
+    }
+
+    @Test
+    void warmUpOpensTheMinimumIdleConnections() {
+        assertThat(PoolWarmUp.warm(pool)).isEqualTo(2);
+        assertThat(pool.getHikariPoolMXBean().getTotalConnections()).isEqualTo(2);
+        assertThat(pool.getHikariPoolMXBean().getIdleConnections()).isEqualTo(2);
+    }
+
+    @Test
+    void growsWhileRequestsWaitAndShrinksBackToTheConfiguredSizeWhenQuiet() throws Exception {
+        AdaptivePoolSizer sizer = sizer();
+        PoolWarmUp.warm(pool);
+
+        List<Connection> held = new ArrayList<>(List.of(pool.getConnection(), pool.getConnection()));
+        CompletableFuture<Connection> waiting = acquireAsync();
+        await().atMost(Duration.ofSeconds(5)).until(() -> pool.getHikariPoolMXBean().getThreadsAwaitingConnection() > 0);
+        sizer.adjust();
+        assertThat(pool.getMaximumPoolSize()).isEqualTo(4);
+
+        // Hikari opens a connection per acquire that has to wait; the next one serves the oldest waiter
+        CompletableFuture<Connection> next = acquireAsync();
+        held.add(waiting.get());
+        held.remove(0).close();
+        held.add(next.get());
+
+        sizer.adjust(); // the blocked acquire above pushed the mean wait over target-wait
+        sizer.adjust();
+        assertThat(pool.getMaximumPoolSize()).isEqualTo(5); // capped at max-size
+        assertThat(registry.get("app.datasource.pool.resizes").tag("direction", "grow").counter().count()).isEqualTo(2);
+
+        for (Connection connection : held) {
+            connection.close();
+        }
+        for (int i = 0; i < 8; i++) {
+            sizer.adjust();
+        }
+        assertThat(pool.getMaximumPoolSize()).isEqualTo(2); // one step per shrink-after windows, down to the floor
+        assertThat(pool.getMinimumIdle()).isEqualTo(2);
+        assertThat(registry.get("app.datasource.pool.resizes").tag("direction", "shrink").counter().count()).isEqualTo(3);
+        assertThat(registry.get("app.datasource.pool.size").tag("pool", "test").gauge().value()).isEqualTo(2);
+    }
+}
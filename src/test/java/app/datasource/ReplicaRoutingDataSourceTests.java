@@ -0,0 +1,124 @@
+package app.datasource;
+
+import app.model.User;
+import app.model.UserRole;
+import app.repository.UserRepository;
+import app.security.CustomUserDetailsService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import javax.sql.DataSource;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Two H2 databases stand in for the primary and the replica; "replication" is done by hand so
+ * each test controls exactly what the replica has seen.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:primary;MODE=MariaDB;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+        "app.datasource.replica.url=jdbc:h2:mem:replica;MODE=MariaDB;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+        "app.datasource.replica.probe-interval=1h",
+        "app.datasource.replica.max-lag=5s"
+})
+@ActiveProfiles("test")
+class ReplicaRoutingDataSourceTests {
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private CustomUserDetailsService userDetailsService;
+
+    @Autowired
+    private ReplicaLagMonitor lagMonitor;
+
+    @Autowired
+    @Qualifier("primaryDataSource")
+    private DataSource primaryDataSource;
+
+    @Autowired
+    @Qualifier("replicaDataSource")
+    private DataSource replicaDataSource;
+
+    private JdbcTemplate primary;
+    private JdbcTemplate replica;
+
+    @BeforeEach
+    void setUp() {
+        primary = new JdbcTemplate(primaryDataSource);
+        replica = new JdbcTemplate(replicaDataSource);
+        userRepository.deleteAll();
+        // copy the primary's schema to the replica, without data
+        List<String> script = primary.queryForList("SCRIPT NODATA", String.class);
+        replica.execute("DROP ALL OBJECTS");
+        script.forEach(replica::execute);
+        replica.update("INSERT INTO replica_heartbeat (id, beat_millis) VALUES (1, ?)", System.currentTimeMillis());
+        lagMonitor.probe();
+        // the test framework binds a mock request to the thread; start each test outside one
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @AfterEach
+    void tearDown() {
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @Test
+    void readOnlyQueriesGoToReplicaAndWritesToPrimary() {
+        User saved = userRepository.save(user("writer@example.com"));
+        assertThat(primary.queryForObject("SELECT COUNT(*) FROM users", Integer.class)).isEqualTo(1);
+        assertThat(replica.queryForObject("SELECT COUNT(*) FROM users", Integer.class)).isZero();
+
+        // not replicated yet: the repository's read-only lookup sees the replica
+        assertThat(lagMonitor.isReplicaUsable()).isTrue();
+        assertThat(userRepository.findByEmail("writer@example.com")).isEmpty();
+        assertThat(ReplicaRoutingDataSource.usePrimary(() -> userRepository.findByEmail("writer@example.com")))
+                .map(User::getId).contains(saved.getId());
+    }
+
+    @Test
+    void requestReadsItsOwnWrites() {
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest()));
+        userRepository.save(user("own@example.com"));
+
+        assertThat(userRepository.findByEmail("own@example.com")).isPresent();
+    }
+
+    @Test
+    void laggingReplicaFallsBackToPrimary() {
+        userRepository.save(user("lagged@example.com"));
+        replica.update("UPDATE replica_heartbeat SET beat_millis = ?", System.currentTimeMillis() - 60_000);
+        lagMonitor.probe();
+
+        assertThat(lagMonitor.isReplicaUsable()).isFalse();
+        assertThat(userRepository.findByEmail("lagged@example.com")).isPresent();
+    }
+
+    @Test
+    void loginFindsUserRegisteredBeforeReplicaCaughtUp() {
+        userRepository.save(user("fresh@example.com"));
+
+        assertThat(userDetailsService.loadUserByUsername("fresh@example.com").getUsername())
+                .isEqualTo("fresh@example.com");
+    }
+
+    private static User user(String email) {
+        User user = new User();
+        user.setName("Replica Test");
+        user.setEmail(email);
+        user.setPassword("{noop}secret");
+        user.setRole(UserRole.USER);
+        return user;
+    }
+}
@@ -0,0 +1,132 @@
+package app.security;
+
+import app.model.User;
+import app.model.UserRole;
+import app.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.DelegatingPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class CalibratedBCryptPasswordEncoderTests {
+
+    private static final String EMAIL = "alex@mail.com";
+
+    @Test
+    void calibrationStaysWithinTheCostBounds() {
+        // nothing fits a zero budget: the minimum is still used
+        assertThat(CalibratedBCryptPasswordEncoder.calibrate(4, 6, Duration.ZERO)).isEqualTo(4);
+        // everything fits a generous budget: the maximum caps it
+        assertThat(CalibratedBCryptPasswordEncoder.calibrate(4, 6, Duration.ofMinutes(1))).isEqualTo(6);
+        assertThat(CalibratedBCryptPasswordEncoder.calibrate(5, 5, Duration.ofMinutes(1))).isEqualTo(5);
+    }
+
+    @Test
+    void upgradeIsRequestedOnlyForWellFormedHashesOfALowerCost() {
+        CalibratedBCryptPasswordEncoder encoder = new CalibratedBCryptPasswordEncoder(5);
+        String cost4 = new BCryptPasswordEncoder(4).encode("secret");
+        String cost5 = encoder.encode("secret");
+        String cost6 = new BCryptPasswordEncoder(6).encode("secret");
+
+        assertThat(encoder.upgradeEncoding(cost4)).isTrue();
+        assertThat(encoder.upgradeEncoding(cost5)).isFalse();
+        assertThat(encoder.upgradeEncoding(cost6)).isFalse(); // never downgraded
+        assertThat(encoder.upgradeEncoding(cost4.replace("$2a$", "$2b$"))).isTrue();
+
+        assertThat(encoder.upgradeEncoding(null)).isFalse();
+        assertThat(encoder.upgradeEncoding("")).isFalse();
+        assertThat(encoder.upgradeEncoding("$2a$")).isFalse();
+        assertThat(encoder.upgradeEncoding("$2a$1x$" + cost4.substring(7))).isFalse();
+        assertThat(encoder.upgradeEncoding("$2a$99$" + cost4.substring(7))).isFalse();
+        assertThat(encoder.upgradeEncoding("$2a$04$" + cost4.substring(7, 30))).isFalse(); // truncated
+        assertThat(encoder.upgradeEncoding("$5$04$" + cost4.substring(7))).isFalse();
+        assertThat(encoder.upgradeEncoding("plain-text-password")).isFalse();
+    }
+
+    @Test
+    void loginRehashesAStoredHashOfAnotherCost() {
+        UserRepository userRepository = mock(UserRepository.class);
+        User user = new User();
+        user.setId(1L);
+        user.setName("Alex");
+        user.setEmail(EMAIL);
+        user.setRole(UserRole.USER);
+        user.setPassword(new BCryptPasswordEncoder(4).encode("password123"));
+        when(userRepository.findByEmail(EMAIL)).thenReturn(Optional.of(user));
+        when(userRepository.save(any(User.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        CalibratedBCryptPasswordEncoder encoder = new CalibratedBCryptPasswordEncoder(5);
+        provider(userRepository, encoder).authenticate(new UsernamePasswordAuthenticationToken(EMAIL, "password123"));
+
+        ArgumentCaptor<User> saved = ArgumentCaptor.forClass(User.class);
+        verify(userRepository).save(saved.capture());
+        assertThat(saved.getValue().getPassword()).startsWith("$2a$05$");
+        assertThat(encoder.matches("password123", saved.getValue().getPassword())).isTrue();
+
+        // the rewritten hash has the current cost: the next login leaves it alone
+        UserRepository unchanged = mock(UserRepository.class);
+        when(unchanged.findByEmail(EMAIL)).thenReturn(Optional.of(saved.getValue()));
+        provider(unchanged, encoder).authenticate(new UsernamePasswordAuthenticationToken(EMAIL, "password123"));
+        verify(unchanged, never()).save(any(User.class));
+    }
+
+    @Test
+    void legacyHashesGainThePrefixAndStrongerHashesAreKept() {
+        CalibratedBCryptPasswordEncoder bcrypt = new CalibratedBCryptPasswordEncoder(5);
+        DelegatingPasswordEncoder encoder = new DelegatingPasswordEncoder("bcrypt", Map.of("bcrypt", bcrypt));
+        encoder.setDefaultPasswordEncoderForMatches(bcrypt);
+
+        // an unprefixed hash from before the {bcrypt} id is rewritten with it
+        User legacy = user(new BCryptPasswordEncoder(5).encode("password123"));
+        UserRepository legacyRepository = repository(legacy);
+        provider(legacyRepository, encoder).authenticate(new UsernamePasswordAuthenticationToken(EMAIL, "password123"));
+        ArgumentCaptor<User> saved = ArgumentCaptor.forClass(User.class);
+        verify(legacyRepository).save(saved.capture());
+        assertThat(saved.getValue().getPassword()).startsWith("{bcrypt}$2a$05$");
+
+        // a hash stronger than the current cost, e.g. after calibrating on a faster box, stays
+        User stronger = user("{bcrypt}" + new BCryptPasswordEncoder(6).encode("password123"));
+        UserRepository strongerRepository = repository(stronger);
+        provider(strongerRepository, encoder).authenticate(new UsernamePasswordAuthenticationToken(EMAIL, "password123"));
+        verify(strongerRepository, never()).save(any(User.class));
+    }
+
+    private static User user(String passwordHash) {
+        User user = new User();
+        user.setId(1L);
+        user.setName("Alex");
+        user.setEmail(EMAIL);
+        user.setRole(UserRole.USER);
+        user.setPassword(passwordHash);
+        return user;
+    }
+
+    private static UserRepository repository(User user) {
+        UserRepository userRepository = mock(UserRepository.class);
+        when(userRepository.findByEmail(EMAIL)).thenReturn(Optional.of(user));
+        when(userRepository.save(any(User.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        return userRepository;
+    }
+
+    private static DaoAuthenticationProvider provider(UserRepository userRepository, PasswordEncoder encoder) {
+        CustomUserDetailsService userDetailsService = new CustomUserDetailsService(userRepository, "");
+        DaoAuthenticationProvider provider = new DaoAuthenticationProvider(userDetailsService);
+        provider.setUserDetailsPasswordService(userDetailsService);
+        provider.setPasswordEncoder(encoder);
+        return provider;
+    }
+}
@@ -0,0 +1,86 @@
+package app.security;
+
+import jakarta.servlet.http.Cookie;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.web.csrf.CsrfToken;
+
+import java.util.Base64;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class HmacCsrfTokenRepositoryTests {
+
+    private static final String KEY_1 = "k1:" + Base64.getEncoder().encodeToString(new byte[32]);
+    private static final String KEY_2 = "k2:" + Base64.getEncoder().encodeToString("0123456789abcdef0123456789abcdef".getBytes());
+
+    private final HmacCsrfTokenRepository repository = new HmacCsrfTokenRepository(KEY_1 + "," + KEY_2, "k1", "hmac", true);
+
+    private static MockHttpServletRequest withCookie(CsrfToken token) {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.setCookies(new Cookie(HmacCsrfTokenRepository.COOKIE_NAME, token.getToken()));
+        return request;
+    }
+
+    @Test
+    void sessionTokenIsDerivedFromTheSessionAndStable() {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.getSession(true);
+        CsrfToken token = repository.generateToken(request);
+
+        assertThat(repository.generateToken(request).getToken()).isEqualTo(token.getToken());
+        MockHttpServletRequest next = withCookie(token);
+        next.setSession(request.getSession());
+        assertThat(repository.loadToken(next).getToken()).isEqualTo(token.getToken());
+
+        MockHttpServletRequest otherSession = withCookie(token);
+        otherSession.getSession(true);
+        assertThat(repository.loadToken(otherSession)).isNull();
+        assertThat(repository.loadToken(withCookie(token))).isNull(); // session gone
+    }
+
+    @Test
+    void anonymousTokenIsOnlyValidWithoutASession() {
+        CsrfToken token = repository.generateToken(new MockHttpServletRequest());
+
+        assertThat(repository.loadToken(withCookie(token)).getToken()).isEqualTo(token.getToken());
+        MockHttpServletRequest loggedIn = withCookie(token);
+        loggedIn.getSession(true);
+        assertThat(repository.loadToken(loggedIn)).isNull();
+    }
+
+    @Test
+    void rejectsTamperedAndUnknownKeyTokens() {
+        String token = repository.generateToken(new MockHttpServletRequest()).getToken();
+        String tampered = token.substring(0, token.length() - 2) + (token.endsWith("AA") ? "AB" : "AA");
+
+        assertThat(repository.isValid(tampered, null)).isFalse();
+        assertThat(repository.isValid("garbage", null)).isFalse();
+        assertThat(repository.isValid("!!.x.y", null)).isFalse();
+        assertThat(new HmacCsrfTokenRepository(KEY_2, "k2", "hmac", true).isValid(token, null)).isFalse();
+        assertThat(new HmacCsrfTokenRepository(KEY_2 + "," + KEY_1, "k2", "hmac", true).isValid(token, null)).isTrue();
+    }
+
+    @Test
+    void writesTheCookieOnlyWhenItChanges() {
+        CsrfToken token = repository.generateToken(new MockHttpServletRequest());
+
+        MockHttpServletResponse unchanged = new MockHttpServletResponse();
+        repository.saveToken(token, withCookie(token), unchanged);
+        assertThat(unchanged.getHeaders("Set-Cookie")).isEmpty();
+
+        MockHttpServletResponse fresh = new MockHttpServletResponse();
+        repository.saveToken(token, new MockHttpServletRequest(), fresh);
+        assertThat(fresh.getHeader("Set-Cookie")).startsWith("XSRF-TOKEN=" + token.getToken() + ";");
+    }
+
+    @Test
+    void refusesToStartWithoutKeysWhenRequired() {
+        assertThatThrownBy(() -> new HmacCsrfTokenRepository("", "", "hmac", true))
+                .isInstanceOf(IllegalStateException.class);
+        assertThat(new HmacCsrfTokenRepository("", "", "cookie", true)).isNotNull();
+        assertThat(new HmacCsrfTokenRepository("", "", "hmac", false)).isNotNull();
+    }
+}
@@ -0,0 +1,62 @@
+package app.security;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class LoginCredentialsParserTests {
+
+    private final LoginCredentialsParser parser = new LoginCredentialsParser(1024, 4);
+
+    private static InputStream body(String json) {
+        return new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void extractsEmailAndPasswordAndSkipsOtherFields() throws IOException {
+        LoginCredentialsParser.Credentials creds = parser.parse(
+                body("{\"remember\":true,\"meta\":{\"a\":[1,2]},\"email\":\"alex@mail.com\",\"password\":\"secret\"}"));
+
+        assertThat(creds.email()).isEqualTo("alex@mail.com");
+        assertThat(creds.password()).isEqualTo("secret");
+    }
+
+    @Test
+    void stopsReadingOnceBothFieldsAreFound() throws IOException {
+        // the trailing garbage is never reached
+        LoginCredentialsParser.Credentials creds = parser.parse(body("{\"email\":\"a@b.c\",\"password\":\"p\", !!!"));
+
+        assertThat(creds.email()).isEqualTo("a@b.c");
+    }
+
+    @Test
+    void rejectsMissingFields() {
+        assertThatThrownBy(() -> parser.parse(body("{\"email\":\"a@b.c\"}")))
+                .isInstanceOf(MalformedCredentialsException.class);
+    }
+
+    @Test
+    void rejectsNonStringValuesAndNonObjectBodies() {
+        assertThatThrownBy(() -> parser.parse(body("{\"email\":{\"x\":1},\"password\":\"p\"}")))
+                .isInstanceOf(MalformedCredentialsException.class);
+        assertThatThrownBy(() -> parser.parse(body("[\"a@b.c\",\"p\"]")))
+                .isInstanceOf(MalformedCredentialsException.class);
+        assertThatThrownBy(() -> parser.parse(body("{\"email\":")))
+                .isInstanceOf(MalformedCredentialsException.class);
+    }
+
+    @Test
+    void rejectsOversizedAndDeeplyNestedBodies() {
+        String padding = "x".repeat(2048);
+        assertThatThrownBy(() -> parser.parse(body("{\"pad\":\"" + padding + "\",\"email\":\"a@b.c\",\"password\":\"p\"}")))
+                .isInstanceOf(MalformedCredentialsException.class);
+        assertThatThrownBy(() -> parser.parse(body("{\"a\":{\"b\":{\"c\":{\"d\":{\"e\":1}}}},\"email\":\"a@b.c\",\"password\":\"p\"}")))
+                .isInstanceOf(MalformedCredentialsException.class);
+    }
+}
@@ -0,0 +1,106 @@
+package app.security;
+
+import app.model.User;
+import app.model.UserRole;
+import app.repository.UserRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.prometheusmetrics.PrometheusMeterRegistry;
+import jakarta.servlet.http.Cookie;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.web.FilterChainProxy;
+import org.springframework.security.web.csrf.CsrfToken;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@AutoConfigureObservability(tracing = false) // metrics export is off in tests by default
+@ActiveProfiles("test")
+class LoginMetricsTests {
+
+    @Autowired
+    private FilterChainProxy springSecurityFilterChain;
+
+    @Autowired
+    private HmacCsrfTokenRepository csrfTokenRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private PrometheusMeterRegistry prometheus;
+
+    private MockHttpServletResponse login(String email, String password) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/auth/login");
+        request.setServletPath("/api/auth/login");
+        request.setRemoteAddr("10.3.0.1");
+        request.setContentType("application/json");
+        request.setContent(("{\"email\":\"" + email + "\",\"password\":\"" + password + "\"}").getBytes(StandardCharsets.UTF_8));
+        CsrfToken token = csrfTokenRepository.generateToken(request);
+        request.setCookies(new Cookie(HmacCsrfTokenRepository.COOKIE_NAME, token.getToken()));
+        request.addHeader(token.getHeaderName(), token.getToken());
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        springSecurityFilterChain.doFilter(request, response, new MockFilterChain());
+        return response;
+    }
+
+    private double attempts(String outcome) {
+        return meterRegistry.get("auth.login.attempts").tag("outcome", outcome).counter().count();
+    }
+
+    private long stage(String stage) {
+        return meterRegistry.get("auth.login.stage").tag("stage", stage).timer().count();
+    }
+
+    @Test
+    void loginsAreCountedByOutcomeAndTimedPerStage() throws Exception {
+        String email = "metrics-" + System.nanoTime() + "@example.com";
+        User user = new User();
+        user.setName("Metrics");
+        user.setEmail(email);
+        user.setPassword(passwordEncoder.encode("secret-1"));
+        user.setRole(UserRole.USER);
+        userRepository.save(user);
+
+        double badCredentials = attempts("bad_credentials");
+        double success = attempts("success");
+        long parse = stage("parse");
+        long userLoad = stage("user_load");
+        long passwordVerify = stage("password_verify");
+        long sessionSave = stage("session_save");
+
+        assertThat(login(email, "wrong").getStatus()).isEqualTo(401);
+        assertThat(attempts("bad_credentials")).isEqualTo(badCredentials + 1);
+        assertThat(attempts("success")).isEqualTo(success);
+        assertThat(stage("parse")).isEqualTo(parse + 1);
+        assertThat(stage("user_load")).isEqualTo(userLoad + 1);
+        assertThat(stage("password_verify")).isEqualTo(passwordVerify + 1);
+        assertThat(stage("session_save")).isEqualTo(sessionSave);
+
+        assertThat(login(email, "secret-1").getStatus()).isEqualTo(200);
+        assertThat(attempts("success")).isEqualTo(success + 1);
+        assertThat(stage("parse")).isEqualTo(parse + 2);
+        assertThat(stage("user_load")).isEqualTo(userLoad + 2); // only successful logins are cached
+        assertThat(stage("password_verify")).isEqualTo(passwordVerify + 2);
+        assertThat(stage("session_save")).isEqualTo(sessionSave + 1);
+
+        String scrape = prometheus.scrape();
+        assertThat(scrape).contains("auth_login_stage_seconds_bucket{stage=\"password_verify\"");
+        assertThat(scrape).contains("auth_login_attempts_total{outcome=\"bad_credentials\"}");
+    }
+}
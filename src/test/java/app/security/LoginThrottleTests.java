@@ -0,0 +1,102 @@
+package app.security;
+
+import app.model.User;
+import app.model.UserRole;
+import app.repository.UserRepository;
+import jakarta.servlet.http.Cookie;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.web.FilterChainProxy;
+import org.springframework.security.web.csrf.CsrfToken;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = {
+        "app.security.login-throttle.ip.capacity=3",
+        "app.security.login-throttle.ip.refill-period=1h",
+        "app.security.login-throttle.email.capacity=2",
+        "app.security.login-throttle.email.refill-period=1h"})
+@ActiveProfiles("test")
+class LoginThrottleTests {
+
+    @Autowired
+    private FilterChainProxy springSecurityFilterChain;
+
+    @Autowired
+    private HmacCsrfTokenRepository csrfTokenRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    private MockHttpServletResponse login(String ip, String email) throws Exception {
+        return login(ip, email, "wrong");
+    }
+
+    private MockHttpServletResponse login(String ip, String email, String password) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/auth/login");
+        request.setServletPath("/api/auth/login");
+        request.setRemoteAddr(ip);
+        request.setContentType("application/json");
+        request.setContent(("{\"email\":\"" + email + "\",\"password\":\"" + password + "\"}").getBytes(StandardCharsets.UTF_8));
+        CsrfToken token = csrfTokenRepository.generateToken(request);
+        request.setCookies(new Cookie(HmacCsrfTokenRepository.COOKIE_NAME, token.getToken()));
+        request.addHeader(token.getHeaderName(), token.getToken());
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        springSecurityFilterChain.doFilter(request, response, new MockFilterChain());
+        return response;
+    }
+
+    @Test
+    void clientIpIsRefusedWith429OnceItsBudgetIsSpent() throws Exception {
+        for (int i = 0; i < 3; i++) {
+            assertThat(login("10.1.0.1", "ip-budget-" + i + "@mail.com").getStatus()).isEqualTo(401);
+        }
+        MockHttpServletResponse throttled = login("10.1.0.1", "ip-budget-3@mail.com");
+        assertThat(throttled.getStatus()).isEqualTo(429);
+        // a token comes back every 20 minutes
+        assertThat(Long.parseLong(throttled.getHeader("Retry-After"))).isBetween(1_190L, 1_200L);
+
+        assertThat(login("10.1.0.2", "ip-budget-3@mail.com").getStatus()).isEqualTo(401);
+    }
+
+    @Test
+    void accountIsRefusedWith429FromAnyAddressOnceItsBudgetIsSpent() throws Exception {
+        assertThat(login("10.2.0.1", "Account-Budget@mail.com").getStatus()).isEqualTo(401);
+        assertThat(login("10.2.0.2", "account-budget@mail.com ").getStatus()).isEqualTo(401);
+
+        MockHttpServletResponse throttled = login("10.2.0.3", "account-budget@mail.com");
+        assertThat(throttled.getStatus()).isEqualTo(429);
+        // a token comes back every 30 minutes
+        assertThat(Long.parseLong(throttled.getHeader("Retry-After"))).isBetween(1_790L, 1_800L);
+
+        assertThat(login("10.2.0.3", "other-account@mail.com").getStatus()).isEqualTo(401);
+    }
+
+    @Test
+    void successfulLoginsDoNotSpendTheAccountBudget() throws Exception {
+        User user = new User();
+        user.setName("Regular");
+        user.setEmail("regular-login@mail.com");
+        user.setPassword(passwordEncoder.encode("secret-1"));
+        user.setRole(UserRole.USER);
+        userRepository.save(user);
+
+        for (int i = 0; i < 4; i++) {
+            assertThat(login("10.3.0." + i, "regular-login@mail.com", "secret-1").getStatus()).as("login %d", i).isEqualTo(200);
+        }
+        assertThat(login("10.3.0.10", "regular-login@mail.com").getStatus()).isEqualTo(401);
+        assertThat(login("10.3.0.11", "regular-login@mail.com").getStatus()).isEqualTo(401);
+        assertThat(login("10.3.0.12", "regular-login@mail.com").getStatus()).isEqualTo(429);
+    }
+}
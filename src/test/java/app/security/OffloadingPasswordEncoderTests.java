@@ -0,0 +1,128 @@
+package app.security;
+
+import app.model.User;
+import app.model.UserRole;
+import app.repository.UserRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.ProviderManager;
+import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class OffloadingPasswordEncoderTests {
+
+    private static final String EMAIL = "alex@mail.com";
+
+    private final BCryptPasswordEncoder bcrypt = new BCryptPasswordEncoder(4);
+    private final String hash = bcrypt.encode("password123");
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final CountDownLatch gate = new CountDownLatch(1);
+    private final ExecutorService callers = Executors.newCachedThreadPool();
+    private volatile boolean blocking;
+
+    /** BCrypt whose matches() waits for the gate while blocking is set. */
+    private final PasswordEncoder gatedBcrypt = new PasswordEncoder() {
+        @Override
+        public String encode(CharSequence rawPassword) {
+            return bcrypt.encode(rawPassword);
+        }
+
+        @Override
+        public boolean matches(CharSequence rawPassword, String encodedPassword) {
+            if (blocking) {
+                try {
+                    gate.await();
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            return bcrypt.matches(rawPassword, encodedPassword);
+        }
+    };
+
+    @AfterEach
+    void tearDown() {
+        gate.countDown();
+        callers.shutdownNow();
+    }
+
+    private JsonUsernamePasswordAuthFilter loginFilter(PasswordEncoder encoder) {
+        UserRepository userRepository = mock(UserRepository.class);
+        User user = new User();
+        user.setId(1L);
+        user.setName("Alex");
+        user.setEmail(EMAIL);
+        user.setRole(UserRole.USER);
+        user.setPassword(hash);
+        when(userRepository.findByEmail(EMAIL)).thenReturn(Optional.of(user));
+
+        DaoAuthenticationProvider provider = new DaoAuthenticationProvider(new CustomUserDetailsService(userRepository, ""));
+        provider.setPasswordEncoder(encoder);
+        JsonUsernamePasswordAuthFilter filter = new JsonUsernamePasswordAuthFilter("/api/auth/login", new ProviderManager(provider));
+        filter.setAuthenticationSuccessHandler((request, response, authentication) -> response.setStatus(200));
+        return filter;
+    }
+
+    private MockHttpServletResponse login(JsonUsernamePasswordAuthFilter filter) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/auth/login");
+        request.setServletPath("/api/auth/login");
+        request.setContentType("application/json");
+        request.setContent(("{\"email\":\"" + EMAIL + "\",\"password\":\"password123\"}").getBytes(StandardCharsets.UTF_8));
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, new MockFilterChain());
+        return response;
+    }
+
+    @Test
+    void fullExecutorRefusesLoginsWith503WhileAcceptedHashesComplete() throws Exception {
+        OffloadingPasswordEncoder encoder = new OffloadingPasswordEncoder(gatedBcrypt, 1, 1, 7, meterRegistry);
+        try {
+            JsonUsernamePasswordAuthFilter filter = loginFilter(encoder);
+            assertThat(login(filter).getStatus()).isEqualTo(200);
+
+            // one hash running, one queued: the executor is full
+            blocking = true;
+            CompletableFuture<Boolean> running = CompletableFuture.supplyAsync(() -> encoder.matches("password123", hash), callers);
+            awaitGauge("auth.hashing.active", 1);
+            CompletableFuture<Boolean> queued = CompletableFuture.supplyAsync(() -> encoder.matches("wrong", hash), callers);
+            awaitGauge("auth.hashing.queue.size", 1);
+
+            MockHttpServletResponse refused = login(filter);
+            assertThat(refused.getStatus()).isEqualTo(503);
+            assertThat(refused.getHeader("Retry-After")).isEqualTo("7");
+            assertThat(meterRegistry.get("auth.hashing.rejected").counter().count()).isEqualTo(1);
+
+            gate.countDown();
+            assertThat(running.get(10, TimeUnit.SECONDS)).isTrue();
+            assertThat(queued.get(10, TimeUnit.SECONDS)).isFalse();
+            assertThat(login(filter).getStatus()).isEqualTo(200);
+        } finally {
+            encoder.shutdown();
+        }
+    }
+
+    private void awaitGauge(String name, double value) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (meterRegistry.get(name).gauge().value() != value) {
+            assertThat(System.nanoTime()).as("waiting for %s = %s", name, value).isLessThan(deadline);
+            Thread.sleep(5);
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package app.security;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.util.AntPathMatcher;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class PublicRouteIndexTests {
+
+    private static final String[] PATTERNS = {"/", "/index.html", "/assets/**", "/*.js", "/*.ico", "/about"};
+
+    private final PublicRouteIndex index = PublicRouteIndex.compile(PATTERNS);
+
+    @Test
+    void agreesWithAntPatternsOnPathsThatReachTheChain() {
+        AntPathMatcher ant = new AntPathMatcher();
+        List<String> paths = List.of("/", "/index.html", "/index.htm", "/assets", "/assets/", "/assets/index-Cls-akSc.js",
+                "/assets/fonts/a.woff2", "/assetsx/a.js", "/app.js", "/app.json", "/js/app.js", "/favicon.ico",
+                "/about", "/about/team", "/api/user", "/api/csrf", "/login");
+        for (String path : paths) {
+            boolean expected = Arrays.stream(PATTERNS).anyMatch(pattern -> ant.match(pattern, path));
+            assertThat(index.matchesPath(path)).as(path).isEqualTo(expected);
+        }
+    }
+
+    @Test
+    void onlyGetAndHeadTakeTheFastPath() {
+        assertThat(index.matches(new MockHttpServletRequest("GET", "/assets/a.css"))).isTrue();
+        assertThat(index.matches(new MockHttpServletRequest("HEAD", "/"))).isTrue();
+        assertThat(index.matches(new MockHttpServletRequest("POST", "/"))).isFalse();
+        assertThat(index.matches(new MockHttpServletRequest("OPTIONS", "/assets/a.css"))).isFalse();
+
+        MockHttpServletRequest underContext = new MockHttpServletRequest("GET", "/app/about");
+        underContext.setContextPath("/app");
+        assertThat(index.matches(underContext)).isTrue();
+    }
+
+    @Test
+    void rejectsPatternsItCannotIndex() {
+        assertThatThrownBy(() -> PublicRouteIndex.compile("/api/*/public")).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> PublicRouteIndex.compile("/**/*.js")).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> PublicRouteIndex.compile("about")).isInstanceOf(IllegalArgumentException.class);
+    }
+}
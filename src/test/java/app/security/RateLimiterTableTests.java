@@ -0,0 +1,102 @@
+package app.security;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RateLimiterTableTests {
+
+    private static final long MINUTE = TimeUnit.MINUTES.toNanos(1);
+
+    private final AtomicLong clock = new AtomicLong(1_000);
+
+    private RateLimiterTable table(int capacity, int maxEntries) {
+        return new RateLimiterTable(capacity, MINUTE, maxEntries, clock::get);
+    }
+
+    @Test
+    void burstIsCappedAndRefillsOneTokenPerInterval() {
+        RateLimiterTable table = table(4, 100);
+        for (int i = 0; i < 4; i++) {
+            assertThat(table.tryAcquire("10.0.0.1")).isZero();
+        }
+        long wait = table.tryAcquire("10.0.0.1");
+        assertThat(wait).isEqualTo(MINUTE / 4);
+
+        clock.addAndGet(wait - 1);
+        assertThat(table.tryAcquire("10.0.0.1")).isEqualTo(1);
+        clock.addAndGet(1);
+        assertThat(table.tryAcquire("10.0.0.1")).isZero();
+        assertThat(table.tryAcquire("10.0.0.1")).isPositive();
+
+        clock.addAndGet(MINUTE);
+        for (int i = 0; i < 4; i++) {
+            assertThat(table.tryAcquire("10.0.0.1")).isZero();
+        }
+    }
+
+    @Test
+    void floodingPastMaxEntriesDoesNotResetADrainedBudget() {
+        RateLimiterTable table = table(2, 10);
+        table.tryAcquire("victim@mail.com");
+        table.tryAcquire("victim@mail.com");
+        assertThat(table.tryAcquire("victim@mail.com")).isPositive();
+
+        int admitted = 0;
+        for (int i = 0; i < 1_000; i++) {
+            if (table.tryAcquire("flood" + i + "@mail.com") == 0) {
+                admitted++;
+            }
+        }
+        // the table filled up and then refused new keys rather than dropping tracked ones
+        assertThat(admitted).isEqualTo(9);
+        assertThat(table.size()).isEqualTo(10);
+        assertThat(table.tryAcquire("victim@mail.com")).isPositive();
+
+        // once the flood's buckets refill they make room again; the victim has regained one token, not two
+        clock.addAndGet(MINUTE / 2);
+        assertThat(table.tryAcquire("new@mail.com")).isZero();
+        assertThat(table.size()).isEqualTo(2);
+        assertThat(table.tryAcquire("victim@mail.com")).isZero();
+        assertThat(table.tryAcquire("victim@mail.com")).isPositive();
+    }
+
+    @Test
+    void refundGivesBackOneTokenUpToCapacity() {
+        RateLimiterTable table = table(2, 100);
+        table.tryAcquire("a");
+        table.tryAcquire("a");
+        assertThat(table.tryAcquire("a")).isPositive();
+
+        table.refund("a");
+        assertThat(table.tryAcquire("a")).isZero();
+        assertThat(table.tryAcquire("a")).isPositive();
+
+        table.refund("a");
+        table.refund("a");
+        table.refund("a"); // already full
+        assertThat(table.tryAcquire("a")).isZero();
+        assertThat(table.tryAcquire("a")).isZero();
+        assertThat(table.tryAcquire("a")).isPositive();
+    }
+
+    @Test
+    void refilledBucketsAreEvicted() {
+        RateLimiterTable table = table(2, 100);
+        table.tryAcquire("a");
+        table.tryAcquire("b");
+        table.tryAcquire("b");
+        assertThat(table.size()).isEqualTo(2);
+
+        clock.addAndGet(MINUTE / 2);
+        table.evictIdle();
+        assertThat(table.size()).isEqualTo(1); // "a" has refilled, "b" has not
+
+        clock.addAndGet(MINUTE / 2);
+        table.evictIdle();
+        assertThat(table.size()).isZero();
+    }
+}
@@ -0,0 +1,84 @@
+package app.security;
+
+import app.model.User;
+import app.model.UserRole;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.Base64;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SignedTokenServiceTests {
+
+    private static final String OLD_KEY = "k1:" + Base64.getEncoder().encodeToString(new byte[32]);
+    private static final String NEW_KEY = "k2:" + Base64.getEncoder().encodeToString("0123456789abcdef0123456789abcdef".getBytes());
+    private static final Instant NOW = Instant.parse("2026-01-01T00:00:00Z");
+
+    private static SignedTokenService service(String keys, String active, Instant now) {
+        SignedTokenService tokens = new SignedTokenService(true, keys, active, Duration.ofMinutes(15));
+        tokens.setClock(Clock.fixed(now, ZoneOffset.UTC));
+        return tokens;
+    }
+
+    private static CustomUserDetails principal() {
+        User user = new User();
+        user.setId(42L);
+        user.setName("Alex");
+        user.setEmail("alex@mail.com");
+        user.setRole(UserRole.AGENT);
+        user.setPassword("{bcrypt}hash");
+        return new CustomUserDetails(user);
+    }
+
+    @Test
+    void roundTripsThePrincipalWithoutThePassword() {
+        SignedTokenService tokens = service(OLD_KEY, "k1", NOW);
+        CustomUserDetails verified = tokens.verify(tokens.issue(principal()));
+
+        assertThat(verified.getId()).isEqualTo(42L);
+        assertThat(verified.getEmail()).isEqualTo("alex@mail.com");
+        assertThat(verified.getRole()).isEqualTo("AGENT");
+        assertThat(verified.getPassword()).isNull();
+    }
+
+    @Test
+    void rejectsTamperedExpiredAndMalformedTokens() {
+        SignedTokenService tokens = service(OLD_KEY, "k1", NOW);
+        String token = tokens.issue(principal());
+        char last = token.charAt(token.length() - 2);
+        String tampered = token.substring(0, token.length() - 2) + (last == 'A' ? 'B' : 'A') + token.charAt(token.length() - 1);
+
+        assertThat(tokens.verify(tampered)).isNull();
+        assertThat(tokens.verify("not-a-token")).isNull();
+        assertThat(tokens.verify("a.b.c.d")).isNull();
+        assertThat(tokens.verify("%%%.%%%.%%%")).isNull();
+        assertThat(service(OLD_KEY, "k1", NOW.plus(Duration.ofMinutes(16))).verify(token)).isNull();
+    }
+
+    @Test
+    void rotationKeepsOldTokensValidUntilTheirKeyIsDropped() {
+        String oldToken = service(OLD_KEY, "k1", NOW).issue(principal());
+        SignedTokenService rotated = service(OLD_KEY + "," + NEW_KEY, "k2", NOW);
+        String newToken = rotated.issue(principal());
+
+        assertThat(new String(Base64.getUrlDecoder().decode(newToken.substring(0, newToken.indexOf('.'))))).isEqualTo("k2");
+        assertThat(rotated.verify(oldToken)).isNotNull();
+        assertThat(rotated.verify(newToken)).isNotNull();
+
+        SignedTokenService retired = service(NEW_KEY, "k2", NOW);
+        assertThat(retired.verify(oldToken)).isNull();
+        assertThat(retired.verify(newToken)).isNotNull();
+    }
+
+    @Test
+    void refusesShortKeysAndAMissingActiveKey() {
+        String shortKey = "k1:" + Base64.getEncoder().encodeToString(new byte[16]);
+        assertThatThrownBy(() -> service(shortKey, "k1", NOW)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> service(OLD_KEY, "k9", NOW)).isInstanceOf(IllegalStateException.class);
+    }
+}
@@ -0,0 +1,97 @@
+package app.security;
+
+import jakarta.servlet.Filter;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.boot.web.servlet.ServletContextInitializer;
+import org.springframework.boot.web.servlet.ServletContextInitializerBeans;
+import org.springframework.context.ApplicationContext;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.web.FilterChainProxy;
+import org.springframework.security.web.csrf.CsrfFilter;
+import org.springframework.security.web.header.HeaderWriterFilter;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class StaticFilterChainTests {
+
+    @Autowired
+    private FilterChainProxy springSecurityFilterChain;
+
+    @Autowired
+    private ApplicationContext context;
+
+    private MockHttpServletResponse get(String method, String path) throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        springSecurityFilterChain.doFilter(new MockHttpServletRequest(method, path), response, new MockFilterChain());
+        return response;
+    }
+
+    @Test
+    void assetsAreServedWithHeadersButWithoutCsrfOrSession() throws Exception {
+        String asset = "/assets/" + new PathMatchingResourcePatternResolver()
+                .getResources("classpath:/static/assets/*.js")[0].getFilename();
+        assertThat(springSecurityFilterChain.getFilters(asset))
+                .hasAtLeastOneElementOfType(HeaderWriterFilter.class)
+                .doesNotHaveAnyElementsOfTypes(CsrfFilter.class);
+
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", asset);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        springSecurityFilterChain.doFilter(request, response, new MockFilterChain());
+        assertThat(request.getSession(false)).isNull();
+        assertThat(response.getStatus()).isEqualTo(200);
+        assertThat(response.getContentAsByteArray()).isNotEmpty();
+        assertThat(response.getHeader("X-Content-Type-Options")).isEqualTo("nosniff");
+        assertThat(response.getHeader("Cache-Control")).contains("immutable");
+        assertThat(response.getCookies()).isEmpty();
+
+        assertThat(get("GET", "/login").getContentAsString()).contains("<html");
+    }
+
+    @Test
+    void everythingElseKeepsTheFullChain() throws Exception {
+        assertThat(springSecurityFilterChain.getFilters("/api/user")).hasAtLeastOneElementOfType(CsrfFilter.class);
+        assertThat(get("GET", "/api/user").getStatus()).isEqualTo(403);
+        assertThat(get("POST", "/").getStatus()).isEqualTo(403); // no CSRF token
+    }
+
+    @Test
+    void actuatorIsOpenOnlyOnTheManagementPort() throws Exception {
+        assertThat(springSecurityFilterChain.getFilters("/actuator/prometheus")).hasAtLeastOneElementOfType(CsrfFilter.class);
+        assertThat(get("GET", "/actuator/prometheus").getStatus()).isEqualTo(403);
+        assertThat(get("GET", "/actuator/health").getStatus()).isEqualTo(403);
+
+        MockHttpServletRequest scrape = new MockHttpServletRequest("GET", "/actuator/prometheus");
+        scrape.setLocalPort(9090);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        MockFilterChain chain = new MockFilterChain();
+        springSecurityFilterChain.doFilter(scrape, response, chain);
+        assertThat(chain.getRequest()).isNotNull(); // reached the endpoint
+    }
+
+    @Test
+    void chainFiltersAreNotAlsoInstalledInTheServletContainer() {
+        Map<Filter, Boolean> enabled = new IdentityHashMap<>();
+        for (ServletContextInitializer initializer : new ServletContextInitializerBeans(context)) {
+            if (initializer instanceof FilterRegistrationBean<?> registration) {
+                enabled.put(registration.getFilter(), registration.isEnabled());
+            }
+        }
+        for (String name : List.of("originCheckFilter", "bearerTokenFilter", "concurrencyLimitFilter",
+                "loginThrottleFilter", "requestTraceFilter", "staticAssetFilter")) {
+            assertThat(enabled.get(context.getBean(name, Filter.class))).as(name).isFalse();
+        }
+    }
+}
@@ -0,0 +1,151 @@
+package app.security;
+
+import app.model.User;
+import app.model.UserRole;
+import app.repository.UserRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class UserDetailsCacheTests {
+
+    private static final String EMAIL = "alex@mail.com";
+
+    private final BCryptPasswordEncoder encoder = new BCryptPasswordEncoder(4);
+    private UserRepository userRepository;
+    private SimpleMeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() {
+        userRepository = mock(UserRepository.class);
+        meterRegistry = new SimpleMeterRegistry();
+
+        User user = new User();
+        user.setId(1L);
+        user.setName("Alex");
+        user.setEmail(EMAIL);
+        user.setRole(UserRole.USER);
+        user.setPassword(encoder.encode("password123"));
+        when(userRepository.findByEmail(EMAIL)).thenReturn(Optional.of(user));
+    }
+
+    private DaoAuthenticationProvider provider(UserDetailsCache cache) {
+        DaoAuthenticationProvider provider = new DaoAuthenticationProvider(new CustomUserDetailsService(userRepository, ""));
+        provider.setPasswordEncoder(encoder);
+        if (cache != null) {
+            provider.setUserCache(cache);
+        }
+        return provider;
+    }
+
+    private void login(DaoAuthenticationProvider provider, String password) {
+        provider.authenticate(new UsernamePasswordAuthenticationToken(EMAIL, password));
+    }
+
+    @Test
+    void repeatedLoginsWithoutCacheHitTheDatabaseEveryTime() {
+        DaoAuthenticationProvider provider = provider(null);
+        for (int i = 0; i < 20; i++) {
+            login(provider, "password123");
+        }
+        verify(userRepository, times(20)).findByEmail(EMAIL);
+    }
+
+    @Test
+    void repeatedLoginsWithCacheHitTheDatabaseOnce() {
+        UserDetailsCache cache = new UserDetailsCache(100, Duration.ofMinutes(5), meterRegistry);
+        DaoAuthenticationProvider provider = provider(cache);
+        for (int i = 0; i < 20; i++) {
+            login(provider, "password123");
+        }
+        verify(userRepository, times(1)).findByEmail(EMAIL);
+        assertThat(meterRegistry.get("cache.gets").tag("result", "hit").functionCounter().count()).isEqualTo(19);
+        assertThat(meterRegistry.get("cache.gets").tag("result", "miss").functionCounter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void wrongPasswordOnCachedEntryIsRecheckedAgainstTheDatabase() {
+        UserDetailsCache cache = new UserDetailsCache(100, Duration.ofMinutes(5), meterRegistry);
+        DaoAuthenticationProvider provider = provider(cache);
+        login(provider, "password123");
+
+        assertThatThrownBy(() -> login(provider, "wrong")).isInstanceOf(BadCredentialsException.class);
+        verify(userRepository, times(2)).findByEmail(EMAIL);
+    }
+
+    @Test
+    void evictionOnUserWriteForcesReload() {
+        UserDetailsCache cache = new UserDetailsCache(100, Duration.ofMinutes(5), meterRegistry);
+        UserCacheEvictionListener listener = new UserCacheEvictionListener(cache);
+        DaoAuthenticationProvider provider = provider(cache);
+        login(provider, "password123");
+
+        User renamed = new User();
+        renamed.setId(1L);
+        renamed.setEmail("alex@new-mail.com");
+        listener.onChange(renamed);
+
+        assertThat(cache.getUserFromCache(EMAIL)).isNull();
+        login(provider, "password123");
+        verify(userRepository, times(2)).findByEmail(EMAIL);
+    }
+
+    @Test
+    void idIndexFollowsTheCachedEntries() {
+        UserDetailsCache cache = new UserDetailsCache(2, Duration.ofMinutes(5), meterRegistry);
+        for (long id = 1; id <= 5; id++) {
+            cache.putUserInCache(new CustomUserDetails(id, "User", "user" + id + "@mail.com", UserRole.USER, null, null, "hash"));
+        }
+        cache.putUserInCache(cache.getUserFromCache("user5@mail.com")); // a refresh keeps its index entry
+        // size eviction drops the index entries of the evicted users
+        assertThat(cache.size()).isEqualTo(2);
+        assertThat(cache.indexedIds()).isEqualTo(2);
+
+        cache.evictUser(5L, "renamed5@mail.com");
+        assertThat(cache.getUserFromCache("user5@mail.com")).isNull();
+        assertThat(cache.indexedIds()).isEqualTo(1);
+
+        for (long id = 1; id <= 4; id++) {
+            cache.removeUserFromCache("user" + id + "@mail.com");
+        }
+        assertThat(cache.size()).isZero();
+        assertThat(cache.indexedIds()).isZero();
+    }
+
+    @Test
+    void evictionInsideATransactionWaitsForTheCommit() {
+        UserDetailsCache cache = new UserDetailsCache(100, Duration.ofMinutes(5), meterRegistry);
+        UserCacheEvictionListener listener = new UserCacheEvictionListener(cache);
+        login(provider(cache), "password123");
+
+        User updated = new User();
+        updated.setId(1L);
+        updated.setEmail(EMAIL);
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            listener.onChange(updated);
+            assertThat(cache.getUserFromCache(EMAIL)).isNotNull();
+
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+            assertThat(cache.getUserFromCache(EMAIL)).isNull();
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+}
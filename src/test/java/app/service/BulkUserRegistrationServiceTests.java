@@ -0,0 +1,106 @@
+package app.service;
+
+import app.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InterruptedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class BulkUserRegistrationServiceTests {
+
+    @Autowired
+    private BulkUserRegistrationService service;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    private List<String> run(String body, BulkUserRegistrationService.Summary[] summary) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        summary[0] = service.register(new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)), out);
+        return out.toString(StandardCharsets.UTF_8).lines().toList();
+    }
+
+    @Test
+    void importsNdjsonAndReportsEveryRow() throws Exception {
+        BulkUserRegistrationService.Summary[] summary = new BulkUserRegistrationService.Summary[1];
+        List<String> lines = run("""
+                {"name":"Ann","email":"ann@bulk.test","password":"secret-1"}
+                {"name":"Bob","email":"bob@bulk.test","password":"secret-2","role":"agent"}
+                {"name":"Ann again","email":"ANN@bulk.test","password":"secret-3"}
+                {"name":"No password","email":"nopw@bulk.test"}
+                """, summary);
+
+        assertThat(summary[0]).isEqualTo(new BulkUserRegistrationService.Summary(2, 1, 1, false));
+        assertThat(lines).hasSize(5);
+        assertThat(lines).anyMatch(line -> line.contains("\"row\":0") && line.contains("\"status\":\"created\""));
+        assertThat(lines).anyMatch(line -> line.contains("\"row\":2") && line.contains("\"status\":\"duplicate\""));
+        assertThat(lines).anyMatch(line -> line.contains("\"row\":3") && line.contains("\"status\":\"invalid\""));
+        assertThat(lines.get(4)).contains("\"status\":\"done\"");
+
+        assertThat(userRepository.findByEmail("bob@bulk.test")).hasValueSatisfying(user -> {
+            assertThat(user.getRole()).isEqualTo("AGENT");
+            assertThat(passwordEncoder.matches("secret-2", user.getPassword())).isTrue();
+        });
+    }
+
+    @Test
+    void importsJsonArraysAcrossChunksAndSkipsExistingEmails() throws Exception {
+        StringBuilder body = new StringBuilder("[");
+        for (int i = 0; i < 1_200; i++) {
+            body.append(i == 0 ? "" : ",")
+                .append("{\"name\":\"User ").append(i).append("\",\"email\":\"array").append(i)
+                .append("@bulk.test\",\"password\":\"pw\"}");
+        }
+        body.append("]");
+
+        BulkUserRegistrationService.Summary[] summary = new BulkUserRegistrationService.Summary[1];
+        run(body.toString(), summary);
+        assertThat(summary[0].created()).isEqualTo(1_200);
+
+        run(body.toString(), summary);
+        assertThat(summary[0].created()).isZero();
+        assertThat(summary[0].duplicates()).isEqualTo(1_200);
+    }
+
+    @Test
+    void keepsRowsReadBeforeMalformedInput() throws Exception {
+        BulkUserRegistrationService.Summary[] summary = new BulkUserRegistrationService.Summary[1];
+        List<String> lines = run("""
+                {"name":"Cat","email":"cat@bulk.test","password":"pw"}
+                {"name":"Broken",
+                """, summary);
+
+        assertThat(summary[0].created()).isEqualTo(1);
+        assertThat(summary[0].truncated()).isTrue();
+        assertThat(lines).anyMatch(line -> line.contains("\"status\":\"error\""));
+    }
+
+    @Test
+    void stopsOnceTheRequestTimedOut() {
+        Thread.currentThread().interrupt(); // what cancelling the timed-out task does
+        try {
+            assertThatThrownBy(() -> run("""
+                    {"name":"Dan","email":"dan@bulk.test","password":"pw"}
+                    """, new BulkUserRegistrationService.Summary[1]))
+                    .isInstanceOf(InterruptedIOException.class);
+        } finally {
+            Thread.interrupted();
+        }
+        assertThat(userRepository.findByEmail("dan@bulk.test")).isEmpty();
+    }
+}
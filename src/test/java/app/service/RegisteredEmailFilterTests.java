@@ -0,0 +1,83 @@
+package app.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RegisteredEmailFilterTests {
+
+    private static final int ENTRIES = 10_000;
+
+    private EmbeddedDatabase database;
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        database = new EmbeddedDatabaseBuilder().setType(EmbeddedDatabaseType.H2).generateUniqueName(true).build();
+        jdbcTemplate = new JdbcTemplate(database);
+        jdbcTemplate.execute("CREATE TABLE users (id BIGINT PRIMARY KEY, email VARCHAR(100) NOT NULL)");
+    }
+
+    @AfterEach
+    void tearDown() {
+        database.shutdown();
+    }
+
+    private RegisteredEmailFilter filter(long expectedEntries) {
+        return new RegisteredEmailFilter(jdbcTemplate, expectedEntries, 0.01);
+    }
+
+    @Test
+    void everythingIsMaybeUntilWarmedThenNoFalseNegatives() {
+        jdbcTemplate.update("INSERT INTO users VALUES (1, 'Alex@Mail.com')");
+        RegisteredEmailFilter filter = filter(ENTRIES);
+        assertThat(filter.mightContain("new@mail.com")).isTrue();
+
+        filter.rebuild();
+        assertThat(filter.mightContain("alex@mail.com")).isTrue();
+        assertThat(filter.mightContain(" ALEX@mail.com ")).isTrue();
+        assertThat(filter.mightContain("new@mail.com")).isFalse();
+
+        filter.add("new@mail.com");
+        assertThat(filter.mightContain("new@mail.com")).isTrue();
+    }
+
+    @Test
+    void falsePositiveRateStaysNearTheConfiguredTarget() {
+        RegisteredEmailFilter filter = filter(ENTRIES);
+        filter.rebuild();
+        for (int i = 0; i < ENTRIES; i++) {
+            filter.add("user" + i + "@mail.com");
+        }
+        for (int i = 0; i < ENTRIES; i++) {
+            assertThat(filter.mightContain("user" + i + "@mail.com")).isTrue();
+        }
+        int falsePositives = 0;
+        int probes = 100_000;
+        for (int i = 0; i < probes; i++) {
+            if (filter.mightContain("other" + i + "@mail.com")) {
+                falsePositives++;
+            }
+        }
+        assertThat((double) falsePositives / probes).isLessThan(0.015);
+        assertThat(filter.expectedFalsePositiveRate()).isBetween(0.005, 0.015);
+    }
+
+    @Test
+    void rebuildResizesPastTheExpectedEntries() {
+        RegisteredEmailFilter filter = filter(100);
+        jdbcTemplate.batchUpdate("INSERT INTO users VALUES (?, ?)", IntStream.range(0, 1_000)
+                .mapToObj(i -> new Object[] {i, "user" + i + "@mail.com"}).toList());
+
+        assertThat(filter.rebuild()).isEqualTo(1_000);
+        assertThat(filter.expectedFalsePositiveRate()).isLessThan(0.01);
+    }
+}
@@ -0,0 +1,161 @@
+package app.service;
+
+import app.dto.UserMatch;
+import app.model.UserRole;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.TreeMap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class UserSearchIndexTests {
+
+    private EmbeddedDatabase database;
+    private JdbcTemplate jdbcTemplate;
+    private UserSearchIndex index;
+
+    @BeforeEach
+    void setUp() {
+        database = new EmbeddedDatabaseBuilder().setType(EmbeddedDatabaseType.H2).generateUniqueName(true).build();
+        jdbcTemplate = new JdbcTemplate(database);
+        jdbcTemplate.execute("CREATE TABLE users (id BIGINT PRIMARY KEY, name VARCHAR(100) NOT NULL, "
+                + "email VARCHAR(100) NOT NULL, role VARCHAR(20) NOT NULL)");
+        index = new UserSearchIndex(jdbcTemplate);
+    }
+
+    @AfterEach
+    void tearDown() {
+        database.shutdown();
+    }
+
+    private static List<Long> ids(List<UserMatch> matches) {
+        return matches.stream().map(UserMatch::id).toList();
+    }
+
+    @Test
+    void matchesNameWordsAndEmailCaseInsensitivelyOncePerUser() {
+        jdbcTemplate.update("INSERT INTO users VALUES (1, 'John Smith', 'jsmith@mail.com', 'USER')");
+        jdbcTemplate.update("INSERT INTO users VALUES (2, 'Anna Smith-Jones', 'anna@mail.com', 'AGENT')");
+        jdbcTemplate.update("INSERT INTO users VALUES (3, 'Jürgen Müller', 'jm@mail.de', 'ADMIN')");
+        assertThat(index.search("jo", 10)).isEmpty(); // not built yet
+        assertThat(index.rebuild()).isEqualTo(3);
+
+        assertThat(index.search("SMI", 10)).containsExactly( // "smith" sorts before "smith-jones"
+                new UserMatch(1L, "John Smith", "jsmith@mail.com", UserRole.USER),
+                new UserMatch(2L, "Anna Smith-Jones", "anna@mail.com", UserRole.AGENT));
+        assertThat(ids(index.search("jo", 10))).containsExactly(1L, 2L);
+        assertThat(ids(index.search(" j", 10))).containsExactly(3L, 1L, 2L); // jm@, john, jones; jsmith is John again
+        assertThat(ids(index.search("jü", 10))).containsExactly(3L);
+        assertThat(ids(index.search("müller", 10))).containsExactly(3L);
+        assertThat(ids(index.search("anna@", 10))).containsExactly(2L);
+        assertThat(ids(index.search("j", 1))).containsExactly(3L);
+        assertThat(index.search("smith jones", 10)).isEmpty();
+        assertThat(index.search("  ", 10)).isEmpty();
+    }
+
+    @Test
+    void queriesWithControlCharactersMatchNothing() {
+        jdbcTemplate.update("INSERT INTO users VALUES (1, 'Al', 'al@mail.com', 'USER')");
+        jdbcTemplate.update("INSERT INTO users VALUES (2, 'Zed', 'z@mail.com', 'USER')");
+        index.rebuild();
+
+        // NUL would match the terminator of the last key in the arena and read past it
+        assertThat(index.search("zed\u0000x", 10)).isEmpty();
+        assertThat(index.search("a\u0000l", 10)).isEmpty();
+        assertThat(ids(index.search("al\u0000", 10))).containsExactly(1L); // trimmed like spaces
+        assertThat(index.search("al\tx", 10)).isEmpty();
+        assertThat(ids(index.search("zed", 10))).containsExactly(2L);
+    }
+
+    @Test
+    void publishesItsSizeOnceBound() {
+        jdbcTemplate.update("INSERT INTO users VALUES (1, 'Al', 'al@mail.com', 'USER')");
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        index.bindTo(registry);
+        index.rebuild();
+        index.put(2, "Bo", "bo@mail.com", UserRole.USER);
+
+        assertThat(registry.get("app.search.users").gauge().value()).isEqualTo(1);
+        assertThat(registry.get("app.search.pending_changes").gauge().value()).isEqualTo(1);
+        assertThat(registry.get("app.search.bytes").gauge().value()).isPositive();
+    }
+
+    @Test
+    void writesAreVisibleBeforeAndAfterMerging() {
+        jdbcTemplate.update("INSERT INTO users VALUES (1, 'Alice Brown', 'alice@mail.com', 'USER')");
+        jdbcTemplate.update("INSERT INTO users VALUES (2, 'Bob Brown', 'bob@mail.com', 'USER')");
+        index.rebuild();
+
+        index.put(2, "Robert Brown", "bob@mail.com", UserRole.AGENT);
+        index.put(3, "Bea Brown", "bea@mail.com", UserRole.USER);
+        index.remove(1);
+        for (int round = 0; round < 2; round++) {
+            assertThat(ids(index.search("brown", 10))).containsExactlyInAnyOrder(3L, 2L);
+            assertThat(index.search("bob", 10)).singleElement().extracting(UserMatch::role).isEqualTo(UserRole.AGENT);
+            assertThat(ids(index.search("b", 10))).containsExactly(3L, 2L); // bea@, bob@ (then their names)
+            assertThat(index.search("alice", 10)).isEmpty();
+            assertThat(index.search("robert", 10)).hasSize(1);
+            index.mergeChanges();
+        }
+        assertThat(index.size()).isEqualTo(2);
+    }
+
+    @Test
+    void agreesWithABruteForceScanAfterRandomWritesAndMerges() {
+        Random random = new Random(42);
+        String[] words = {"ann", "anna", "anne", "bo", "bob", "carl", "carla", "dé", "dee", "eve"};
+        TreeMap<Long, String[]> expected = new TreeMap<>();
+        for (long id = 1; id <= 300; id++) {
+            String[] user = randomUser(random, words, id);
+            expected.put(id, user);
+            jdbcTemplate.update("INSERT INTO users VALUES (?, ?, ?, 'USER')", id, user[0], user[1]);
+        }
+        index.rebuild();
+        for (int step = 0; step < 600; step++) {
+            long id = 1 + random.nextInt(400);
+            if (random.nextInt(4) == 0) {
+                expected.remove(id);
+                index.remove(id);
+            } else {
+                String[] user = randomUser(random, words, id);
+                expected.put(id, user);
+                index.put(id, user[0], user[1], UserRole.USER);
+            }
+            if (step % 150 == 149) {
+                index.mergeChanges();
+            }
+            String query = words[random.nextInt(words.length)].substring(0, 1 + random.nextInt(2));
+            assertThat(ids(index.search(query, 1000))).containsExactlyInAnyOrderElementsOf(bruteForce(expected, query));
+        }
+        index.mergeChanges();
+        assertThat(index.size()).isEqualTo(expected.size());
+        assertThat(index.search("a", 5)).hasSize(5);
+    }
+
+    private static String[] randomUser(Random random, String[] words, long id) {
+        String name = words[random.nextInt(words.length)] + " " + words[random.nextInt(words.length)].toUpperCase(Locale.ROOT);
+        return new String[] {name, words[random.nextInt(words.length)] + id + "@mail.com"};
+    }
+
+    private static List<Long> bruteForce(TreeMap<Long, String[]> users, String query) {
+        return users.entrySet().stream()
+                .filter(e -> {
+                    String name = e.getValue()[0].toLowerCase(Locale.ROOT);
+                    return name.startsWith(query) || name.contains(" " + query) || e.getValue()[1].startsWith(query);
+                })
+                .map(e -> e.getKey())
+                .sorted(Comparator.naturalOrder())
+                .toList();
+    }
+}
@@ -0,0 +1,137 @@
+package app.session;
+
+import app.model.User;
+import app.model.UserRole;
+import app.security.CustomUserDetails;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextImpl;
+import org.springframework.security.web.context.HttpSessionSecurityContextRepository;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class JdbcCompactSessionRepositoryTests {
+
+    private static final String CONTEXT = HttpSessionSecurityContextRepository.SPRING_SECURITY_CONTEXT_KEY;
+
+    private EmbeddedDatabase database;
+    private JdbcTemplate jdbcTemplate;
+    private JdbcCompactSessionRepository repository;
+
+    @BeforeEach
+    void setUp() {
+        database = new EmbeddedDatabaseBuilder()
+                .setType(EmbeddedDatabaseType.H2)
+                .generateUniqueName(true)
+                .addScript("schema.sql")
+                .build();
+        jdbcTemplate = new JdbcTemplate(database);
+        repository = new JdbcCompactSessionRepository(jdbcTemplate, Duration.ofMinutes(30));
+    }
+
+    @AfterEach
+    void tearDown() {
+        database.shutdown();
+    }
+
+    private static SecurityContext loggedIn() {
+        User user = new User();
+        user.setId(7L);
+        user.setName("Alex");
+        user.setEmail("alex@mail.com");
+        user.setRole(UserRole.ADMIN);
+        user.setPassword("{bcrypt}$2a$10$secret-hash-never-stored");
+        user.setCreatedAt(LocalDateTime.of(2025, 12, 4, 18, 59, 9, 123_000_000));
+        CustomUserDetails principal = new CustomUserDetails(user);
+        return new SecurityContextImpl(UsernamePasswordAuthenticationToken.authenticated(
+                principal, null, principal.getAuthorities()));
+    }
+
+    @Test
+    void storesTheSecurityContextCompactlyWithoutThePasswordHash() {
+        CompactSession session = repository.createSession();
+        session.setAttribute(CONTEXT, loggedIn());
+        repository.save(session);
+
+        byte[] stored = jdbcTemplate.queryForObject(
+                "SELECT attributes FROM app_session WHERE session_id = ?", byte[].class, session.getId());
+        assertThat(stored.length).isLessThan(150);
+        assertThat(new String(stored)).doesNotContain("secret-hash");
+        assertThat(jdbcTemplate.queryForObject("SELECT principal_id FROM app_session", Long.class)).isEqualTo(7L);
+
+        CompactSession loaded = repository.findById(session.getId());
+        SecurityContext context = loaded.getAttribute(CONTEXT);
+        CustomUserDetails principal = (CustomUserDetails) context.getAuthentication().getPrincipal();
+        assertThat(principal.getId()).isEqualTo(7L);
+        assertThat(principal.getEmail()).isEqualTo("alex@mail.com");
+        assertThat(principal.getRole()).isEqualTo("ADMIN");
+        assertThat(principal.getName()).isEqualTo("Alex");
+        assertThat(principal.getCreatedAt()).isEqualTo(LocalDateTime.of(2025, 12, 4, 18, 59, 9, 123_000_000));
+        assertThat(principal.getPassword()).isNull();
+        assertThat(context.getAuthentication().getAuthorities()).extracting("authority").containsExactly("ROLE_ADMIN");
+    }
+
+    @Test
+    void lastAccessTouchesAreWrittenBehindInOneBatch() {
+        CompactSession session = repository.createSession();
+        session.setAttribute(CONTEXT, loggedIn());
+        repository.save(session);
+        long inserted = lastAccess(session.getId());
+
+        CompactSession loaded = repository.findById(session.getId());
+        Instant later = Instant.ofEpochMilli(inserted).plusSeconds(60);
+        loaded.setLastAccessedTime(later);
+        repository.save(loaded);
+
+        assertThat(lastAccess(session.getId())).isEqualTo(inserted);
+        // reads still see the pending touch
+        assertThat(repository.findById(session.getId()).getLastAccessedTime()).isEqualTo(later);
+
+        assertThat(repository.flushLastAccess()).isEqualTo(1);
+        assertThat(lastAccess(session.getId())).isEqualTo(later.toEpochMilli());
+    }
+
+    @Test
+    void changedSessionIdRewritesTheRow() {
+        CompactSession session = repository.createSession();
+        repository.save(session);
+        String oldId = session.getId();
+
+        CompactSession loaded = repository.findById(oldId);
+        loaded.changeSessionId();
+        repository.save(loaded);
+
+        assertThat(repository.findById(oldId)).isNull();
+        assertThat(repository.findById(loaded.getId())).isNotNull();
+    }
+
+    @Test
+    void sweeperDeletesExpiredSessionsOnly() {
+        CompactSession expired = repository.createSession();
+        expired.setMaxInactiveInterval(Duration.ofSeconds(1));
+        expired.setLastAccessedTime(Instant.now().minusSeconds(10));
+        repository.save(expired);
+        CompactSession live = repository.createSession();
+        repository.save(live);
+
+        assertThat(repository.deleteExpired()).isEqualTo(1);
+        assertThat(repository.countActive()).isEqualTo(1);
+        assertThat(repository.findById(live.getId())).isNotNull();
+    }
+
+    private long lastAccess(String id) {
+        return jdbcTemplate.queryForObject(
+                "SELECT last_access_time FROM app_session WHERE session_id = ?", Long.class, id);
+    }
+}
@@ -0,0 +1,133 @@
+package app.trace;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RequestTraceBufferTests {
+
+    private static final String[] PATHS = {"/api/user", "/api/users", "/login", "/assets/index.js"};
+
+    private static boolean offer(RequestTraceBuffer buffer, long id) {
+        return buffer.offer(id, id % 2 == 0 ? "GET" : "POST", PATHS[(int) (id % PATHS.length)],
+                200 + (int) (id % 300), id % 3 == 0, id, id * 7);
+    }
+
+    /** Collects ids and checks every field of a record against the id it was offered with. */
+    private static RequestTraceBuffer.Consumer checking(List<Long> ids) {
+        return (timestamp, method, path, status, session, principal, duration) -> {
+            assertThat(method).isEqualTo(timestamp % 2 == 0 ? "GET" : "POST");
+            assertThat(path).isSameAs(PATHS[(int) (timestamp % PATHS.length)]);
+            assertThat(status).isEqualTo(200 + (int) (timestamp % 300));
+            assertThat(session).isEqualTo(timestamp % 3 == 0);
+            assertThat(principal).isEqualTo(timestamp);
+            assertThat(duration).isEqualTo(timestamp * 7);
+            ids.add(timestamp);
+        };
+    }
+
+    @Test
+    void capacityIsRoundedUpToAPowerOfTwo() {
+        assertThat(new RequestTraceBuffer(1).capacity()).isEqualTo(2);
+        assertThat(new RequestTraceBuffer(2).capacity()).isEqualTo(2);
+        assertThat(new RequestTraceBuffer(8).capacity()).isEqualTo(8);
+        assertThat(new RequestTraceBuffer(9).capacity()).isEqualTo(16);
+    }
+
+    @Test
+    void fullRingDropsNewRecordsInsteadOfOverwritingUnreadOnes() {
+        RequestTraceBuffer buffer = new RequestTraceBuffer(4);
+        for (long id = 0; id < 4; id++) {
+            assertThat(offer(buffer, id)).isTrue();
+        }
+        assertThat(offer(buffer, 4)).isFalse();
+        assertThat(offer(buffer, 5)).isFalse();
+        assertThat(buffer.droppedCount()).isEqualTo(2);
+        assertThat(buffer.size()).isEqualTo(4);
+
+        List<Long> ids = new ArrayList<>();
+        assertThat(buffer.drain(checking(ids), 10)).isEqualTo(4);
+        assertThat(ids).containsExactly(0L, 1L, 2L, 3L);
+        assertThat(buffer.size()).isZero();
+    }
+
+    @Test
+    void slotsAreReusedAcrossManyWrapArounds() {
+        RequestTraceBuffer buffer = new RequestTraceBuffer(4);
+        List<Long> ids = new ArrayList<>();
+        long next = 0;
+        for (int round = 0; round < 100; round++) {
+            // leave the ring partly filled so head and tail cross the end of the array at different times
+            assertThat(offer(buffer, next++)).isTrue();
+            assertThat(offer(buffer, next++)).isTrue();
+            assertThat(offer(buffer, next++)).isTrue();
+            assertThat(buffer.drain(checking(ids), 2)).isEqualTo(2);
+            assertThat(buffer.drain(checking(ids), 1)).isEqualTo(1);
+        }
+        assertThat(buffer.drain(checking(ids), 10)).isZero();
+        assertThat(ids).hasSize((int) next);
+        for (int i = 0; i < ids.size(); i++) {
+            assertThat(ids.get(i)).isEqualTo(i);
+        }
+        assertThat(buffer.droppedCount()).isZero();
+    }
+
+    @Test
+    void concurrentProducersLoseAndTearNothing() throws Exception {
+        int producers = 4;
+        int perProducer = 50_000;
+        RequestTraceBuffer buffer = new RequestTraceBuffer(1024);
+        ExecutorService pool = Executors.newFixedThreadPool(producers);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Integer>> accepted = new ArrayList<>();
+        try {
+            for (int p = 0; p < producers; p++) {
+                long first = (long) p * perProducer;
+                accepted.add(pool.submit(() -> {
+                    start.await();
+                    int count = 0;
+                    for (long id = first; id < first + perProducer; id++) {
+                        if (offer(buffer, id)) {
+                            count++;
+                        }
+                    }
+                    return count;
+                }));
+            }
+
+            List<Long> ids = new ArrayList<>();
+            RequestTraceBuffer.Consumer consumer = checking(ids);
+            start.countDown();
+            while (!accepted.stream().allMatch(Future::isDone)) {
+                buffer.drain(consumer, 256);
+            }
+            while (buffer.drain(consumer, 256) > 0) {
+                // records published after the last producer finished
+            }
+
+            int offered = 0;
+            for (Future<Integer> future : accepted) {
+                offered += future.get();
+            }
+            assertThat(ids).hasSize(offered);
+            assertThat(offered + buffer.droppedCount()).isEqualTo((long) producers * perProducer);
+            BitSet seen = new BitSet();
+            for (long id : ids) {
+                assertThat(seen.get((int) id)).as("id %d drained twice", id).isFalse();
+                seen.set((int) id);
+            }
+        } finally {
+            pool.shutdownNow();
+            assertThat(pool.awaitTermination(10, TimeUnit.SECONDS)).isTrue();
+        }
+    }
+}
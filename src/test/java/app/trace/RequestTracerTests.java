@@ -0,0 +1,63 @@
+package app.trace;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RequestTracerTests {
+
+    @TempDir
+    Path dir;
+
+    private RequestTracer tracer(double sampleRate) {
+        return new RequestTracer(sampleRate, 1024, dir.resolve("trace.log").toString(),
+                DataSize.ofMegabytes(1), 2, new SimpleMeterRegistry());
+    }
+
+    @Test
+    void rateZeroSamplesNothingAndStartsNoWriter() {
+        RequestTracer tracer = tracer(0);
+        for (int i = 0; i < 10_000; i++) {
+            assertThat(tracer.sample()).isFalse();
+        }
+        tracer.start();
+        assertThat(tracer.isRunning()).isFalse();
+        tracer.stop();
+        assertThat(dir.resolve("trace.log")).doesNotExist();
+    }
+
+    @Test
+    void rateOneSamplesEveryRequest() {
+        RequestTracer tracer = tracer(1);
+        for (int i = 0; i < 10_000; i++) {
+            assertThat(tracer.sample()).isTrue();
+        }
+    }
+
+    @Test
+    void stopWritesEveryPendingRecord() throws Exception {
+        RequestTracer tracer = tracer(1);
+        tracer.start();
+        try {
+            for (int i = 0; i < 500; i++) {
+                tracer.record("GET", "/api/users/" + i, 200, i % 2 == 0, i, TimeUnit.MICROSECONDS.toNanos(i));
+            }
+        } finally {
+            tracer.stop();
+        }
+        assertThat(tracer.isRunning()).isFalse();
+
+        List<String> lines = Files.readAllLines(dir.resolve("trace.log"));
+        assertThat(lines).hasSize(500);
+        assertThat(lines.get(0)).matches("\\d+ GET /api/users/0 200 0 S 0");
+        assertThat(lines.get(499)).matches("\\d+ GET /api/users/499 200 499 - 499");
+    }
+}
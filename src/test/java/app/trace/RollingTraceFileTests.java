@@ -0,0 +1,56 @@
+package app.trace;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RollingTraceFileTests {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void rollsAtTheSizeLimitAndKeepsOnlyMaxBackups() throws Exception {
+        Path file = dir.resolve("logs/trace.log");
+        // each line is 10 bytes with its newline, so every file holds 3 lines
+        try (RollingTraceFile out = new RollingTraceFile(file, 30, 2)) {
+            for (int i = 0; i < 12; i++) {
+                out.write("line-" + String.format("%04d", i));
+            }
+        }
+
+        assertThat(Files.readAllLines(file)).containsExactly("line-0009", "line-0010", "line-0011");
+        assertThat(Files.readAllLines(dir.resolve("logs/trace.log.1"))).containsExactly("line-0006", "line-0007", "line-0008");
+        assertThat(Files.readAllLines(dir.resolve("logs/trace.log.2"))).containsExactly("line-0003", "line-0004", "line-0005");
+        assertThat(dir.resolve("logs/trace.log.3")).doesNotExist();
+    }
+
+    @Test
+    void appendsToAnExistingFileAndCountsItsSize() throws Exception {
+        Path file = dir.resolve("trace.log");
+        Files.writeString(file, "old-00000\nold-00001\n");
+        try (RollingTraceFile out = new RollingTraceFile(file, 30, 1)) {
+            out.write("new-00000");
+            out.write("new-00001");
+        }
+
+        assertThat(Files.readAllLines(dir.resolve("trace.log.1"))).containsExactly("old-00000", "old-00001", "new-00000");
+        assertThat(Files.readAllLines(file)).containsExactly("new-00001");
+    }
+
+    @Test
+    void withoutBackupsTheFullFileIsDiscarded() throws Exception {
+        Path file = dir.resolve("trace.log");
+        try (RollingTraceFile out = new RollingTraceFile(file, 10, 0)) {
+            out.write("line-0000");
+            out.write("line-0001");
+        }
+
+        assertThat(Files.readAllLines(file)).containsExactly("line-0001");
+        assertThat(dir.resolve("trace.log.1")).doesNotExist();
+    }
+}